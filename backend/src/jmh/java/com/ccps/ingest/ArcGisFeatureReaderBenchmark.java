@@ -0,0 +1,119 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting an ArcGIS FeatureSet response: the former path that binds the whole response to
+ * a {@code Map} of boxed values and converts the features afterwards, against the token-level
+ * {@link ArcGisFeatureReader} emitting one feature or one batch at a time.
+ * <p>
+ * Run with {@code ./gradlew :backend:jmh}; add {@code -prof gc} to the JMH arguments to
+ * compare the allocation per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArcGisFeatureReaderBenchmark {
+
+    private static final String[] LOCATIONS = {"Nauset Beach", "Chatham", "Sandy Neck", "Plum Island", "Duxbury"};
+
+    @Param({"1000", "50000"})
+    private int features;
+
+    private byte[] response;
+    private ObjectMapper objectMapper;
+    private ArcGisFeatureReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"displayFieldName\":\"LOCATION\",\"geometryType\":\"esriGeometryPoint\","
+                + "\"spatialReference\":{\"wkid\":4326},\"fields\":[{\"name\":\"OBJECTID\",\"type\":\"esriFieldTypeOID\"},"
+                + "{\"name\":\"LOCATION\",\"type\":\"esriFieldTypeString\"},{\"name\":\"EPR\",\"type\":\"esriFieldTypeDouble\"}],"
+                + "\"features\":[");
+        for (int i = 0; i < features; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"attributes\":{\"OBJECTID\":").append(i)
+                    .append(",\"LOCATION\":\"").append(LOCATIONS[random.nextInt(LOCATIONS.length)])
+                    .append("\",\"YEAR\":").append(1850 + random.nextInt(170))
+                    .append(",\"EPR\":").append(random.nextGaussian())
+                    .append(",\"CONFIDENCE\":\"High\",\"DATASET_NAME\":\"Massachusetts shorelines\"")
+                    .append(",\"METHOD_TYPE\":\"EPR\",\"UNIT\":\"m/yr\",\"TRANSECT\":").append(i / 25)
+                    .append("},\"geometry\":{\"x\":").append(-71.2 + random.nextDouble() * 1.4)
+                    .append(",\"y\":").append(41.2 + random.nextDouble() * 1.6).append("}}");
+        }
+        json.append("],\"exceededTransferLimit\":false}");
+        response = json.toString().getBytes(StandardCharsets.UTF_8);
+        objectMapper = new ObjectMapper();
+        reader = new ArcGisFeatureReader(objectMapper);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void mapTree(Blackhole blackhole) throws IOException {
+        Map<String, Object> body = objectMapper.readValue(response, Map.class);
+        for (Map<String, Object> feature : (List<Map<String, Object>>) body.get("features")) {
+            blackhole.consume(convert(feature));
+        }
+    }
+
+    @Benchmark
+    public ArcGisFeatureReader.Page streaming(Blackhole blackhole) throws IOException {
+        return reader.read(new ByteArrayInputStream(response), blackhole::consume);
+    }
+
+    @Benchmark
+    public ArcGisFeatureReader.Page streamingBatches(Blackhole blackhole) throws IOException {
+        return reader.read(new ByteArrayInputStream(response), 1000, blackhole::consume);
+    }
+
+    /**
+     * The conversion the service used on the bound maps
+     */
+    @SuppressWarnings("unchecked")
+    private static UsgsCoastalData convert(Map<String, Object> feature) {
+        Map<String, Object> attributes = (Map<String, Object>) feature.get("attributes");
+        UsgsCoastalData data = new UsgsCoastalData();
+        if (attributes != null) {
+            data.setLocation((String) attributes.getOrDefault("LOCATION", "Unknown"));
+            data.setYear(((Number) attributes.getOrDefault("YEAR", 0)).intValue());
+            data.setErosionRate(((Number) attributes.getOrDefault("EPR", 0)).doubleValue());
+            data.setConfidence((String) attributes.getOrDefault("CONFIDENCE", "Medium"));
+            data.setDataSource("USGS Coastal Change Hazards Portal");
+            data.setDatasetName((String) attributes.getOrDefault("DATASET_NAME", "Unknown"));
+            data.setMethodType((String) attributes.getOrDefault("METHOD_TYPE", "Unknown"));
+            data.setUnitOfMeasure((String) attributes.getOrDefault("UNIT", "m/yr"));
+            Map<String, Object> geometry = (Map<String, Object>) feature.get("geometry");
+            if (geometry != null) {
+                data.setLongitude(((Number) geometry.getOrDefault("x", 0)).doubleValue());
+                data.setLatitude(((Number) geometry.getOrDefault("y", 0)).doubleValue());
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,243 @@
+package com.clr.snapshot;
+
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * High-erosion and combined-filter queries against the snapshot engine with the scalar and the
+ * Vector API kernel, compared with the repository path it replaces: the JPQL queries of
+ * {@link UsgsCoastalDatasetRepository} through Hibernate over an in-memory H2 table, with the
+ * filters the repository has no query for applied to the loaded entities. As extra baselines
+ * the same SQL runs through a plain JdbcTemplate row mapper, which leaves out Hibernate's own
+ * cost, and streams run over a list of entities already in memory.
+ * <p>
+ * Run with {@code ./gradlew :backend:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShorelineQueryBenchmark {
+
+    private static final String[] REGIONS = {"Cape Cod", "Islands", "North Shore", "South Shore", "Boston Harbor"};
+    private static final double THRESHOLD = 1.5;
+    private static final int TOP_K = 100;
+    private static final LocalDate FROM = LocalDate.of(1990, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2010, 12, 31);
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private List<UsgsCoastalDataset> entities;
+    private ShorelineSnapshot snapshot;
+    private ShorelineQueryEngine scalar;
+    private ShorelineQueryEngine vector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        entities = new ArrayList<>(rows);
+        ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+        for (int i = 0; i < rows; i++) {
+            UsgsCoastalDataset d = new UsgsCoastalDataset();
+            d.setId((long) i);
+            d.setTransectId("T-" + (i / 25));
+            d.setRegion(REGIONS[random.nextInt(REGIONS.length)]);
+            d.setLocation(d.getRegion() + " " + random.nextInt(40));
+            d.setLatitude(41.2 + random.nextDouble() * 1.6);
+            d.setLongitude(-71.2 + random.nextDouble() * 1.4);
+            d.setErosionRate(random.nextInt(20) == 0 ? null : random.nextGaussian());
+            d.setShorelinePosition(random.nextDouble() * 500);
+            d.setShorePosUncert(random.nextDouble() * 10);
+            d.setMeasurementDate(LocalDate.of(1850 + random.nextInt(170), 1 + random.nextInt(12), 1));
+            entities.add(d);
+            builder.add(i, d.getTransectId(), d.getRegion(), d.getLocation(), d.getLatitude(), d.getLongitude(),
+                    d.getErosionRate(), d.getShorelinePosition(), d.getShorePosUncert(), d.getMeasurementDate());
+        }
+        snapshot = builder.build(1);
+        scalar = ShorelineQueryEngine.scalar();
+        vector = ShorelineQueryEngine.create(true);
+    }
+
+    /**
+     * A Spring Boot JPA context on H2 holding the benchmark's rows, with only the dataset repository
+     */
+    @State(Scope.Benchmark)
+    public static class JpaContext {
+
+        private ConfigurableApplicationContext context;
+        private UsgsCoastalDatasetRepository repository;
+        private JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void start(ShorelineQueryBenchmark data) {
+            // Command line arguments take precedence over the PostgreSQL settings in application.properties
+            context = new SpringApplicationBuilder(JpaConfig.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR",
+                            "--spring.datasource.driver-class-name=org.h2.Driver",
+                            "--spring.datasource.username=sa", "--spring.datasource.password=",
+                            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                            "--spring.jpa.hibernate.ddl-auto=create", "--logging.level.root=WARN");
+            // Hibernate creates the table with the entity's indexes, as in production
+            repository = context.getBean(UsgsCoastalDatasetRepository.class);
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.batchUpdate("INSERT INTO usgs_coastal_datasets (id, transect_id, latitude, longitude, "
+                    + "location, region, measurement_date, shore_pos_uncert, shoreline_position, erosion_rate) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", data.entities, 5000, (ps, d) -> {
+                ps.setLong(1, d.getId());
+                ps.setString(2, d.getTransectId());
+                ps.setDouble(3, d.getLatitude());
+                ps.setDouble(4, d.getLongitude());
+                ps.setString(5, d.getLocation());
+                ps.setString(6, d.getRegion());
+                ps.setObject(7, d.getMeasurementDate());
+                ps.setDouble(8, d.getShorePosUncert());
+                ps.setDouble(9, d.getShorelinePosition());
+                ps.setObject(10, d.getErosionRate());
+            });
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+            context.close();
+        }
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = UsgsCoastalDataset.class)
+    @EnableJpaRepositories(basePackageClasses = UsgsCoastalDatasetRepository.class, includeFilters =
+            @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = UsgsCoastalDatasetRepository.class))
+    static class JpaConfig {
+    }
+
+    // Top-K highest erosion rates above a threshold
+
+    @Benchmark
+    public List<UsgsCoastalDataset> topKJpa(JpaContext jpa) {
+        List<UsgsCoastalDataset> above = jpa.repository.findHighErosionAreas(THRESHOLD);
+        return above.subList(0, Math.min(TOP_K, above.size()));
+    }
+
+    @Benchmark
+    public List<UsgsCoastalDataset> topKJdbc(JpaContext jpa) {
+        List<UsgsCoastalDataset> above = jpa.jdbcTemplate.query("SELECT * FROM usgs_coastal_datasets "
+                        + "WHERE erosion_rate > ? ORDER BY erosion_rate DESC",
+                new BeanPropertyRowMapper<>(UsgsCoastalDataset.class), THRESHOLD);
+        return above.subList(0, Math.min(TOP_K, above.size()));
+    }
+
+    @Benchmark
+    public List<UsgsCoastalDataset> topKEntityList() {
+        return entities.stream()
+                .filter(d -> d.getErosionRate() != null && d.getErosionRate() > THRESHOLD)
+                .sorted(Comparator.comparing(UsgsCoastalDataset::getErosionRate).reversed())
+                .limit(TOP_K)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public QueryResult topKScalar() {
+        return scalar.execute(snapshot, topKQuery());
+    }
+
+    @Benchmark
+    public QueryResult topKVector() {
+        return vector.execute(snapshot, topKQuery());
+    }
+
+    // Region AND date range AND rate AND bounding box, counting matches
+
+    // The repository only has a query for the date range, the other filters run on the loaded rows
+
+    @Benchmark
+    public long combinedJpa(JpaContext jpa) {
+        return countRest(jpa.repository.findByMeasurementDateBetween(FROM, TO));
+    }
+
+    @Benchmark
+    public long combinedJdbc(JpaContext jpa) {
+        return countRest(jpa.jdbcTemplate.query("SELECT * FROM usgs_coastal_datasets "
+                        + "WHERE measurement_date BETWEEN ? AND ?",
+                new BeanPropertyRowMapper<>(UsgsCoastalDataset.class), FROM, TO));
+    }
+
+    @Benchmark
+    public long combinedEntityList() {
+        return entities.stream()
+                .filter(d -> "Cape Cod".equalsIgnoreCase(d.getRegion()))
+                .filter(d -> d.getMeasurementDate() != null
+                        && !d.getMeasurementDate().isBefore(FROM) && !d.getMeasurementDate().isAfter(TO))
+                .filter(d -> d.getErosionRate() != null && d.getErosionRate() > 0.0)
+                .filter(d -> d.getLatitude() >= 41.5 && d.getLatitude() <= 42.5
+                        && d.getLongitude() >= -71.0 && d.getLongitude() <= -70.0)
+                .count();
+    }
+
+    @Benchmark
+    public int combinedScalar() {
+        return scalar.execute(snapshot, combinedQuery()).getMatched();
+    }
+
+    @Benchmark
+    public int combinedVector() {
+        return vector.execute(snapshot, combinedQuery()).getMatched();
+    }
+
+    private static long countRest(List<UsgsCoastalDataset> inDateRange) {
+        return inDateRange.stream()
+                .filter(d -> "Cape Cod".equalsIgnoreCase(d.getRegion()))
+                .filter(d -> d.getErosionRate() != null && d.getErosionRate() > 0.0)
+                .filter(d -> d.getLatitude() >= 41.5 && d.getLatitude() <= 42.5
+                        && d.getLongitude() >= -71.0 && d.getLongitude() <= -70.0)
+                .count();
+    }
+
+    private static ShorelineQuery topKQuery() {
+        return ShorelineQuery.builder().minErosionRate(THRESHOLD).topByErosionRate(true).limit(TOP_K).build();
+    }
+
+    private static ShorelineQuery combinedQuery() {
+        return ShorelineQuery.builder()
+                .region("Cape Cod").start(FROM).end(TO).minErosionRate(0.0)
+                .south(41.5).north(42.5).west(-71.0).east(-70.0)
+                .limit(0)
+                .build();
+    }
+}
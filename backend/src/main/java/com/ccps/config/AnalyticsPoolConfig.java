@@ -0,0 +1,27 @@
+package com.clr.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * One fork-join pool for the CPU-bound work derived from the shoreline snapshot (transect
+ * rates, forecasts, training features), so the passes that follow an import share the cores
+ * instead of each starting a pool of their own.
+ */
+@Configuration
+public class AnalyticsPoolConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool analyticsPool(@Value("${usgs.analytics.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                p -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    thread.setName("analytics-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+}
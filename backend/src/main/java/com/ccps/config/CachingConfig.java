@@ -0,0 +1,58 @@
+package com.clr.config;
+
+import com.clr.service.DatasetVersionService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Caffeine caches for read-mostly lookup queries. Entries are keyed by the dataset version
+ * (see {@link #DATASET_VERSION_KEY}), so an import makes them unreachable without explicit
+ * eviction and they age out by size or idle time. Caches are declared up front so their hit/miss/eviction counts are
+ * registered with Micrometer ({@code /actuator/metrics/cache.gets}, {@code cache.evictions}).
+ */
+@Configuration
+@EnableCaching
+public class CachingConfig {
+
+    public static final String DATASET_REGIONS = "datasetRegions";
+    public static final String DATASET_LOCATIONS = "datasetLocations";
+    public static final String DATASET_COUNT = "datasetCount";
+    public static final String USGS_LOCATIONS = "usgsLocations";
+
+    /** Key generator prefixing the method arguments with the current dataset version */
+    public static final String DATASET_VERSION_KEY = "datasetVersionKeyGenerator";
+
+    @Bean(DATASET_VERSION_KEY)
+    public KeyGenerator datasetVersionKeyGenerator(DatasetVersionService datasetVersionService) {
+        return (target, method, params) -> {
+            Object[] key = new Object[params.length + 1];
+            key[0] = datasetVersionService.current();
+            System.arraycopy(params, 0, key, 1, params.length);
+            return new SimpleKey(key);
+        };
+    }
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${usgs.cache.maximum-size:1000}") long maximumSize,
+            @Value("${usgs.cache.expire-after-access-minutes:60}") long expireAfterAccessMinutes) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofMinutes(expireAfterAccessMinutes))
+                .recordStats());
+        // A fixed set of names also stops a mistyped cache name from creating an unmonitored cache
+        cacheManager.setCacheNames(List.of(DATASET_REGIONS, DATASET_LOCATIONS, DATASET_COUNT, USGS_LOCATIONS));
+        return cacheManager;
+    }
+}
@@ -0,0 +1,69 @@
+package com.clr.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Answers conditional GETs of read endpoints before the controller runs. The strong ETag is
+ * the version of the data behind the endpoint plus a checksum of the path and the sorted
+ * query parameters, so a matching {@code If-None-Match} gets a 304 without any query.
+ * A negative version means the data is not ready yet and disables the check.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final LongSupplier version;
+    private final Supplier<Instant> lastModified;
+    private final String cacheControl;
+
+    /**
+     * @param lastModified source of {@code Last-Modified}, or null to send only the ETag
+     */
+    public ConditionalGetInterceptor(LongSupplier version, Supplier<Instant> lastModified, String cacheControl) {
+        this.version = version;
+        this.lastModified = lastModified;
+        this.cacheControl = cacheControl;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        long current = version.getAsLong();
+        if (current < 0) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        String etag = etag(current, request);
+        boolean notModified = lastModified == null
+                ? webRequest.checkNotModified(etag)
+                : webRequest.checkNotModified(etag, lastModified.get().toEpochMilli());
+        return !notModified;
+    }
+
+    static String etag(long version, HttpServletRequest request) {
+        StringBuilder resource = new StringBuilder(request.getRequestURI());
+        String[] names = request.getParameterMap().keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        for (String name : names) {
+            for (String value : request.getParameterValues(name)) {
+                resource.append('&').append(name).append('=').append(value);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(resource.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + version + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+}
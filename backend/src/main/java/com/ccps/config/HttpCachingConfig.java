@@ -0,0 +1,79 @@
+package com.clr.config;
+
+import com.clr.service.DatasetVersionService;
+import com.clr.service.ShorelineForecastService;
+import com.clr.service.ShorelineSnapshotService;
+import com.clr.service.ShorelineSpatialIndexService;
+import com.clr.service.TransectChangeRateService;
+import com.clr.service.UsgsDatasetStatsService;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.spatial.ShorelineSpatialIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * ETag / Last-Modified / 304 handling for the read endpoints of the USGS data.
+ * <p>
+ * Table-backed endpoints use the dataset version. Endpoints served from derived views use
+ * the version the view was built from instead, because a view is rebuilt after the version
+ * is bumped and a client must not cache the old view under the new version's ETag.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class HttpCachingConfig implements WebMvcConfigurer {
+
+    private static final String[] SPATIAL_INDEX_PATHS = {
+            "/api/usgs-datasets/bbox", "/api/usgs-datasets/knn", "/api/usgs-datasets/tiles/**"
+    };
+    private static final String[] SNAPSHOT_PATHS = {
+            "/api/usgs-datasets/query", "/api/usgs-datasets/snapshot/**"
+    };
+    private static final String STATS_PATH = "/api/usgs-datasets/stats";
+    private static final String TRANSECT_RATES_PATH = "/api/usgs-datasets/transect-rates/**";
+    private static final String FORECAST_PATH = "/api/predictions/forecast/**";
+
+    private final DatasetVersionService datasetVersionService;
+    private final ShorelineSpatialIndexService spatialIndexService;
+    private final ShorelineSnapshotService snapshotService;
+    private final UsgsDatasetStatsService statsService;
+    private final TransectChangeRateService transectRateService;
+    private final ShorelineForecastService forecastService;
+
+    @Value("${usgs.http.cache-max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        String cacheControl = "public, max-age=" + maxAgeSeconds;
+
+        registry.addInterceptor(new ConditionalGetInterceptor(
+                        datasetVersionService::current, datasetVersionService::lastModified, cacheControl))
+                .addPathPatterns("/api/usgs-datasets/**", "/api/usgs/**")
+                .excludePathPatterns(SPATIAL_INDEX_PATHS)
+                .excludePathPatterns(SNAPSHOT_PATHS)
+                .excludePathPatterns(STATS_PATH)
+                .excludePathPatterns(TRANSECT_RATES_PATH);
+
+        registry.addInterceptor(new ConditionalGetInterceptor(
+                        () -> spatialIndexService.current().map(ShorelineSpatialIndex::getVersion).orElse(-1L),
+                        null, cacheControl))
+                .addPathPatterns(SPATIAL_INDEX_PATHS);
+
+        registry.addInterceptor(new ConditionalGetInterceptor(
+                        () -> snapshotService.current().map(ShorelineSnapshot::getVersion).orElse(-1L),
+                        null, cacheControl))
+                .addPathPatterns(SNAPSHOT_PATHS);
+
+        registry.addInterceptor(new ConditionalGetInterceptor(statsService::getVersion, null, cacheControl))
+                .addPathPatterns(STATS_PATH);
+
+        registry.addInterceptor(new ConditionalGetInterceptor(transectRateService::getVersion, null, cacheControl))
+                .addPathPatterns(TRANSECT_RATES_PATH);
+
+        registry.addInterceptor(new ConditionalGetInterceptor(forecastService::getVersion, null, cacheControl))
+                .addPathPatterns(FORECAST_PATH);
+    }
+}
@@ -0,0 +1,27 @@
+package com.clr.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Dedicated, bounded executor for import jobs so long downloads and inserts never
+ * run on (or queue up behind) Tomcat request threads.
+ */
+@Configuration
+public class ImportExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(
+            @Value("${usgs.import.jobs.pool-size:2}") int poolSize,
+            @Value("${usgs.import.jobs.queue-capacity:4}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
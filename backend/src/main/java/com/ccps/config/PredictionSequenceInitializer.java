@@ -0,0 +1,48 @@
+package com.clr.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves {@code prediction_result_seq} past the ids already in {@code prediction_result}.
+ * <p>
+ * The table used to be keyed by an IDENTITY column; the sequence Hibernate creates for the
+ * new key starts at 1 and would hand out ids of existing rows. The sequence is advanced once
+ * all singletons exist, so after the entity manager factory has created it but before the web
+ * server starts: the first insert must not cache a block of ids from below the old rows.
+ * Skipped on databases other than PostgreSQL (e.g. H2 in tests, which always starts empty).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PredictionSequenceInitializer implements SmartInitializingSingleton {
+
+    // Hibernate's pooled optimizer hands out the 50 ids below each sequence value
+    static final String ADVANCE_SQL = "SELECT setval('prediction_result_seq', GREATEST("
+            + "(SELECT COALESCE(MAX(id), 0) FROM prediction_result) + 50, "
+            + "(SELECT last_value FROM prediction_result_seq)))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isPostgres()) {
+            return;
+        }
+        try {
+            jdbcTemplate.queryForObject(ADVANCE_SQL, Long.class);
+        } catch (Exception e) {
+            log.warn("Could not advance prediction_result_seq: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
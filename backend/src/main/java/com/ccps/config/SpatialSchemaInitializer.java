@@ -0,0 +1,63 @@
+package com.clr.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the PostGIS geography column and GiST index used by radius searches.
+ * <p>
+ * Hibernate does not know about the column: it is a stored generated column computed
+ * from latitude/longitude, so rows written through JPA or the JDBC import writer are
+ * indexed without either of them having to set it. Skipped on databases other than
+ * PostgreSQL (e.g. H2 in tests).
+ * <p>
+ * Adding the column rewrites the table under an exclusive lock, so it runs while the context
+ * starts: after the entity manager factory has created the table, and before
+ * {@link com.clr.service.UsgsDataImportService}, which depends on this bean, can start the
+ * startup import.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class SpatialSchemaInitializer {
+
+    static final String[] DDL = {
+            "CREATE EXTENSION IF NOT EXISTS postgis",
+            "ALTER TABLE usgs_coastal_datasets ADD COLUMN IF NOT EXISTS geog geography(Point, 4326) "
+                    + "GENERATED ALWAYS AS (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)::geography) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_usgs_datasets_geog ON usgs_coastal_datasets USING GIST (geog)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${usgs.spatial.enabled:true}")
+    private boolean spatialEnabled;
+
+    @PostConstruct
+    public void createSpatialIndex() {
+        if (!spatialEnabled || !isPostgres()) {
+            return;
+        }
+        try {
+            for (String statement : DDL) {
+                jdbcTemplate.execute(statement);
+            }
+            log.info("PostGIS geography column and GiST index ready on usgs_coastal_datasets");
+        } catch (Exception e) {
+            log.warn("Could not create PostGIS spatial index, radius search will be unavailable: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -2,11 +2,20 @@ package com.clr.controller;
 
 import com.clr.model.CoastalData;
 import com.clr.model.PredictionResult;
+import com.clr.prediction.ModelComparison;
+import com.clr.prediction.ModelInfo;
+import com.clr.prediction.PredictionCache;
+import com.clr.prediction.PredictionModel;
+import com.clr.prediction.PredictionResultWriter;
+import com.clr.prediction.PredictionWriteBehind;
 import com.clr.repository.CoastalDataRepository;
 import com.clr.repository.PredictionResultRepository;
+import com.clr.service.ModelTrainingService;
 import com.clr.service.PredictionService;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,6 +28,18 @@ public class CoastController {
     private PredictionService predictionService;
     @Autowired
     private PredictionResultRepository predictionResultRepository;
+    @Autowired
+    private PredictionResultWriter predictionResultWriter;
+    @Autowired
+    private PredictionWriteBehind predictionWriteBehind;
+    @Autowired
+    private ModelTrainingService modelTrainingService;
+    @Autowired
+    private PredictionCache predictionCache;
+    @Value("${prediction.batch.max-size:10000}")
+    private int maxBatchSize;
+    @Value("${prediction.cache.persist-duplicates:true}")
+    private boolean persistDuplicates;
 
     @GetMapping("/data")
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
@@ -32,10 +53,85 @@ public class CoastController {
     @PostMapping("/predict")
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
     public PredictionResult predict(@RequestBody CoastalData data) {
-        PredictionResult result = predictionService.predict(data);
-        predictionResultRepository.save(result);
+        // One read of the model, so the result is cached under the version it was scored with
+        PredictionModel model = predictionService.getModel();
+        PredictionCache.Lookup lookup = predictionCache.get(data, model.getVersion(), () -> {
+            PredictionResult result = predictionService.predict(model, data);
+            persist(result);
+            return result;
+        });
+        PredictionResult result = lookup.result();
+        if (!lookup.computed() && persistDuplicates) {
+            persist(result.copy());
+        }
         return result;
     }
+
+    /**
+     * Hand the result to the write-behind queue, or store it now when that is off or full.
+     * The queue gets a copy: the writer thread sets the id of what it stores, and the result
+     * itself is cached and returned to other requests meanwhile.
+     */
+    private void persist(PredictionResult result) {
+        if (!predictionWriteBehind.submit(result.copy())) {
+            predictionResultRepository.save(result);
+        }
+    }
+
+    /**
+     * Score many records with one model and store the results in batched inserts
+     */
+    @PostMapping("/predict/batch")
+    @PreAuthorize("hasAnyRole('ADMIN','USER')")
+    public ResponseEntity<List<PredictionResult>> predictBatch(@RequestBody List<CoastalData> batch) {
+        if (batch.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<PredictionResult> results = predictionService.predictBatch(batch);
+        predictionResultWriter.insert(results);
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Stored model versions, newest first, with the active one flagged
+     */
+    @GetMapping("/models")
+    @PreAuthorize("hasAnyRole('ADMIN','USER')")
+    public List<ModelInfo> getModels() {
+        return modelTrainingService.getModels();
+    }
+
+    /**
+     * Retrain in the background; the new version becomes active when training completes
+     */
+    @PostMapping("/models/train")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> trainModel() {
+        modelTrainingService.requestTraining();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Roll back (or forward) to a stored model version
+     */
+    @PostMapping("/models/{version}/activate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ModelInfo> activateModel(@PathVariable long version) {
+        return modelTrainingService.activate(version)
+                .map(model -> ResponseEntity.ok(ModelInfo.of(model, true)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Evaluate two stored model versions on the current data
+     */
+    @GetMapping("/models/compare")
+    @PreAuthorize("hasAnyRole('ADMIN','USER')")
+    public ResponseEntity<ModelComparison> compareModels(@RequestParam long a, @RequestParam long b) {
+        return modelTrainingService.compare(a, b)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
 
 // If you see "package com.clr.model does not exist" or similar errors,
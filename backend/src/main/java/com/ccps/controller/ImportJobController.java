@@ -0,0 +1,32 @@
+package com.clr.controller;
+
+import com.clr.ingest.ImportJob;
+import com.clr.service.ImportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    @GetMapping
+    public ResponseEntity<List<ImportJob>> getJobs() {
+        return ResponseEntity.ok(importJobService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJob> getJob(@PathVariable String id) {
+        return ResponseEntity.of(importJobService.getJob(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ImportJob> cancelJob(@PathVariable String id) {
+        return ResponseEntity.of(importJobService.cancel(id));
+    }
+}
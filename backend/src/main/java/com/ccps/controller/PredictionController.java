@@ -0,0 +1,39 @@
+package com.clr.controller;
+
+import com.clr.model.ShorelineForecast;
+import com.clr.service.ShorelineForecastService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/predictions")
+@RequiredArgsConstructor
+public class PredictionController {
+
+    private final ShorelineForecastService forecastService;
+
+    /**
+     * Projected shoreline positions per transect for a horizon year, from the precomputed grid.
+     * Years outside {@code usgs.forecast.horizon-years} are rejected.
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<List<ShorelineForecast>> getForecast(
+            @RequestParam(required = false) String region,
+            @RequestParam int year) {
+        if (!forecastService.isHorizon(year)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(forecastService.getForecast(region, year));
+    }
+
+    /**
+     * Horizon years the forecast grid covers
+     */
+    @GetMapping("/forecast/years")
+    public ResponseEntity<int[]> getForecastYears() {
+        return ResponseEntity.ok(forecastService.getHorizons());
+    }
+}
@@ -1,13 +1,14 @@
 package com.clr.controller;
 
+import com.clr.ingest.ImportJob;
 import com.clr.model.UsgsCoastalData;
 import com.clr.service.UsgsDataService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/usgs")
@@ -45,8 +46,10 @@ public class UsgsCoastalDataController {
     }
     
     @PostMapping("/update")
-    public ResponseEntity<Map<String, String>> triggerUpdate() {
-        usgsDataService.updateUsgsData();
-        return ResponseEntity.ok(Map.of("status", "USGS data update triggered"));
+    public ResponseEntity<ImportJob> triggerUpdate() {
+        ImportJob job = usgsDataService.startUpdate();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
     }
 }
@@ -1,14 +1,42 @@
 package com.clr.controller;
 
+import com.clr.ingest.ImportJob;
+import com.clr.model.ClusterTile;
+import com.clr.model.ShorelinePoint;
+import com.clr.model.SnapshotFootprint;
+import com.clr.model.StatsScope;
+import com.clr.model.TransectChangeRate;
 import com.clr.model.UsgsCoastalDataset;
+import com.clr.model.UsgsDatasetStats;
 import com.clr.repository.UsgsCoastalDatasetRepository;
+import com.clr.service.DatasetLookupService;
+import com.clr.service.ShorelineSnapshotService;
+import com.clr.service.ShorelineSpatialIndexService;
+import com.clr.service.TileClusterService;
+import com.clr.service.TransectChangeRateService;
 import com.clr.service.UsgsDataImportService;
+import com.clr.service.UsgsDatasetExportService;
+import com.clr.service.UsgsDatasetExportService.ExportFormat;
+import com.clr.service.UsgsDatasetStatsService;
+import com.clr.service.VectorTileService;
+import com.clr.snapshot.QueryResult;
+import com.clr.snapshot.ShorelineQuery;
+import com.clr.tiles.TileBounds;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -17,44 +45,136 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UsgsDatasetController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final MediaType VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SPATIAL_RESULTS = 10_000;
+    private static final Sort BY_ID = Sort.by("id");
+
     private final UsgsCoastalDatasetRepository datasetRepository;
     private final UsgsDataImportService dataImportService;
+    private final UsgsDatasetExportService exportService;
+    private final ShorelineSpatialIndexService spatialIndexService;
+    private final TileClusterService tileClusterService;
+    private final VectorTileService vectorTileService;
+    private final UsgsDatasetStatsService statsService;
+    private final DatasetLookupService lookupService;
+    private final ShorelineSnapshotService snapshotService;
+    private final TransectChangeRateService transectRateService;
 
+    /**
+     * Page through the datasets without loading the table into memory.
+     * <p>
+     * {@code ?after=<id>&size=} walks the primary key (keyset mode) and stays cheap deep into the table;
+     * {@code ?page=&size=} keeps the old offset behaviour. Without either, the first {@value #DEFAULT_LIMIT}
+     * rows are returned. The body is always a plain list; the cursor for the next page is sent in
+     * {@value #NEXT_CURSOR_HEADER} and, with {@code count=true}, the row total in {@value #TOTAL_COUNT_HEADER}.
+     */
     @GetMapping
     public ResponseEntity<List<UsgsCoastalDataset>> getAllDatasets(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false, defaultValue = "100") Integer size) {
-        // If pagination is requested, return paginated results
-        if (page != null) {
-            int startIndex = page * size;
-            List<UsgsCoastalDataset> datasets = datasetRepository.findAll();
-            int endIndex = Math.min(startIndex + size, datasets.size());
-            
-            if (startIndex < datasets.size()) {
-                return ResponseEntity.ok(datasets.subList(startIndex, endIndex));
-            } else {
-                return ResponseEntity.ok(List.of());
-            }
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false, defaultValue = "100") Integer size,
+            @RequestParam(required = false, defaultValue = "false") boolean count) {
+        Slice<UsgsCoastalDataset> slice;
+        if (after != null) {
+            slice = datasetRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, clampSize(size)));
+        } else if (page != null) {
+            slice = datasetRepository.findAllBy(PageRequest.of(Math.max(page, 0), clampSize(size), BY_ID));
+        } else {
+            // Otherwise return the first rows (with default limit of 1000)
+            slice = datasetRepository.findAllBy(PageRequest.of(0, DEFAULT_LIMIT, BY_ID));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        List<UsgsCoastalDataset> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(content.get(content.size() - 1).getId()));
         }
-        
-        // Otherwise return all (with default limit of 1000)
-        List<UsgsCoastalDataset> datasets = datasetRepository.findAll();
-        return ResponseEntity.ok(datasets.subList(0, Math.min(1000, datasets.size())));
+        if (count) {
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(lookupService.getCount()));
+        }
+        return ResponseEntity.ok().headers(headers).body(content);
+    }
+
+    private static int clampSize(Integer size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static int clampLimit(Integer limit) {
+        return Math.max(1, Math.min(limit, MAX_SPATIAL_RESULTS));
+    }
+    
+    /**
+     * Stream the datasets matching the optional filters as NDJSON ({@code format=ndjson}) or CSV
+     * ({@code format=csv}). Rows are written as they are read, so the whole table can be exported.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDatasets(
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String region,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        String regionFilter = region == null || region.isBlank() ? null : region;
+        StreamingResponseBody body = out -> exportService.export(exportFormat, regionFilter, start, end, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"usgs-datasets." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
     
     @GetMapping("/count")
     public ResponseEntity<Map<String, Long>> getCount() {
-        return ResponseEntity.ok(Map.of("count", datasetRepository.count()));
+        return ResponseEntity.ok(Map.of("count", lookupService.getCount()));
     }
     
     @GetMapping("/regions")
     public ResponseEntity<List<String>> getRegions() {
-        return ResponseEntity.ok(datasetRepository.findDistinctRegions());
+        return ResponseEntity.ok(lookupService.getRegions());
     }
     
     @GetMapping("/locations")
     public ResponseEntity<List<String>> getLocations() {
-        return ResponseEntity.ok(datasetRepository.findDistinctLocations());
+        return ResponseEntity.ok(lookupService.getLocations());
+    }
+    
+    /**
+     * Pre-computed erosion rate statistics per region ({@code scope=region}), per location
+     * ({@code scope=location}), per region and year ({@code scope=year}) or per transect
+     * ({@code scope=transect}), optionally restricted to one region.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<UsgsDatasetStats>> getStats(
+            @RequestParam(required = false, defaultValue = "region") String scope,
+            @RequestParam(required = false) String region) {
+        StatsScope statsScope = StatsScope.fromParameter(scope);
+        if (statsScope == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(statsService.getStats(statsScope, region));
+    }
+    
+    /**
+     * End-point, linear regression and weighted linear regression rates per transect,
+     * computed from the shoreline positions, optionally restricted to one region
+     */
+    @GetMapping("/transect-rates")
+    public ResponseEntity<List<TransectChangeRate>> getTransectRates(@RequestParam(required = false) String region) {
+        return ResponseEntity.ok(transectRateService.getRates(region));
+    }
+    
+    @GetMapping("/transect-rates/{transectId}")
+    public ResponseEntity<TransectChangeRate> getTransectRate(@PathVariable String transectId) {
+        return transectRateService.getRate(transectId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
     
     @GetMapping("/region/{region}")
@@ -80,21 +200,150 @@ public class UsgsDatasetController {
         return ResponseEntity.ok(datasetRepository.findHighErosionAreas(threshold));
     }
     
+    /**
+     * Points matching all given filters, scanned from the in-memory columnar snapshot:
+     * region (ignoring case), inclusive date range, erosion rate above {@code minRate} and
+     * an optional bounding box. With {@code top=true} the {@code limit} highest erosion rates
+     * are returned, highest first. {@code X-Total-Count} carries the number of matches.
+     */
+    @GetMapping("/query")
+    public ResponseEntity<List<ShorelinePoint>> query(
+            @RequestParam(required = false) String region,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Double minRate,
+            @RequestParam(required = false) Double minLon,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double maxLon,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false, defaultValue = "false") boolean top,
+            @RequestParam(required = false, defaultValue = "1000") Integer limit) {
+        ShorelineQuery query = ShorelineQuery.builder()
+                .region(region == null || region.isBlank() ? null : region)
+                .start(start)
+                .end(end)
+                .minErosionRate(minRate)
+                .south(minLat).west(minLon).north(maxLat).east(maxLon)
+                .topByErosionRate(top)
+                .limit(clampLimit(limit))
+                .build();
+        return snapshotService.current()
+                .map(snapshot -> {
+                    QueryResult result = snapshotService.getQueryEngine().execute(snapshot, query);
+                    List<ShorelinePoint> points = new ArrayList<>(result.getRows().length);
+                    for (int row : result.getRows()) {
+                        points.add(snapshot.point(row));
+                    }
+                    return ResponseEntity.ok()
+                            .header(TOTAL_COUNT_HEADER, String.valueOf(result.getMatched()))
+                            .body(points);
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Heap footprint of the columnar snapshot compared with the equivalent entity list
+     */
+    @GetMapping("/snapshot/footprint")
+    public ResponseEntity<SnapshotFootprint> getSnapshotFootprint() {
+        return snapshotService.current()
+                .map(snapshot -> ResponseEntity.ok(snapshot.footprint()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * Measurements within {@code radiusKm} kilometres of the point, nearest first, at most {@code limit} rows
+     */
     @GetMapping("/nearby")
     public ResponseEntity<List<UsgsCoastalDataset>> getNearbyMeasurements(
             @RequestParam Double longitude,
             @RequestParam Double latitude,
-            @RequestParam(defaultValue = "10.0") Double radiusKm) {
-        return ResponseEntity.ok(datasetRepository.findNearbyMeasurements(longitude, latitude, radiusKm));
+            @RequestParam(defaultValue = "10.0") Double radiusKm,
+            @RequestParam(defaultValue = "500") Integer limit) {
+        if (radiusKm <= 0 || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(datasetRepository.findNearbyMeasurements(
+                longitude, latitude, radiusKm * 1000, clampSize(limit)));
     }
     
-    @PostMapping("/import")
-    public ResponseEntity<Map<String, String>> triggerImport() {
-        try {
-            dataImportService.importDataFromUrl();
-            return ResponseEntity.ok(Map.of("status", "Import completed successfully"));
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(Map.of("status", "Import failed: " + e.getMessage()));
+    /**
+     * Points inside the bounding box, answered from the in-memory spatial index
+     */
+    @GetMapping("/bbox")
+    public ResponseEntity<List<ShorelinePoint>> getWithinBoundingBox(
+            @RequestParam Double minLon,
+            @RequestParam Double minLat,
+            @RequestParam Double maxLon,
+            @RequestParam Double maxLat,
+            @RequestParam(defaultValue = "1000") Integer limit) {
+        if (minLat > maxLat || minLon > maxLon) {
+            return ResponseEntity.badRequest().build();
         }
+        return spatialIndexService.current()
+                .map(index -> ResponseEntity.ok(index.withinBox(minLat, minLon, maxLat, maxLon, clampLimit(limit))))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Mapbox Vector Tile of the shoreline points
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getVectorTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!TileBounds.isValid(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return spatialIndexService.current()
+                .map(index -> ResponseEntity.ok()
+                        .contentType(VECTOR_TILE)
+                        .body(vectorTileService.getTile(index, z, x, y)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * The {@code k} points nearest to the given point, optionally within {@code radiusKm},
+     * answered from the in-memory spatial index
+     */
+    @GetMapping("/knn")
+    public ResponseEntity<List<ShorelinePoint>> getNearestPoints(
+            @RequestParam Double longitude,
+            @RequestParam Double latitude,
+            @RequestParam(defaultValue = "10") Integer k,
+            @RequestParam(required = false) Double radiusKm) {
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180 || (radiusKm != null && radiusKm <= 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int count = clampLimit(k);
+        return spatialIndexService.current()
+                .map(index -> ResponseEntity.ok(radiusKm == null
+                        ? index.nearest(latitude, longitude, count)
+                        : index.withinRadius(latitude, longitude, radiusKm, count)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * Clusters of the points in Web Mercator tile {@code z/x/y}: count, centroid and
+     * mean/min/max erosion rate per cell, cached per dataset version
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<ClusterTile> getClusterTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!TileBounds.isValid(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return tileClusterService.getTile(z, x, y)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * Start an import in the background. Poll {@code GET /api/jobs/{id}} for progress.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ImportJob> triggerImport(
+            @RequestParam(required = false, defaultValue = "false") boolean force) {
+        ImportJob job = dataImportService.startImport(force);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
     }
 }
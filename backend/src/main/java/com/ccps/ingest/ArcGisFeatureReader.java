@@ -0,0 +1,195 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalData;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads an ArcGIS FeatureSet response ({@code f=json}) token by token. Each feature's
+ * attributes and geometry are written straight into a {@link UsgsCoastalData} without an
+ * intermediate tree or map of boxed values, so only the feature being read (or the pending
+ * batch) is held in memory. Everything outside the {@code features} array is skipped except
+ * {@code exceededTransferLimit} and {@code error}, which ArcGIS returns with HTTP 200.
+ */
+public class ArcGisFeatureReader {
+
+    static final String DATA_SOURCE = "USGS Coastal Change Hazards Portal";
+
+    /**
+     * What one response contained
+     *
+     * @param exceededTransferLimit whether the server cut the result short at its maxRecordCount
+     */
+    public record Page(int features, boolean exceededTransferLimit) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    public ArcGisFeatureReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Convert every feature of the response and hand it to {@code sink}, in response order
+     *
+     * @throws IllegalStateException if the response is an ArcGIS error
+     */
+    public Page read(InputStream in, Consumer<UsgsCoastalData> sink) throws IOException {
+        JsonFactory factory = objectMapper.getFactory();
+        try (JsonParser parser = factory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("ArcGIS response is not a JSON object");
+            }
+            int features = 0;
+            boolean exceeded = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "features" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            sink.accept(readFeature(parser));
+                            features++;
+                        }
+                    }
+                    case "exceededTransferLimit" -> exceeded = value == JsonToken.VALUE_TRUE;
+                    case "error" -> {
+                        JsonNode error = parser.readValueAsTree();
+                        throw new IllegalStateException("ArcGIS error " + error.path("code").asText()
+                                + ": " + error.path("message").asText());
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            return new Page(features, exceeded);
+        }
+    }
+
+    /**
+     * Like {@link #read(InputStream, Consumer)}, handing the features to {@code batchSink} in
+     * lists of at most {@code batchSize}; the last batch may be shorter
+     */
+    public Page read(InputStream in, int batchSize, Consumer<List<UsgsCoastalData>> batchSink) throws IOException {
+        BatchingSink batches = new BatchingSink(batchSize, batchSink);
+        Page page = read(in, batches);
+        batches.flush();
+        return page;
+    }
+
+    /**
+     * One feature object, the parser positioned on its START_OBJECT; unknown fields are
+     * skipped and missing attributes get the feed defaults
+     */
+    static UsgsCoastalData readFeature(JsonParser parser) throws IOException {
+        UsgsCoastalData data = new UsgsCoastalData();
+        boolean hasAttributes = false;
+        boolean hasGeometry = false;
+        double x = 0;
+        double y = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("attributes".equals(field) && value == JsonToken.START_OBJECT) {
+                hasAttributes = true;
+                readAttributes(parser, data);
+            } else if ("geometry".equals(field) && value == JsonToken.START_OBJECT) {
+                hasGeometry = true;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String coordinate = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("x".equals(coordinate)) {
+                        x = parser.getValueAsDouble(0);
+                    } else if ("y".equals(coordinate)) {
+                        y = parser.getValueAsDouble(0);
+                    }
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (hasAttributes) {
+            data.setDataSource(DATA_SOURCE);
+            if (hasGeometry) {
+                data.setLongitude(x);
+                data.setLatitude(y);
+            }
+        }
+        return data;
+    }
+
+    private static void readAttributes(JsonParser parser, UsgsCoastalData data) throws IOException {
+        data.setLocation("Unknown");
+        data.setYear(0);
+        data.setErosionRate(0.0);
+        data.setConfidence("Medium");
+        data.setDatasetName("Unknown");
+        data.setMethodType("Unknown");
+        data.setUnitOfMeasure("m/yr");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                switch (field) {
+                    case "OBJECTID" -> data.setObjectId(parser.getValueAsLong());
+                    case "LOCATION" -> data.setLocation(parser.getValueAsString());
+                    case "YEAR" -> data.setYear(parser.getValueAsInt(0));
+                    case "EPR" -> data.setErosionRate(parser.getValueAsDouble(0));
+                    case "CONFIDENCE" -> data.setConfidence(parser.getValueAsString());
+                    case "DATASET_NAME" -> data.setDatasetName(parser.getValueAsString());
+                    case "METHOD_TYPE" -> data.setMethodType(parser.getValueAsString());
+                    case "UNIT" -> data.setUnitOfMeasure(parser.getValueAsString());
+                    default -> {
+                    }
+                }
+            }
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * Collects features into lists of {@code batchSize}, handing each full list on
+     */
+    private static final class BatchingSink implements Consumer<UsgsCoastalData> {
+        private final int batchSize;
+        private final Consumer<List<UsgsCoastalData>> batchSink;
+        private List<UsgsCoastalData> batch;
+
+        BatchingSink(int batchSize, Consumer<List<UsgsCoastalData>> batchSink) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            this.batchSize = batchSize;
+            this.batchSink = batchSink;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void accept(UsgsCoastalData data) {
+            batch.add(data);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                batchSink.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fetches every feature of an ArcGIS layer query in pages.
+ * <p>
+ * A single {@code where=1=1} query is silently capped at the server's maxRecordCount, so the
+ * fetcher first asks for the total count and then requests {@code resultOffset} /
+ * {@code resultRecordCount} pages in a stable order, at most {@code usgs.arcgis.parallelism}
+ * at a time. A page the server returns short is completed with follow-up requests. Each page
+ * is read feature by feature with {@link ArcGisFeatureReader} and handed to the sink as one
+ * batch from the worker that fetched it, so the sink must be thread-safe.
+ */
+@Component
+@Slf4j
+public class ArcGisPagedFetcher {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final ArcGisFeatureReader reader;
+
+    @Value("${usgs.arcgis.page-size:1000}")
+    private int pageSize = 1000;
+
+    @Value("${usgs.arcgis.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${usgs.arcgis.order-by:OBJECTID}")
+    private String orderBy = "OBJECTID";
+
+    public ArcGisPagedFetcher(RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper) {
+        this.restTemplate = restTemplateBuilder.build();
+        this.objectMapper = objectMapper;
+        this.reader = new ArcGisFeatureReader(objectMapper);
+    }
+
+    /**
+     * Fetch all features matching {@code where=1=1} from the layer query endpoint
+     *
+     * @param queryUrl the layer's {@code .../query} URL without parameters
+     * @param pageSink receives each page's features; called concurrently
+     * @return the number of features fetched
+     * @throws CancellationException if the progress reports cancellation
+     */
+    public long fetchAll(String queryUrl, Consumer<List<UsgsCoastalData>> pageSink, ImportProgress progress)
+            throws IOException {
+        long total = count(queryUrl);
+        int pages = (int) ((total + pageSize - 1) / pageSize);
+        log.info("Fetching {} ArcGIS features in {} pages of {} ({} at a time)", total, pages, pageSize,
+                Math.min(parallelism, Math.max(pages, 1)));
+
+        AtomicLong fetched = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, pages)),
+                threadFactory());
+        try {
+            List<Future<?>> tasks = new ArrayList<>(pages);
+            for (int page = 0; page < pages; page++) {
+                long offset = (long) page * pageSize;
+                int size = (int) Math.min(pageSize, total - offset);
+                tasks.add(executor.submit(() -> {
+                    if (progress.isCancelled()) {
+                        throw new CancellationException("ArcGIS fetch cancelled after " + fetched.get() + " features");
+                    }
+                    List<UsgsCoastalData> batch = fetchPage(queryUrl, offset, size);
+                    pageSink.accept(batch);
+                    progress.rowsProcessed(fetched.addAndGet(batch.size()));
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            return fetched.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("ArcGIS fetch interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("ArcGIS fetch failed", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    long count(String queryUrl) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(queryUrl)
+                .queryParam("where", "1=1")
+                .queryParam("returnCountOnly", "true")
+                .queryParam("f", "json")
+                .encode().build().toUri();
+        JsonNode response = restTemplate.execute(uri, HttpMethod.GET, null,
+                r -> objectMapper.readTree(r.getBody()));
+        if (response == null || response.has("error")) {
+            throw new IllegalStateException("ArcGIS count query failed: "
+                    + (response == null ? "empty response" : response.path("error").path("message").asText()));
+        }
+        return response.path("count").asLong();
+    }
+
+    /**
+     * The {@code size} features from {@code offset}, re-requesting the rest when the server
+     * returns fewer than asked for
+     */
+    List<UsgsCoastalData> fetchPage(String queryUrl, long offset, int size) {
+        List<UsgsCoastalData> batch = new ArrayList<>(size);
+        while (batch.size() < size) {
+            int before = batch.size();
+            URI uri = UriComponentsBuilder.fromHttpUrl(queryUrl)
+                    .queryParam("where", "1=1")
+                    .queryParam("outFields", "*")
+                    .queryParam("orderByFields", orderBy)
+                    .queryParam("resultOffset", offset + before)
+                    .queryParam("resultRecordCount", size - before)
+                    .queryParam("f", "json")
+                    .encode().build().toUri();
+            restTemplate.execute(uri, HttpMethod.GET, null, r -> reader.read(r.getBody(), batch::add));
+            if (batch.size() == before) {
+                // The layer shrank since it was counted
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "arcgis-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,292 @@
+package com.clr.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One CSV record tokenized in place over a (memory-mapped) byte buffer, following the same
+ * RFC 4180 rules as {@link CsvTokenizer}. Fields are kept as offsets into the buffer; only a
+ * quoted field that needs un-escaping is copied, into a scratch array owned by the row.
+ * Numbers and dates are parsed straight from the bytes and text is decoded once into the
+ * final {@code String}, so a row allocates nothing beyond the values it produces.
+ * <p>
+ * A worker reuses one instance for all records of its chunk. Not thread-safe.
+ */
+final class CsvByteRow {
+
+    // Powers of ten exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private ByteBuffer data;
+    private int count;
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    // Fields whose bytes live in `unquoted` rather than in `data`
+    private boolean[] copied = new boolean[32];
+    private byte[] unquoted = new byte[256];
+    private int unquotedLength;
+    private byte[] text = new byte[256];
+
+    /**
+     * Tokenize the record starting at {@code position} in {@code buffer}, which must not pass
+     * {@code limit}. A quoted field may span lines; a trailing {@code \r} before the line feed
+     * is dropped.
+     *
+     * @return the position after the record's line feed, or {@code limit}
+     */
+    int parse(ByteBuffer buffer, int position, int limit) {
+        data = buffer;
+        count = 0;
+        unquotedLength = 0;
+
+        // The record ends at the first line feed outside quotes, as in CsvTokenizer.readRecord
+        boolean open = false;
+        int end = position;
+        while (end < limit) {
+            byte b = buffer.get(end);
+            if (b == '"') {
+                open = !open;
+            } else if (b == '\n' && !open) {
+                break;
+            }
+            end++;
+        }
+        int next = end < limit ? end + 1 : limit;
+        if (end > position && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == position) {
+            return next;
+        }
+
+        int i = position;
+        while (true) {
+            if (buffer.get(i) == '"') {
+                int from = unquotedLength;
+                i++;
+                while (i < end) {
+                    byte b = buffer.get(i++);
+                    if (b == '"') {
+                        if (i < end && buffer.get(i) == '"') {
+                            appendUnquoted((byte) '"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else if (!(b == '\r' && i < end && buffer.get(i) == '\n')) {
+                        appendUnquoted(b);
+                    }
+                }
+                // Anything between the closing quote and the next comma is kept as-is
+                while (i < end && buffer.get(i) != ',') {
+                    appendUnquoted(buffer.get(i++));
+                }
+                addField(from, unquotedLength, true);
+            } else {
+                int from = i;
+                while (i < end && buffer.get(i) != ',') {
+                    i++;
+                }
+                addField(from, i, false);
+            }
+            if (i >= end) {
+                return next;
+            }
+            i++; // skip the comma
+            if (i == end) {
+                addField(i, i, false);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Whether the last parsed record was a blank line
+     */
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * The field decoded as UTF-8 and trimmed like {@link String#trim()}
+     */
+    String text(int field) {
+        int from = trimmedStart(field);
+        int length = trimmedEnd(field) - from;
+        if (copied[field]) {
+            return new String(unquoted, from, length, StandardCharsets.UTF_8);
+        }
+        if (text.length < length) {
+            text = new byte[Math.max(length, text.length * 2)];
+        }
+        data.get(from, text, 0, length);
+        return new String(text, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Same result as {@link UsgsCsvRowMapper#parseDouble(String)} on the trimmed field. A plain
+     * decimal whose digits form an integer below 2^53 with at most 22 of them after the point
+     * is converted directly; anything else (exponents, long mantissas) goes through
+     * {@link Double#parseDouble}.
+     */
+    Double parseDouble(int field) {
+        int from = trimmedStart(field);
+        int to = trimmedEnd(field);
+        if (from == to) {
+            return null;
+        }
+        int first = byteAt(field, from);
+        if (first != '-' && first != '+' && first != '.' && (first < '0' || first > '9')) {
+            // Placeholders such as "NaN", "NA" or "null"
+            return null;
+        }
+        int i = from;
+        boolean negative = first == '-';
+        if (first == '-' || first == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        boolean digits = false;
+        boolean point = false;
+        for (; i < to; i++) {
+            int c = byteAt(field, i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return parseSlow(field, from, to);
+                }
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return parseSlow(field, from, to);
+            }
+        }
+        if (!digits || scale >= POWERS_OF_TEN.length) {
+            return parseSlow(field, from, to);
+        }
+        // Both operands are exact, so the division is correctly rounded like parseDouble
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private Double parseSlow(int field, int from, int to) {
+        return UsgsCsvRowMapper.parseDouble(decode(field, from, to));
+    }
+
+    /**
+     * Same result as {@link UsgsCsvRowMapper#parseDate(String)} on the trimmed field
+     */
+    LocalDate parseDate(int field) {
+        int from = trimmedStart(field);
+        int length = trimmedEnd(field) - from;
+        try {
+            if (length == 10 && byteAt(field, from + 4) == '-' && byteAt(field, from + 7) == '-') {
+                int year = digits(field, from, from + 4);
+                int month = digits(field, from + 5, from + 7);
+                int day = digits(field, from + 8, from + 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            } else if (length == 10 && byteAt(field, from + 2) == '/' && byteAt(field, from + 5) == '/') {
+                int month = digits(field, from, from + 2);
+                int day = digits(field, from + 3, from + 5);
+                int year = digits(field, from + 6, from + 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            } else if (length == 4) {
+                int year = digits(field, from, from + 4);
+                if (year >= 0) {
+                    return LocalDate.of(year, 1, 1);
+                }
+            }
+        } catch (DateTimeException e) {
+            // Ignore out-of-range dates
+        }
+        return null;
+    }
+
+    private int digits(int field, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int c = byteAt(field, i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private int byteAt(int field, int index) {
+        return copied[field] ? unquoted[index] : data.get(index);
+    }
+
+    private String decode(int field, int from, int to) {
+        if (copied[field]) {
+            return new String(unquoted, from, to - from, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[to - from];
+        data.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // String.trim() strips every char up to and including the space; in UTF-8 those are
+    // single bytes, and bytes of multi-byte sequences are all negative
+    private int trimmedStart(int field) {
+        int from = starts[field];
+        int to = ends[field];
+        while (from < to && isTrimmed(byteAt(field, from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimmedEnd(int field) {
+        int from = starts[field];
+        int to = ends[field];
+        while (to > from && isTrimmed(byteAt(field, to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isTrimmed(int b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private void appendUnquoted(byte b) {
+        if (unquotedLength == unquoted.length) {
+            unquoted = Arrays.copyOf(unquoted, unquoted.length * 2);
+        }
+        unquoted[unquotedLength++] = b;
+    }
+
+    private void addField(int from, int to, boolean inUnquoted) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            copied = Arrays.copyOf(copied, count * 2);
+        }
+        starts[count] = from;
+        ends[count] = to;
+        copied[count] = inUnquoted;
+        count++;
+    }
+}
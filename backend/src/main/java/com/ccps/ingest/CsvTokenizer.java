@@ -0,0 +1,112 @@
+package com.clr.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV tokenizer: commas inside double quotes do not split a field,
+ * {@code ""} inside a quoted field is an escaped quote, and a quoted field may
+ * span several physical lines.
+ */
+public final class CsvTokenizer {
+
+    private CsvTokenizer() {
+    }
+
+    /**
+     * Split one complete CSV record into its fields
+     */
+    public static List<String> tokenize(String record) {
+        List<String> fields = new ArrayList<>();
+        tokenize(record, fields);
+        return fields;
+    }
+
+    /**
+     * Split one complete CSV record into the given list, which is cleared first
+     */
+    public static void tokenize(String record, List<String> fields) {
+        fields.clear();
+        int length = record.length();
+        StringBuilder quoted = null;
+        int i = 0;
+        while (true) {
+            if (i < length && record.charAt(i) == '"') {
+                // Quoted field: copy until the closing quote, un-escaping doubled quotes
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                } else {
+                    quoted.setLength(0);
+                }
+                i++;
+                while (i < length) {
+                    char c = record.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && record.charAt(i) == '"') {
+                            quoted.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+                // Anything between the closing quote and the next comma is kept as-is
+                int comma = record.indexOf(',', i);
+                int end = comma < 0 ? length : comma;
+                if (end > i) {
+                    quoted.append(record, i, end);
+                }
+                fields.add(quoted.toString());
+                i = end;
+            } else {
+                int comma = record.indexOf(',', i);
+                int end = comma < 0 ? length : comma;
+                fields.add(record.substring(i, end));
+                i = end;
+            }
+            if (i >= length) {
+                return;
+            }
+            i++; // skip the comma
+            if (i == length) {
+                fields.add("");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read the next complete record, joining physical lines while a quoted field is still open.
+     *
+     * @return the record, or null at end of input
+     */
+    public static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !hasOpenQuote(line)) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        String next;
+        while ((next = reader.readLine()) != null) {
+            record.append('\n').append(next);
+            if (!hasOpenQuote(record)) {
+                break;
+            }
+        }
+        return record.toString();
+    }
+
+    private static boolean hasOpenQuote(CharSequence text) {
+        boolean open = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                open = !open;
+            }
+        }
+        return open;
+    }
+}
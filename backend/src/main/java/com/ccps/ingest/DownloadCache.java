@@ -0,0 +1,227 @@
+package com.clr.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of downloaded import sources.
+ * <p>
+ * Every complete download is kept once as {@code <sha256>.data}. Per source URL (keyed by the
+ * SHA-256 of the URL) an {@code <key>.properties} entry records the validators, hash and size
+ * of the current copy, and an unfinished download stays as {@code <key>.part} next to a
+ * {@code <key>.part.properties} holding the validators of the response it came from, so it can
+ * be resumed. Entries and content files are written to a temporary name and moved into place
+ * atomically; content no entry refers to any more is deleted.
+ */
+@Slf4j
+class DownloadCache {
+
+    private static final String DATA_SUFFIX = ".data";
+    private static final String ENTRY_SUFFIX = ".properties";
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * The cached copy of one source URL
+     */
+    record Entry(String url, String etag, String lastModified, String sha256, long size, Path file) {
+    }
+
+    /**
+     * Validators of the response an unfinished download came from, null when it sent none
+     */
+    record Validators(String etag, String lastModified) {
+        /**
+         * The value for {@code If-Range}: a strong entity tag, else the Last-Modified date
+         */
+        String ifRange() {
+            if (etag != null && !etag.startsWith("W/")) {
+                return etag;
+            }
+            return lastModified;
+        }
+    }
+
+    private final Path directory;
+
+    DownloadCache(Path directory) {
+        this.directory = directory;
+    }
+
+    synchronized Optional<Entry> entry(String url) {
+        Properties properties = read(directory.resolve(key(url) + ENTRY_SUFFIX));
+        if (properties == null || !url.equals(properties.getProperty("url"))) {
+            return Optional.empty();
+        }
+        String sha256 = properties.getProperty("sha256");
+        Path file = directory.resolve(sha256 + DATA_SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Entry(url, properties.getProperty("etag"), properties.getProperty("lastModified"),
+                sha256, Long.parseLong(properties.getProperty("size")), file));
+    }
+
+    Path partFile(String url) {
+        return directory.resolve(key(url) + PART_SUFFIX);
+    }
+
+    /**
+     * Validators of the unfinished download of {@code url}, empty when there is none
+     */
+    synchronized Optional<Validators> partial(String url) {
+        if (!Files.isRegularFile(partFile(url))) {
+            return Optional.empty();
+        }
+        Properties properties = read(directory.resolve(key(url) + PART_SUFFIX + ENTRY_SUFFIX));
+        if (properties == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Validators(properties.getProperty("etag"), properties.getProperty("lastModified")));
+    }
+
+    /**
+     * Start a new download of {@code url}: the part file is emptied and the validators of the
+     * response recorded before any content arrives
+     */
+    synchronized Path startPartial(String url, String etag, String lastModified) throws IOException {
+        Files.createDirectories(directory);
+        Properties properties = new Properties();
+        putIfPresent(properties, "etag", etag);
+        putIfPresent(properties, "lastModified", lastModified);
+        write(directory.resolve(key(url) + PART_SUFFIX + ENTRY_SUFFIX), properties);
+        Path part = partFile(url);
+        Files.deleteIfExists(part);
+        Files.createFile(part);
+        return part;
+    }
+
+    synchronized void discardPartial(String url) throws IOException {
+        Files.deleteIfExists(partFile(url));
+        Files.deleteIfExists(directory.resolve(key(url) + PART_SUFFIX + ENTRY_SUFFIX));
+    }
+
+    /**
+     * Move the finished download of {@code url} to its content address and make it the URL's
+     * cached copy
+     */
+    synchronized Entry commit(String url, String etag, String lastModified, String sha256) throws IOException {
+        Path part = partFile(url);
+        long size = Files.size(part);
+        Path file = directory.resolve(sha256 + DATA_SUFFIX);
+        if (Files.isRegularFile(file)) {
+            Files.delete(part);
+        } else {
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(directory.resolve(key(url) + PART_SUFFIX + ENTRY_SUFFIX));
+
+        Properties properties = new Properties();
+        properties.setProperty("url", url);
+        putIfPresent(properties, "etag", etag);
+        putIfPresent(properties, "lastModified", lastModified);
+        properties.setProperty("sha256", sha256);
+        properties.setProperty("size", Long.toString(size));
+        write(directory.resolve(key(url) + ENTRY_SUFFIX), properties);
+        prune();
+        return new Entry(url, etag, lastModified, sha256, size, file);
+    }
+
+    /**
+     * Delete content files that no entry refers to
+     */
+    private void prune() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> {
+                String name = f.getFileName().toString();
+                return name.endsWith(ENTRY_SUFFIX) && !name.endsWith(PART_SUFFIX + ENTRY_SUFFIX);
+            }).forEach(f -> {
+                Properties properties = read(f);
+                if (properties != null && properties.getProperty("sha256") != null) {
+                    referenced.add(properties.getProperty("sha256") + DATA_SUFFIX);
+                }
+            });
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(DATA_SUFFIX) && !referenced.contains(name)) {
+                    log.info("Removing superseded download {}", name);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the file's content as lowercase hex
+     */
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String key(String url) {
+        return HexFormat.of().formatHex(sha256().digest(url.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void putIfPresent(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    private static Properties read(Path file) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            return properties;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(Path target, Properties properties) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.clr.ingest;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A downloaded copy of an import source. Closing it deletes a temporary local copy; a copy
+ * served from the download cache is kept. When the server answered 304 Not Modified and
+ * nothing was cached there is no file.
+ */
+@Getter
+public class FetchedSource implements Closeable {
+
+    private final Path file;
+    private final String etag;
+    private final String lastModified;
+    private final String contentHash;
+    private final long size;
+    private final boolean cached;
+
+    FetchedSource(Path file, String etag, String lastModified, String contentHash, long size) {
+        this(file, etag, lastModified, contentHash, size, false);
+    }
+
+    private FetchedSource(Path file, String etag, String lastModified, String contentHash, long size,
+                          boolean cached) {
+        this.file = file;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.size = size;
+        this.cached = cached;
+    }
+
+    static FetchedSource cached(DownloadCache.Entry entry) {
+        return new FetchedSource(entry.file(), entry.etag(), entry.lastModified(), entry.sha256(), entry.size(), true);
+    }
+
+    static FetchedSource notModified(String etag, String lastModified) {
+        return new FetchedSource(null, etag, lastModified, null, 0);
+    }
+
+    public boolean isNotModified() {
+        return file == null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null && !cached) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
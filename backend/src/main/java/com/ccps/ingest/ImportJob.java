@@ -0,0 +1,105 @@
+package com.clr.ingest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * A background import and its progress, as reported by {@code GET /api/jobs/{id}}
+ */
+@Getter
+public class ImportJob implements ImportProgress {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String source;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile ImportPhase phase = ImportPhase.QUEUED;
+    private volatile long rowsProcessed;
+    private volatile String error;
+    private volatile ImportStats result;
+    private volatile boolean cancelled;
+
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    public ImportJob(String source) {
+        this.source = source;
+    }
+
+    @Override
+    public void phase(ImportPhase phase) {
+        if (!this.phase.isFinished()) {
+            this.phase = phase;
+        }
+    }
+
+    @Override
+    public void rowsProcessed(long rows) {
+        this.rowsProcessed = rows;
+    }
+
+    public double getRowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Duration.between(start, end).toMillis();
+        return millis == 0 ? 0 : rowsProcessed * 1000.0 / millis;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return phase.isFinished();
+    }
+
+    public void attach(Future<?> future) {
+        this.future = future;
+    }
+
+    public void started() {
+        this.startedAt = Instant.now();
+    }
+
+    public void completed(ImportStats stats) {
+        this.result = stats;
+        if (stats != null) {
+            this.rowsProcessed = stats.getRowsProcessed();
+        }
+        finish(stats != null && stats.isSourceUnchanged() ? ImportPhase.SKIPPED : ImportPhase.COMPLETED);
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        finish(cancelled ? ImportPhase.CANCELLED : ImportPhase.FAILED);
+    }
+
+    /**
+     * Ask the job to stop. A queued job never starts; a running one stops at its next batch.
+     */
+    public boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelled = true;
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+        if (startedAt == null) {
+            finish(ImportPhase.CANCELLED);
+        }
+        return true;
+    }
+
+    private void finish(ImportPhase finalPhase) {
+        this.finishedAt = Instant.now();
+        this.phase = finalPhase;
+    }
+}
@@ -0,0 +1,18 @@
+package com.clr.ingest;
+
+/**
+ * Lifecycle of an import job
+ */
+public enum ImportPhase {
+    QUEUED,
+    DOWNLOADING,
+    IMPORTING,
+    COMPLETED,
+    SKIPPED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == SKIPPED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,23 @@
+package com.clr.ingest;
+
+/**
+ * Callback through which a running import reports progress and learns that it was cancelled
+ */
+public interface ImportProgress {
+
+    ImportProgress NONE = new ImportProgress() {
+    };
+
+    default void phase(ImportPhase phase) {
+    }
+
+    /**
+     * Total rows handled so far in this run
+     */
+    default void rowsProcessed(long rows) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+}
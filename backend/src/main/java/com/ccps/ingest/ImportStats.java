@@ -0,0 +1,55 @@
+package com.clr.ingest;
+
+import lombok.Value;
+
+/**
+ * Outcome of one import run. A run whose source had not changed since the
+ * previous import reports {@code sourceUnchanged} and no rows.
+ */
+@Value
+public class ImportStats {
+
+    long recordsRead;
+    long rowsInserted;
+    long rowsUpdated;
+    long rowsUnchanged;
+    long rowsSkipped;
+    long elapsedMillis;
+    boolean sourceUnchanged;
+
+    public static ImportStats empty() {
+        return new ImportStats(0, 0, 0, 0, 0, 0, false);
+    }
+
+    public static ImportStats sourceUnchanged(long elapsedMillis) {
+        return new ImportStats(0, 0, 0, 0, 0, elapsedMillis, true);
+    }
+
+    /**
+     * Rows that changed the table (inserted or updated)
+     */
+    public long getRowsWritten() {
+        return rowsInserted + rowsUpdated;
+    }
+
+    /**
+     * Rows that reached the writer, whether or not they changed anything
+     */
+    public long getRowsProcessed() {
+        return rowsInserted + rowsUpdated + rowsUnchanged;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? getRowsProcessed() : getRowsProcessed() * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Combine the stats of two files imported in the same run (e.g. entries of one ZIP)
+     */
+    public ImportStats plus(ImportStats other) {
+        return new ImportStats(recordsRead + other.recordsRead, rowsInserted + other.rowsInserted,
+                rowsUpdated + other.rowsUpdated, rowsUnchanged + other.rowsUnchanged,
+                rowsSkipped + other.rowsSkipped, elapsedMillis + other.elapsedMillis,
+                sourceUnchanged && other.sourceUnchanged);
+    }
+}
@@ -0,0 +1,200 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Upserts pages of the ArcGIS feed with JDBC batches, keyed by the feature's OBJECTID.
+ * <p>
+ * Like {@link UsgsDatasetJdbcWriter} for the CSV import, this bypasses Hibernate, which cannot
+ * batch inserts into the IDENTITY-keyed {@code usgs_coastal_data} table. For each page the
+ * rows already stored for its OBJECTIDs are loaded in one query; new features are inserted,
+ * changed ones updated in place and identical ones left alone, so fetching the feed again
+ * changes nothing and a run that failed part way is completed by the next one. Features
+ * without an OBJECTID are skipped and counted.
+ * <p>
+ * Features that disappear from the layer, and the copies appended by the feed import before
+ * it was keyed, are only removed by {@link #retainOnly(long[])} once a run has fetched the
+ * whole layer.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsgsCoastalDataJdbcWriter {
+
+    static final String INSERT_SQL = "INSERT INTO usgs_coastal_data "
+            + "(object_id, location, year, latitude, longitude, erosion_rate, confidence, data_source, "
+            + "dataset_name, method_type, uncertainty_value, unit_of_measure) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String UPDATE_SQL = "UPDATE usgs_coastal_data SET "
+            + "object_id = ?, location = ?, year = ?, latitude = ?, longitude = ?, erosion_rate = ?, "
+            + "confidence = ?, data_source = ?, dataset_name = ?, method_type = ?, uncertainty_value = ?, "
+            + "unit_of_measure = ? WHERE id = ?";
+
+    static final String DELETE_SQL = "DELETE FROM usgs_coastal_data WHERE id = ?";
+
+    private static final String SELECT_EXISTING_SQL = "SELECT id, object_id, location, year, latitude, longitude, "
+            + "erosion_rate, confidence, data_source, dataset_name, method_type, uncertainty_value, unit_of_measure "
+            + "FROM usgs_coastal_data WHERE object_id IN (%s)";
+
+    private static final int MAX_IN_LIST = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Upsert the page in one transaction, skipping features without an OBJECTID
+     */
+    @Transactional
+    public WriteCounts write(List<UsgsCoastalData> page) {
+        if (page.isEmpty()) {
+            return WriteCounts.NONE;
+        }
+
+        Map<Long, UsgsCoastalData> keyed = new LinkedHashMap<>();
+        int skipped = 0;
+        for (UsgsCoastalData d : page) {
+            if (d.getObjectId() == null) {
+                skipped++;
+            } else {
+                keyed.put(d.getObjectId(), d);
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Skipped {} of {} features without an OBJECTID", skipped, page.size());
+        }
+        // The same OBJECTID twice in one page: the later feature wins, the earlier one counts as unchanged
+        int unchanged = page.size() - skipped - keyed.size();
+
+        Map<Long, UsgsCoastalData> existing = loadExisting(new ArrayList<>(keyed.keySet()));
+        List<UsgsCoastalData> inserts = new ArrayList<>();
+        List<UsgsCoastalData> updates = new ArrayList<>();
+        for (UsgsCoastalData d : keyed.values()) {
+            UsgsCoastalData stored = existing.get(d.getObjectId());
+            if (stored == null) {
+                inserts.add(d);
+            } else if (sameContent(stored, d)) {
+                unchanged++;
+            } else {
+                d.setId(stored.getId());
+                updates.add(d);
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), UsgsCoastalDataJdbcWriter::bind);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, d) -> {
+                bind(ps, d);
+                ps.setLong(13, d.getId());
+            });
+        }
+        return new WriteCounts(inserts.size(), updates.size(), unchanged, 0, skipped);
+    }
+
+    /**
+     * Delete, in one transaction, every row whose OBJECTID is not among {@code objectIds},
+     * including rows stored without one
+     *
+     * @param objectIds the OBJECTIDs of a complete run, sorted ascending
+     * @return the number of rows deleted
+     */
+    @Transactional
+    public int retainOnly(long[] objectIds) {
+        List<Long> stale = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, object_id FROM usgs_coastal_data", rs -> {
+            long objectId = rs.getLong("object_id");
+            if (rs.wasNull() || Arrays.binarySearch(objectIds, objectId) < 0) {
+                stale.add(rs.getLong("id"));
+            }
+        });
+        if (!stale.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, stale, MAX_IN_LIST, (ps, id) -> ps.setLong(1, id));
+        }
+        return stale.size();
+    }
+
+    private Map<Long, UsgsCoastalData> loadExisting(List<Long> objectIds) {
+        Map<Long, UsgsCoastalData> existing = new HashMap<>();
+        for (int from = 0; from < objectIds.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = objectIds.subList(from, Math.min(from + MAX_IN_LIST, objectIds.size()));
+            String sql = String.format(SELECT_EXISTING_SQL, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                UsgsCoastalData stored = readExisting(rs);
+                existing.put(stored.getObjectId(), stored);
+            }, chunk.toArray());
+        }
+        return existing;
+    }
+
+    private static UsgsCoastalData readExisting(ResultSet rs) throws SQLException {
+        UsgsCoastalData d = new UsgsCoastalData();
+        d.setId(rs.getLong("id"));
+        d.setObjectId(rs.getLong("object_id"));
+        d.setLocation(rs.getString("location"));
+        int year = rs.getInt("year");
+        d.setYear(rs.wasNull() ? null : year);
+        d.setLatitude(getDouble(rs, "latitude"));
+        d.setLongitude(getDouble(rs, "longitude"));
+        d.setErosionRate(getDouble(rs, "erosion_rate"));
+        d.setConfidence(rs.getString("confidence"));
+        d.setDataSource(rs.getString("data_source"));
+        d.setDatasetName(rs.getString("dataset_name"));
+        d.setMethodType(rs.getString("method_type"));
+        d.setUncertaintyValue(getDouble(rs, "uncertainty_value"));
+        d.setUnitOfMeasure(rs.getString("unit_of_measure"));
+        return d;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static boolean sameContent(UsgsCoastalData a, UsgsCoastalData b) {
+        return Objects.equals(a.getLocation(), b.getLocation())
+                && Objects.equals(a.getYear(), b.getYear())
+                && Objects.equals(a.getLatitude(), b.getLatitude())
+                && Objects.equals(a.getLongitude(), b.getLongitude())
+                && Objects.equals(a.getErosionRate(), b.getErosionRate())
+                && Objects.equals(a.getConfidence(), b.getConfidence())
+                && Objects.equals(a.getDataSource(), b.getDataSource())
+                && Objects.equals(a.getDatasetName(), b.getDatasetName())
+                && Objects.equals(a.getMethodType(), b.getMethodType())
+                && Objects.equals(a.getUncertaintyValue(), b.getUncertaintyValue())
+                && Objects.equals(a.getUnitOfMeasure(), b.getUnitOfMeasure());
+    }
+
+    static void bind(PreparedStatement ps, UsgsCoastalData d) throws SQLException {
+        ps.setLong(1, d.getObjectId());
+        ps.setString(2, d.getLocation());
+        ps.setObject(3, d.getYear(), Types.INTEGER);
+        ps.setObject(4, d.getLatitude(), Types.DOUBLE);
+        ps.setObject(5, d.getLongitude(), Types.DOUBLE);
+        ps.setObject(6, d.getErosionRate(), Types.DOUBLE);
+        ps.setString(7, d.getConfidence());
+        ps.setString(8, d.getDataSource());
+        ps.setString(9, d.getDatasetName());
+        ps.setString(10, d.getMethodType());
+        ps.setObject(11, d.getUncertaintyValue(), Types.DOUBLE);
+        ps.setString(12, d.getUnitOfMeasure());
+    }
+}
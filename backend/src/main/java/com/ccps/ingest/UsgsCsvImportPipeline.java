@@ -0,0 +1,540 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.stats.DatasetSketches;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Staged CSV import: one reader thread splits the input into chunks of raw records,
+ * a pool of parse workers tokenizes and maps them, and the calling thread writes the
+ * parsed batches as JDBC batch upserts. Stages are connected by bounded queues, so a
+ * slow database throttles the reader instead of letting parsed rows pile up in memory.
+ * <p>
+ * Parse workers can also summarize the rows they map into worker-local {@link DatasetSketches},
+ * merged into the caller's instance when each worker finishes, so per-group statistics are
+ * ready when the import ends without another pass over the table.
+ * <p>
+ * A local file can instead be imported memory-mapped with {@link #run(Path, ImportProgress, DatasetSketches)},
+ * where the workers parse line-aligned chunks of the file directly and no reader stage is needed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsgsCsvImportPipeline {
+
+    private static final List<String> END_OF_RECORDS = new ArrayList<>();
+    private static final List<UsgsCoastalDataset> END_OF_ROWS = new ArrayList<>();
+    private static final long PROGRESS_LOG_INTERVAL = 50_000;
+    private static final int HEADER_WINDOW = 1 << 20;
+    private static final int SCAN_WINDOW = 1 << 20;
+    // Upper bound of one mapped chunk, far below the 2 GiB limit of a MappedByteBuffer
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    // How long a blocked producer waits before checking whether the run was aborted
+    private static final long OFFER_SLICE_MS = 100;
+
+    private final UsgsDatasetJdbcWriter writer;
+
+    @Value("${usgs.import.parse-threads:0}")
+    private int parseThreads;
+
+    @Value("${usgs.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${usgs.import.queue-capacity:8}")
+    private int queueCapacity = 8;
+
+    /**
+     * Import every record of the reader. The first record is the header.
+     */
+    public ImportStats run(BufferedReader reader) throws IOException {
+        return run(reader, ImportProgress.NONE);
+    }
+
+    /**
+     * Import every record of the reader, reporting progress after each batch.
+     *
+     * @throws CancellationException if the progress reports cancellation
+     */
+    public ImportStats run(BufferedReader reader, ImportProgress progress) throws IOException {
+        return run(reader, progress, null);
+    }
+
+    /**
+     * Import every record of the reader, reporting progress after each batch and adding
+     * every mapped row to {@code sketches} unless it is null.
+     *
+     * @throws CancellationException if the progress reports cancellation
+     */
+    public ImportStats run(BufferedReader reader, ImportProgress progress, DatasetSketches sketches)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        String header = CsvTokenizer.readRecord(reader);
+        if (header == null) {
+            return ImportStats.empty();
+        }
+        UsgsCsvRowMapper mapper = new UsgsCsvRowMapper(CsvTokenizer.tokenize(header));
+
+        int workers = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        BlockingQueue<List<String>> records = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<UsgsCoastalDataset>> rows = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong recordsRead = new AtomicLong();
+        AtomicLong rowsSkipped = new AtomicLong();
+        AtomicBoolean aborted = new AtomicBoolean();
+        boolean completed = false;
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1, threadFactory());
+        try {
+            Future<?> readerTask = executor.submit(() -> {
+                readRecords(reader, records, workers, recordsRead, aborted);
+                return null;
+            });
+            List<Future<?>> parseTasks = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                parseTasks.add(executor.submit(() -> {
+                    parseRecords(mapper, records, rows, rowsSkipped, sketches, aborted);
+                    return null;
+                }));
+            }
+
+            WriteTotals totals = drain(rows, workers, progress, start);
+
+            // Workers first: if one failed, the reader may be blocked on a full queue
+            for (Future<?> task : parseTasks) {
+                task.get();
+            }
+            readerTask.get();
+            completed = true;
+            return finish(totals, recordsRead.get(), rowsSkipped.get(), start, workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("CSV import failed", cause);
+        } finally {
+            if (!completed) {
+                abort(aborted, records, rows);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Import a local CSV file without decoding it into lines. The file is memory-mapped and
+     * split into line-aligned chunks that the parse workers tokenize in place (see
+     * {@link CsvByteRow}); numbers and dates are parsed from the bytes and each worker reuses
+     * one row buffer. Chunks hold whole records: a quoted field spanning lines is never cut,
+     * because every boundary is placed at a line feed where the number of quotes since the
+     * header is even. Rows are written by the calling thread exactly as in the reader mode.
+     *
+     * @throws CancellationException if the progress reports cancellation
+     */
+    public ImportStats run(Path file, ImportProgress progress, DatasetSketches sketches) throws IOException {
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return ImportStats.empty();
+            }
+            CsvByteRow headerRow = new CsvByteRow();
+            int window = (int) Math.min(size, HEADER_WINDOW);
+            ByteBuffer headerBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, window);
+            int dataStart = headerRow.parse(headerBuffer, 0, window);
+            if (dataStart == window && window < size) {
+                throw new IOException("CSV header of " + file + " is longer than " + HEADER_WINDOW + " bytes");
+            }
+            List<String> headerFields = new ArrayList<>(headerRow.size());
+            for (int i = 0; i < headerRow.size(); i++) {
+                headerFields.add(headerRow.text(i));
+            }
+            UsgsCsvRowMapper mapper = new UsgsCsvRowMapper(headerFields);
+
+            int workers = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+            // A few chunks per worker even out records of uneven length
+            int chunkCount = (int) Math.max(workers * 4L, (size - dataStart + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            BlockingQueue<List<UsgsCoastalDataset>> rows = new ArrayBlockingQueue<>(queueCapacity);
+            AtomicLong recordsRead = new AtomicLong();
+            AtomicLong rowsSkipped = new AtomicLong();
+            AtomicBoolean aborted = new AtomicBoolean();
+            boolean completed = false;
+
+            ExecutorService executor = Executors.newFixedThreadPool(workers, threadFactory());
+            try {
+                long[] boundaries = chunkBoundaries(channel, dataStart, size, chunkCount, executor);
+                AtomicInteger nextChunk = new AtomicInteger();
+                List<Future<?>> parseTasks = new ArrayList<>(workers);
+                for (int i = 0; i < workers; i++) {
+                    parseTasks.add(executor.submit(() -> {
+                        parseChunks(channel, boundaries, nextChunk, mapper, rows, recordsRead, rowsSkipped, sketches,
+                                aborted);
+                        return null;
+                    }));
+                }
+
+                WriteTotals totals = drain(rows, workers, progress, start);
+                for (Future<?> task : parseTasks) {
+                    task.get();
+                }
+                completed = true;
+                return finish(totals, recordsRead.get(), rowsSkipped.get(), start, workers);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("CSV import interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IOException("CSV import failed", cause);
+            } finally {
+                if (!completed) {
+                    abort(aborted, rows);
+                }
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * {@code chunks + 1} offsets splitting {@code [from, size)} into runs of whole records. The
+     * quotes of equal slices are counted in parallel; each slice start is then moved forward
+     * to just past the first line feed at which the quote count since {@code from} is even.
+     * Consecutive equal offsets denote an empty chunk.
+     */
+    static long[] chunkBoundaries(FileChannel channel, long from, long size, int chunks, ExecutorService executor)
+            throws IOException, InterruptedException, ExecutionException {
+        long[] slices = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            slices[i] = from + (size - from) * i / chunks;
+        }
+        List<Future<Long>> quoteCounts = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            long sliceStart = slices[i];
+            long sliceEnd = slices[i + 1];
+            quoteCounts.add(executor.submit(() -> countQuotes(channel, sliceStart, sliceEnd)));
+        }
+
+        long[] boundaries = new long[chunks + 1];
+        boundaries[0] = from;
+        boundaries[chunks] = size;
+        long quotes = 0;
+        for (int i = 1; i < chunks; i++) {
+            quotes += quoteCounts.get(i - 1).get();
+            long position = slices[i];
+            if (position <= boundaries[i - 1]) {
+                // The previous boundary already moved past this slice
+                boundaries[i] = boundaries[i - 1];
+                continue;
+            }
+            boolean open = (quotes & 1) == 1;
+            boundaries[i] = size;
+            scan:
+            while (position < size) {
+                int length = (int) Math.min(SCAN_WINDOW, size - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                for (int j = 0; j < length; j++) {
+                    byte b = window.get(j);
+                    if (b == '"') {
+                        open = !open;
+                    } else if (b == '\n' && !open) {
+                        boundaries[i] = position + j + 1;
+                        break scan;
+                    }
+                }
+                position += length;
+            }
+        }
+        return boundaries;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) throws IOException {
+        long quotes = 0;
+        for (long position = from; position < to; position += MAX_CHUNK_BYTES) {
+            int length = (int) Math.min(MAX_CHUNK_BYTES, to - position);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == '"') {
+                    quotes++;
+                }
+            }
+        }
+        return quotes;
+    }
+
+    private void parseChunks(FileChannel channel, long[] boundaries, AtomicInteger nextChunk,
+                             UsgsCsvRowMapper mapper, BlockingQueue<List<UsgsCoastalDataset>> rows,
+                             AtomicLong recordsRead, AtomicLong rowsSkipped, DatasetSketches sketches,
+                             AtomicBoolean aborted) throws IOException, InterruptedException {
+        try {
+            DatasetSketches local = sketches == null ? null : new DatasetSketches();
+            CsvByteRow row = new CsvByteRow();
+            List<UsgsCoastalDataset> batch = new ArrayList<>(batchSize);
+            int records = 0;
+            int chunk;
+            while (!aborted.get() && (chunk = nextChunk.getAndIncrement()) < boundaries.length - 1) {
+                long chunkStart = boundaries[chunk];
+                long chunkLength = boundaries[chunk + 1] - chunkStart;
+                if (chunkLength == 0) {
+                    continue;
+                }
+                if (chunkLength > Integer.MAX_VALUE) {
+                    throw new IOException("CSV record run at byte " + chunkStart + " is too long to map");
+                }
+                int limit = (int) chunkLength;
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, limit);
+                int position = 0;
+                while (position < limit) {
+                    position = row.parse(buffer, position, limit);
+                    if (row.isEmpty()) {
+                        continue;
+                    }
+                    records++;
+                    UsgsCoastalDataset dataset = mapper.map(row);
+                    if (dataset != null) {
+                        batch.add(dataset);
+                        if (local != null) {
+                            local.add(dataset);
+                        }
+                    }
+                    if (records == batchSize) {
+                        recordsRead.addAndGet(records);
+                        rowsSkipped.addAndGet(records - batch.size());
+                        if (!offer(rows, batch, aborted)) {
+                            return;
+                        }
+                        batch = new ArrayList<>(batchSize);
+                        records = 0;
+                    }
+                }
+            }
+            if (records > 0) {
+                recordsRead.addAndGet(records);
+                rowsSkipped.addAndGet(records - batch.size());
+                if (!offer(rows, batch, aborted)) {
+                    return;
+                }
+            }
+            if (local != null) {
+                synchronized (sketches) {
+                    sketches.merge(local);
+                }
+            }
+        } finally {
+            sendEnd(rows, END_OF_ROWS, aborted);
+        }
+    }
+
+    private record WriteTotals(long inserted, long updated, long unchanged, long duplicatesRemoved, long skipped) {
+    }
+
+    /**
+     * Write batches until every producer has sent its end marker
+     */
+    private WriteTotals drain(BlockingQueue<List<UsgsCoastalDataset>> rows, int producers, ImportProgress progress,
+                              long start) throws InterruptedException {
+        long inserted = 0;
+        long updated = 0;
+        long unchanged = 0;
+        long duplicatesRemoved = 0;
+        long skipped = 0;
+        long nextProgressLog = PROGRESS_LOG_INTERVAL;
+        int finishedProducers = 0;
+        while (finishedProducers < producers) {
+            List<UsgsCoastalDataset> batch = rows.take();
+            if (batch == END_OF_ROWS) {
+                finishedProducers++;
+                continue;
+            }
+            WriteCounts counts = writer.write(batch);
+            inserted += counts.getInserted();
+            updated += counts.getUpdated();
+            unchanged += counts.getUnchanged();
+            duplicatesRemoved += counts.getDuplicatesRemoved();
+            skipped += counts.getSkipped();
+            long processed = inserted + updated + unchanged;
+            progress.rowsProcessed(processed);
+            if (progress.isCancelled()) {
+                throw new CancellationException("CSV import cancelled after " + processed + " rows");
+            }
+            if (processed >= nextProgressLog) {
+                log.info("Imported {} USGS coastal data records ({} rows/sec)",
+                        processed, rate(processed, System.currentTimeMillis() - start));
+                nextProgressLog += PROGRESS_LOG_INTERVAL;
+            }
+        }
+        return new WriteTotals(inserted, updated, unchanged, duplicatesRemoved, skipped);
+    }
+
+    private static ImportStats finish(WriteTotals totals, long recordsRead, long rowsSkipped, long start, int workers) {
+        long elapsed = System.currentTimeMillis() - start;
+        // Rows the parser could not map and rows the writer had no key for
+        ImportStats stats = new ImportStats(recordsRead, totals.inserted(), totals.updated(), totals.unchanged(),
+                rowsSkipped + totals.skipped(), elapsed, false);
+        log.info("CSV import finished in {} ms: {} inserted, {} updated, {} unchanged, {} skipped, "
+                        + "{} duplicates removed ({} rows/sec, {} parse workers)",
+                elapsed, totals.inserted(), totals.updated(), totals.unchanged(), stats.getRowsSkipped(),
+                totals.duplicatesRemoved(), Math.round(stats.getRowsPerSecond()), workers);
+        return stats;
+    }
+
+    private void readRecords(BufferedReader reader, BlockingQueue<List<String>> records, int workers,
+                             AtomicLong recordsRead, AtomicBoolean aborted) throws IOException, InterruptedException {
+        try {
+            List<String> chunk = new ArrayList<>(batchSize);
+            String record;
+            while ((record = CsvTokenizer.readRecord(reader)) != null) {
+                if (record.isEmpty()) {
+                    continue;
+                }
+                chunk.add(record);
+                if (chunk.size() == batchSize) {
+                    if (!offer(records, chunk, aborted)) {
+                        return;
+                    }
+                    recordsRead.addAndGet(chunk.size());
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty() && offer(records, chunk, aborted)) {
+                recordsRead.addAndGet(chunk.size());
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                sendEnd(records, END_OF_RECORDS, aborted);
+            }
+        }
+    }
+
+    private void parseRecords(UsgsCsvRowMapper mapper, BlockingQueue<List<String>> records,
+                              BlockingQueue<List<UsgsCoastalDataset>> rows, AtomicLong rowsSkipped,
+                              DatasetSketches sketches, AtomicBoolean aborted) throws InterruptedException {
+        try {
+            DatasetSketches local = sketches == null ? null : new DatasetSketches();
+            List<String> fields = new ArrayList<>(mapper.getColumnCount());
+            List<String> chunk;
+            while ((chunk = poll(records, aborted)) != END_OF_RECORDS && chunk != null) {
+                List<UsgsCoastalDataset> batch = new ArrayList<>(chunk.size());
+                for (String record : chunk) {
+                    CsvTokenizer.tokenize(record, fields);
+                    UsgsCoastalDataset dataset = mapper.map(fields);
+                    if (dataset != null) {
+                        batch.add(dataset);
+                        if (local != null) {
+                            local.add(dataset);
+                        }
+                    }
+                }
+                rowsSkipped.addAndGet(chunk.size() - batch.size());
+                if (!offer(rows, batch, aborted)) {
+                    return;
+                }
+            }
+            if (local != null) {
+                synchronized (sketches) {
+                    sketches.merge(local);
+                }
+            }
+        } finally {
+            sendEnd(rows, END_OF_ROWS, aborted);
+        }
+    }
+
+    /**
+     * Put {@code item} on the queue unless the run is aborted. Waits in short slices rather
+     * than blocking in {@code put}, so a producer never stays parked on a full queue that
+     * nobody drains any more.
+     *
+     * @return false if the run was aborted before the item could be queued
+     */
+    private static <T> boolean offer(BlockingQueue<T> queue, T item, AtomicBoolean aborted)
+            throws InterruptedException {
+        while (!aborted.get()) {
+            if (queue.offer(item, OFFER_SLICE_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The next item, or null once the run is aborted
+     */
+    private static <T> T poll(BlockingQueue<T> queue, AtomicBoolean aborted) throws InterruptedException {
+        while (!aborted.get()) {
+            T item = queue.poll(OFFER_SLICE_MS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Send an end marker from a {@code finally} block: never throws and gives up once the run
+     * is aborted or the thread is interrupted by the executor shutting down
+     */
+    private static <T> void sendEnd(BlockingQueue<T> queue, T marker, AtomicBoolean aborted) {
+        try {
+            offer(queue, marker, aborted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop every stage of a failed or cancelled run: producers see the flag and the queues are
+     * emptied, so the batches they hold become garbage and blocked offers return
+     */
+    private static void abort(AtomicBoolean aborted, BlockingQueue<?>... queues) {
+        aborted.set(true);
+        for (BlockingQueue<?> queue : queues) {
+            queue.clear();
+        }
+    }
+
+    private static long rate(long rows, long elapsedMillis) {
+        return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "usgs-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
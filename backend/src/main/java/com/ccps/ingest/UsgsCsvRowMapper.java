@@ -0,0 +1,212 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalDataset;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Maps tokenized CSV rows of the USGS shoreline release onto {@link UsgsCoastalDataset}.
+ * <p>
+ * Header names are resolved to columns once per file rather than once per row, and
+ * the numeric and date parsers avoid regular expressions and exceptions on the common
+ * paths. Instances are immutable and safe to share between parse workers.
+ */
+public class UsgsCsvRowMapper {
+
+    static final int METADATA_MAX_LENGTH = 2000;
+
+    enum Column {
+        TRANSECT_ID, LATITUDE, LONGITUDE, LOCATION, REGION, MEASUREMENT_DATE, SHORE_POS_UNCERT,
+        SHORELINE_POSITION, SHORELINE_CHANGE, EROSION_RATE, METADATA, OTHER
+    }
+
+    private final String[] headers;
+    private final Column[] columns;
+
+    public UsgsCsvRowMapper(List<String> headerFields) {
+        this.headers = new String[headerFields.size()];
+        this.columns = new Column[headerFields.size()];
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = headerFields.get(i).trim();
+            columns[i] = resolve(headers[i]);
+        }
+    }
+
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    /**
+     * Map one row, or return null when the row has fewer fields than the header
+     */
+    public UsgsCoastalDataset map(List<String> values) {
+        if (values.size() < headers.length) {
+            return null;
+        }
+
+        UsgsCoastalDataset dataset = new UsgsCoastalDataset();
+        StringBuilder extraMetadata = null;
+
+        for (int i = 0; i < headers.length; i++) {
+            String value = values.get(i).trim();
+            switch (columns[i]) {
+                case TRANSECT_ID -> dataset.setTransectId(value);
+                case LATITUDE -> dataset.setLatitude(parseDouble(value));
+                case LONGITUDE -> dataset.setLongitude(parseDouble(value));
+                case LOCATION -> dataset.setLocation(value);
+                case REGION -> dataset.setRegion(value);
+                case MEASUREMENT_DATE -> dataset.setMeasurementDate(parseDate(value));
+                case SHORE_POS_UNCERT -> dataset.setShorePosUncert(parseDouble(value));
+                case SHORELINE_POSITION -> dataset.setShorelinePosition(parseDouble(value));
+                case SHORELINE_CHANGE -> dataset.setShorelineChange(parseDouble(value));
+                case EROSION_RATE -> dataset.setErosionRate(parseDouble(value));
+                case METADATA -> dataset.setMetadata(value);
+                default -> {
+                    // Add other fields to metadata
+                    if (extraMetadata == null) {
+                        extraMetadata = new StringBuilder();
+                    } else {
+                        extraMetadata.append("; ");
+                    }
+                    extraMetadata.append(headers[i]).append(": ").append(value);
+                }
+            }
+        }
+
+        if (extraMetadata != null) {
+            String metadata = dataset.getMetadata();
+            dataset.setMetadata(metadata == null ? extraMetadata.toString() : metadata + "; " + extraMetadata);
+        }
+        if (dataset.getMetadata() != null && dataset.getMetadata().length() > METADATA_MAX_LENGTH) {
+            dataset.setMetadata(dataset.getMetadata().substring(0, METADATA_MAX_LENGTH));
+        }
+        return dataset;
+    }
+
+    /**
+     * Map one row tokenized over bytes, with the same result as {@link #map(List)} on the
+     * equivalent strings
+     */
+    UsgsCoastalDataset map(CsvByteRow row) {
+        if (row.size() < headers.length) {
+            return null;
+        }
+
+        UsgsCoastalDataset dataset = new UsgsCoastalDataset();
+        StringBuilder extraMetadata = null;
+
+        for (int i = 0; i < headers.length; i++) {
+            switch (columns[i]) {
+                case TRANSECT_ID -> dataset.setTransectId(row.text(i));
+                case LATITUDE -> dataset.setLatitude(row.parseDouble(i));
+                case LONGITUDE -> dataset.setLongitude(row.parseDouble(i));
+                case LOCATION -> dataset.setLocation(row.text(i));
+                case REGION -> dataset.setRegion(row.text(i));
+                case MEASUREMENT_DATE -> dataset.setMeasurementDate(row.parseDate(i));
+                case SHORE_POS_UNCERT -> dataset.setShorePosUncert(row.parseDouble(i));
+                case SHORELINE_POSITION -> dataset.setShorelinePosition(row.parseDouble(i));
+                case SHORELINE_CHANGE -> dataset.setShorelineChange(row.parseDouble(i));
+                case EROSION_RATE -> dataset.setErosionRate(row.parseDouble(i));
+                case METADATA -> dataset.setMetadata(row.text(i));
+                default -> {
+                    if (extraMetadata == null) {
+                        extraMetadata = new StringBuilder();
+                    } else {
+                        extraMetadata.append("; ");
+                    }
+                    extraMetadata.append(headers[i]).append(": ").append(row.text(i));
+                }
+            }
+        }
+
+        if (extraMetadata != null) {
+            String metadata = dataset.getMetadata();
+            dataset.setMetadata(metadata == null ? extraMetadata.toString() : metadata + "; " + extraMetadata);
+        }
+        if (dataset.getMetadata() != null && dataset.getMetadata().length() > METADATA_MAX_LENGTH) {
+            dataset.setMetadata(dataset.getMetadata().substring(0, METADATA_MAX_LENGTH));
+        }
+        return dataset;
+    }
+
+    static Column resolve(String header) {
+        return switch (header.toLowerCase(Locale.ROOT)) {
+            case "transect_id", "transectid" -> Column.TRANSECT_ID;
+            case "latitude", "lat" -> Column.LATITUDE;
+            case "longitude", "long", "lon" -> Column.LONGITUDE;
+            case "location" -> Column.LOCATION;
+            case "region" -> Column.REGION;
+            case "date", "measurement_date" -> Column.MEASUREMENT_DATE;
+            case "shore_pos_uncert", "uncertainty" -> Column.SHORE_POS_UNCERT;
+            case "shoreline_position", "position" -> Column.SHORELINE_POSITION;
+            case "shoreline_change", "change" -> Column.SHORELINE_CHANGE;
+            case "erosion_rate", "rate" -> Column.EROSION_RATE;
+            case "metadata" -> Column.METADATA;
+            default -> Column.OTHER;
+        };
+    }
+
+    static Double parseDouble(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        char first = value.charAt(0);
+        if (first != '-' && first != '+' && first != '.' && (first < '0' || first > '9')) {
+            // Placeholders such as "NaN", "NA" or "null"
+            return null;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse yyyy-MM-dd, MM/dd/yyyy or a bare year (January 1), or return null
+     */
+    static LocalDate parseDate(String value) {
+        try {
+            int length = value.length();
+            if (length == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+                int year = digits(value, 0, 4);
+                int month = digits(value, 5, 7);
+                int day = digits(value, 8, 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            } else if (length == 10 && value.charAt(2) == '/' && value.charAt(5) == '/') {
+                int month = digits(value, 0, 2);
+                int day = digits(value, 3, 5);
+                int year = digits(value, 6, 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            } else if (length == 4) {
+                int year = digits(value, 0, 4);
+                if (year >= 0) {
+                    // Just a year, use January 1
+                    return LocalDate.of(year, 1, 1);
+                }
+            }
+        } catch (DateTimeException e) {
+            // Ignore out-of-range dates
+        }
+        return null;
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
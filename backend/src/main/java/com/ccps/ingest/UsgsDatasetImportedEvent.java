@@ -0,0 +1,21 @@
+package com.clr.ingest;
+
+import com.clr.stats.DatasetSketches;
+import lombok.Value;
+
+/**
+ * Published after an import has changed {@code usgs_coastal_datasets}, so in-memory
+ * views derived from the table can be rebuilt. {@code version} is the dataset version
+ * the import produced. {@code sketches} summarizes the table per group, collected while the
+ * rows were parsed. It is only set when the import filled an empty table with one row per
+ * parsed record; otherwise it is null, because an upsert leaves earlier rows in place and
+ * the parsed rows alone no longer describe the table. The stats are then sketched from the
+ * rebuilt snapshot instead.
+ */
+@Value
+public class UsgsDatasetImportedEvent {
+
+    ImportStats stats;
+    long version;
+    DatasetSketches sketches;
+}
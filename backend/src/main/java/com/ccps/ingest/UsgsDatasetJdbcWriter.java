@@ -0,0 +1,203 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsCoastalDataset;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Upserts parsed USGS rows with JDBC batches, keyed by (transect id, measurement date).
+ * <p>
+ * Hibernate cannot batch inserts into the IDENTITY-keyed {@code usgs_coastal_datasets}
+ * table, so the import bypasses it here. For each batch the rows already stored for the
+ * batch's transects are loaded in one query; new keys are inserted, changed rows are
+ * updated in place and identical rows are left alone. Duplicates left behind by the old
+ * append-only import are removed as they are encountered. Rows without a transect id have
+ * no natural key, so they are skipped and counted rather than inserted again on every import.
+ * <p>
+ * Writing the same rows again changes nothing. A key that occurs more than once in the input
+ * is stored once: within a batch the later row wins, and across batches the row of the batch
+ * written last wins. The import pipeline writes batches in the order its parse workers finish
+ * them, so when a source repeats a key with different values, which of them is kept is not
+ * defined and a re-import may replace one with the other.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsgsDatasetJdbcWriter {
+
+    static final String INSERT_SQL = "INSERT INTO usgs_coastal_datasets "
+            + "(transect_id, latitude, longitude, location, region, measurement_date, shore_pos_uncert, "
+            + "shoreline_position, shoreline_change, erosion_rate, metadata, data_source, dataset_doi, data_url) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String UPDATE_SQL = "UPDATE usgs_coastal_datasets SET "
+            + "transect_id = ?, latitude = ?, longitude = ?, location = ?, region = ?, measurement_date = ?, "
+            + "shore_pos_uncert = ?, shoreline_position = ?, shoreline_change = ?, erosion_rate = ?, metadata = ?, "
+            + "data_source = ?, dataset_doi = ?, data_url = ? WHERE id = ?";
+
+    static final String DELETE_SQL = "DELETE FROM usgs_coastal_datasets WHERE id = ?";
+
+    private static final String SELECT_EXISTING_SQL = "SELECT id, transect_id, latitude, longitude, location, "
+            + "region, measurement_date, shore_pos_uncert, shoreline_position, shoreline_change, erosion_rate, "
+            + "metadata FROM usgs_coastal_datasets WHERE transect_id IN (%s) ORDER BY id";
+
+    private static final int MAX_IN_LIST = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record NaturalKey(String transectId, LocalDate measurementDate) {
+        static NaturalKey of(UsgsCoastalDataset d) {
+            return new NaturalKey(d.getTransectId(), d.getMeasurementDate());
+        }
+    }
+
+    /**
+     * Upsert the batch in one transaction, skipping rows without a transect id
+     */
+    @Transactional
+    public WriteCounts write(List<UsgsCoastalDataset> batch) {
+        if (batch.isEmpty()) {
+            return WriteCounts.NONE;
+        }
+
+        Map<NaturalKey, UsgsCoastalDataset> keyed = new LinkedHashMap<>();
+        int skipped = 0;
+        for (UsgsCoastalDataset d : batch) {
+            if (d.getTransectId() == null || d.getTransectId().isEmpty()) {
+                skipped++;
+            } else {
+                keyed.put(NaturalKey.of(d), d);
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Skipped {} of {} rows without a transect id", skipped, batch.size());
+        }
+        // The same key twice in one batch: the later row wins, the earlier one counts as unchanged
+        int unchanged = batch.size() - skipped - keyed.size();
+
+        List<UsgsCoastalDataset> inserts = new ArrayList<>();
+        Map<NaturalKey, List<UsgsCoastalDataset>> existing = loadExisting(keyed.values());
+        List<UsgsCoastalDataset> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        for (Map.Entry<NaturalKey, UsgsCoastalDataset> entry : keyed.entrySet()) {
+            List<UsgsCoastalDataset> stored = existing.getOrDefault(entry.getKey(), Collections.emptyList());
+            if (stored.isEmpty()) {
+                inserts.add(entry.getValue());
+                continue;
+            }
+            UsgsCoastalDataset current = stored.get(0);
+            for (int i = 1; i < stored.size(); i++) {
+                deletes.add(stored.get(i).getId());
+            }
+            if (sameContent(current, entry.getValue())) {
+                unchanged++;
+            } else {
+                entry.getValue().setId(current.getId());
+                updates.add(entry.getValue());
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), UsgsDatasetJdbcWriter::bind);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, d) -> {
+                bind(ps, d);
+                ps.setLong(15, d.getId());
+            });
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes, deletes.size(), (ps, id) -> ps.setLong(1, id));
+        }
+        return new WriteCounts(inserts.size(), updates.size(), unchanged, deletes.size(), skipped);
+    }
+
+    private Map<NaturalKey, List<UsgsCoastalDataset>> loadExisting(Iterable<UsgsCoastalDataset> rows) {
+        Set<String> transectIds = new LinkedHashSet<>();
+        for (UsgsCoastalDataset d : rows) {
+            transectIds.add(d.getTransectId());
+        }
+        Map<NaturalKey, List<UsgsCoastalDataset>> existing = new HashMap<>();
+        List<String> ids = new ArrayList<>(transectIds);
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<String> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+            String sql = String.format(SELECT_EXISTING_SQL, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                UsgsCoastalDataset stored = readExisting(rs);
+                existing.computeIfAbsent(NaturalKey.of(stored), key -> new ArrayList<>(1)).add(stored);
+            }, chunk.toArray());
+        }
+        return existing;
+    }
+
+    private static UsgsCoastalDataset readExisting(ResultSet rs) throws SQLException {
+        UsgsCoastalDataset d = new UsgsCoastalDataset();
+        d.setId(rs.getLong("id"));
+        d.setTransectId(rs.getString("transect_id"));
+        d.setLatitude(getDouble(rs, "latitude"));
+        d.setLongitude(getDouble(rs, "longitude"));
+        d.setLocation(rs.getString("location"));
+        d.setRegion(rs.getString("region"));
+        Date date = rs.getDate("measurement_date");
+        d.setMeasurementDate(date == null ? null : date.toLocalDate());
+        d.setShorePosUncert(getDouble(rs, "shore_pos_uncert"));
+        d.setShorelinePosition(getDouble(rs, "shoreline_position"));
+        d.setShorelineChange(getDouble(rs, "shoreline_change"));
+        d.setErosionRate(getDouble(rs, "erosion_rate"));
+        d.setMetadata(rs.getString("metadata"));
+        return d;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static boolean sameContent(UsgsCoastalDataset a, UsgsCoastalDataset b) {
+        return Objects.equals(a.getLatitude(), b.getLatitude())
+                && Objects.equals(a.getLongitude(), b.getLongitude())
+                && Objects.equals(a.getLocation(), b.getLocation())
+                && Objects.equals(a.getRegion(), b.getRegion())
+                && Objects.equals(a.getShorePosUncert(), b.getShorePosUncert())
+                && Objects.equals(a.getShorelinePosition(), b.getShorelinePosition())
+                && Objects.equals(a.getShorelineChange(), b.getShorelineChange())
+                && Objects.equals(a.getErosionRate(), b.getErosionRate())
+                && Objects.equals(a.getMetadata(), b.getMetadata());
+    }
+
+    static void bind(PreparedStatement ps, UsgsCoastalDataset d) throws SQLException {
+        ps.setString(1, d.getTransectId());
+        ps.setObject(2, d.getLatitude(), Types.DOUBLE);
+        ps.setObject(3, d.getLongitude(), Types.DOUBLE);
+        ps.setString(4, d.getLocation());
+        ps.setString(5, d.getRegion());
+        ps.setDate(6, d.getMeasurementDate() == null ? null : Date.valueOf(d.getMeasurementDate()));
+        ps.setObject(7, d.getShorePosUncert(), Types.DOUBLE);
+        ps.setObject(8, d.getShorelinePosition(), Types.DOUBLE);
+        ps.setObject(9, d.getShorelineChange(), Types.DOUBLE);
+        ps.setObject(10, d.getErosionRate(), Types.DOUBLE);
+        ps.setString(11, d.getMetadata());
+        ps.setString(12, d.getDataSource());
+        ps.setString(13, d.getDatasetDoi());
+        ps.setString(14, d.getDataUrl());
+    }
+}
@@ -0,0 +1,276 @@
+package com.clr.ingest;
+
+import com.clr.model.UsgsImportState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Downloads an import source to a local file, hashing it on the way.
+ * <p>
+ * HTTP sources go through a {@link DownloadCache}: the cached copy is revalidated with its
+ * {@code If-None-Match}/{@code If-Modified-Since} validators and served from disk when the
+ * server answers 304, so re-running an import does not download again. Without a cached copy
+ * the validators of the previous import are sent instead. A download that breaks off is
+ * retried up to {@code usgs.fetch.max-attempts} times with exponential backoff, resuming with
+ * a {@code Range}/{@code If-Range} request from the bytes already on disk. The finished file
+ * is checked against the announced length, a {@code Digest}/{@code Repr-Digest} SHA-256 from
+ * the server and the configured checksum before it enters the cache. With
+ * {@code usgs.fetch.offline=true} the cached copy is used without contacting the server.
+ */
+@Component
+@Slf4j
+public class UsgsSourceFetcher {
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final RestTemplate restTemplate;
+    private final ResourceLoader resourceLoader;
+    private final DownloadCache cache;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final boolean offline;
+
+    public UsgsSourceFetcher(RestTemplateBuilder restTemplateBuilder, ResourceLoader resourceLoader,
+                             @Value("${usgs.fetch.cache-dir:./data/downloads}") Path cacheDir,
+                             @Value("${usgs.fetch.max-attempts:4}") int maxAttempts,
+                             @Value("${usgs.fetch.initial-backoff-ms:1000}") long initialBackoffMs,
+                             @Value("${usgs.fetch.connect-timeout-seconds:10}") int connectTimeoutSeconds,
+                             @Value("${usgs.fetch.read-timeout-seconds:60}") int readTimeoutSeconds,
+                             @Value("${usgs.fetch.offline:false}") boolean offline) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .setReadTimeout(Duration.ofSeconds(readTimeoutSeconds))
+                .build();
+        this.resourceLoader = resourceLoader;
+        this.cache = new DownloadCache(cacheDir);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoffMs = initialBackoffMs;
+        this.offline = offline;
+    }
+
+    public FetchedSource fetch(String url, UsgsImportState previous) throws IOException {
+        return fetch(url, previous, null);
+    }
+
+    /**
+     * Fetch the source, sending {@code If-None-Match}/{@code If-Modified-Since} when a cached
+     * copy or a previous import state is given.
+     *
+     * @param expectedSha256 hex SHA-256 the content must have, or null/blank to skip the check
+     */
+    public FetchedSource fetch(String url, UsgsImportState previous, String expectedSha256) throws IOException {
+        if (url.startsWith("http://") || url.startsWith("https://")) {
+            return fetchHttp(url, previous, expectedSha256 == null || expectedSha256.isBlank()
+                    ? null : expectedSha256.trim().toLowerCase());
+        }
+        Resource resource = resourceLoader.getResource(url);
+        try (InputStream in = resource.getInputStream()) {
+            return download(in, null, null);
+        }
+    }
+
+    private FetchedSource fetchHttp(String url, UsgsImportState previous, String expectedSha256) throws IOException {
+        Optional<DownloadCache.Entry> cached = cache.entry(url);
+        if (offline) {
+            log.info("Offline mode, using the cached copy of {}", url);
+            return cached.map(FetchedSource::cached)
+                    .orElseThrow(() -> new IOException("No cached copy of " + url + " in offline mode"));
+        }
+
+        RestClientException failure = null;
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return attempt(url, previous, cached.orElse(null), expectedSha256);
+            } catch (HttpClientErrorException e) {
+                if (!e.getStatusCode().isSameCodeAs(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)) {
+                    throw e;
+                }
+                // The partial file no longer matches what the server has
+                cache.discardPartial(url);
+                failure = e;
+            } catch (RestClientException e) {
+                // Connection failures, broken transfers, 5xx and checksum mismatches
+                failure = e;
+            }
+            if (attempt < maxAttempts) {
+                log.warn("Download of {} failed (attempt {}/{}), retrying in {} ms: {}",
+                        url, attempt, maxAttempts, backoff, failure.getMessage());
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+        throw new IOException("Download of " + url + " failed after " + maxAttempts + " attempts", failure);
+    }
+
+    private FetchedSource attempt(String url, UsgsImportState previous, DownloadCache.Entry cached,
+                                  String expectedSha256) throws IOException {
+        Optional<DownloadCache.Validators> partial = cache.partial(url);
+        String ifRange = partial.map(DownloadCache.Validators::ifRange).orElse(null);
+        if (partial.isPresent() && ifRange == null) {
+            // Nothing to tell whether the server still has the same content
+            cache.discardPartial(url);
+        }
+        long offset = ifRange == null ? 0 : Files.size(cache.partFile(url));
+        String etag = cached != null ? cached.etag() : previous != null ? previous.getEtag() : null;
+        String lastModified = cached != null ? cached.lastModified() : previous != null ? previous.getLastModified() : null;
+
+        return restTemplate.execute(url, HttpMethod.GET, request -> {
+            HttpHeaders headers = request.getHeaders();
+            if (etag != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+            if (offset > 0) {
+                headers.set(HttpHeaders.RANGE, "bytes=" + offset + "-");
+                headers.set(HttpHeaders.IF_RANGE, ifRange);
+            }
+        }, response -> {
+            HttpHeaders headers = response.getHeaders();
+            String responseEtag = headers.getFirst(HttpHeaders.ETAG);
+            String responseLastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                if (cached != null) {
+                    log.info("USGS source {} not modified, using the cached copy (sha256 {})", url, cached.sha256());
+                    cache.discardPartial(url);
+                    return FetchedSource.cached(cached);
+                }
+                log.info("USGS source {} not modified since last import", url);
+                return FetchedSource.notModified(responseEtag, responseLastModified);
+            }
+
+            boolean resumed = response.getStatusCode().isSameCodeAs(HttpStatus.PARTIAL_CONTENT);
+            long expectedSize;
+            Path part;
+            if (resumed) {
+                long[] range = contentRange(headers.getFirst(HttpHeaders.CONTENT_RANGE));
+                if (range[0] != offset) {
+                    cache.discardPartial(url);
+                    throw new IOException("Server resumed at byte " + range[0] + " instead of " + offset);
+                }
+                log.info("Resuming download of {} at byte {}", url, offset);
+                expectedSize = range[1];
+                part = cache.partFile(url);
+            } else {
+                expectedSize = headers.getContentLength();
+                part = cache.startPartial(url, responseEtag, responseLastModified);
+            }
+            // Appending as it arrives, so whatever was received survives a broken connection
+            try (OutputStream out = Files.newOutputStream(part, StandardOpenOption.APPEND)) {
+                response.getBody().transferTo(out);
+            }
+
+            long size = Files.size(part);
+            if (expectedSize >= 0 && size != expectedSize) {
+                throw new IOException("Download of " + url + " ended at " + size + " of " + expectedSize + " bytes");
+            }
+            String sha256 = DownloadCache.sha256(part);
+            verify(url, sha256, expectedSha256, "configured checksum");
+            verify(url, sha256, digestSha256(headers), "server digest");
+            DownloadCache.Entry entry = cache.commit(url, responseEtag, responseLastModified, sha256);
+            log.info("Downloaded {} ({} bytes, sha256 {})", url, size, sha256);
+            return FetchedSource.cached(entry);
+        });
+    }
+
+    private void verify(String url, String actual, String expected, String what) throws IOException {
+        if (expected != null && !expected.equals(actual)) {
+            cache.discardPartial(url);
+            throw new IOException("Checksum mismatch for " + url + ": " + what + " " + expected + ", got " + actual);
+        }
+    }
+
+    /**
+     * {@code [first byte, complete length]} of a {@code bytes first-last/length} header, the
+     * length -1 when unknown
+     */
+    static long[] contentRange(String header) throws IOException {
+        if (header == null || !header.startsWith("bytes ")) {
+            throw new IOException("Partial response without a byte Content-Range: " + header);
+        }
+        int dash = header.indexOf('-');
+        int slash = header.indexOf('/');
+        if (dash < 0 || slash < dash) {
+            throw new IOException("Malformed Content-Range: " + header);
+        }
+        try {
+            long first = Long.parseLong(header.substring(6, dash).trim());
+            String length = header.substring(slash + 1).trim();
+            return new long[]{first, "*".equals(length) ? -1 : Long.parseLong(length)};
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed Content-Range: " + header, e);
+        }
+    }
+
+    /**
+     * The SHA-256 announced in a {@code Repr-Digest: sha-256=:<base64>:} or legacy
+     * {@code Digest: SHA-256=<base64>} header as hex, null when there is none
+     */
+    static String digestSha256(HttpHeaders headers) {
+        for (String name : new String[]{"Repr-Digest", "Digest"}) {
+            String header = headers.getFirst(name);
+            if (header == null) {
+                continue;
+            }
+            for (String member : header.split(",")) {
+                int eq = member.indexOf('=');
+                if (eq > 0 && member.substring(0, eq).trim().equalsIgnoreCase("sha-256")) {
+                    String value = member.substring(eq + 1).trim().replace(":", "");
+                    try {
+                        return HexFormat.of().formatHex(Base64.getDecoder().decode(value));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Ignoring malformed {} header: {}", name, header);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to retry the download", e);
+        }
+    }
+
+    private static FetchedSource download(InputStream in, String etag, String lastModified) throws IOException {
+        MessageDigest digest = DownloadCache.sha256();
+        Path file = Files.createTempFile("usgs-import-", ".download");
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+            long size = Files.copy(digestIn, file, StandardCopyOption.REPLACE_EXISTING);
+            return new FetchedSource(file, etag, lastModified, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.clr.ingest;
+
+import lombok.Value;
+
+/**
+ * Per-batch outcome of an upsert by {@link UsgsDatasetJdbcWriter} or {@link UsgsCoastalDataJdbcWriter}
+ */
+@Value
+public class WriteCounts {
+
+    public static final WriteCounts NONE = new WriteCounts(0, 0, 0, 0, 0);
+
+    int inserted;
+    int updated;
+    int unchanged;
+    int duplicatesRemoved;
+    /** Rows without a transect id or OBJECTID, which have no key to upsert by */
+    int skipped;
+
+    public int getProcessed() {
+        return inserted + updated + unchanged;
+    }
+}
@@ -0,0 +1,23 @@
+package com.clr.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Pre-aggregated clusters of one {@code z/x/y} map tile for one dataset version
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterTile {
+
+    private int z;
+    private int x;
+    private int y;
+    private long version;
+    private int pointCount;
+    private List<TileCluster> clusters;
+}
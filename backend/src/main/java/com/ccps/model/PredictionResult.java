@@ -4,17 +4,39 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 
 @Entity
 public class PredictionResult {
 
+    // A pooled sequence lets Hibernate batch inserts, which IDENTITY columns prevent
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prediction_result_seq")
+    @SequenceGenerator(name = "prediction_result_seq", sequenceName = "prediction_result_seq", allocationSize = 50)
     private Long id;
 
     private String region;
     private String date;
     private double likelihood;
+    // Version of the prediction model that produced the likelihood
+    private Long modelVersion;
+
+    public PredictionResult() {
+    }
+
+    public PredictionResult(String region, String date, double likelihood, Long modelVersion) {
+        this.region = region;
+        this.date = date;
+        this.likelihood = likelihood;
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * A new result with the same values and no id, to be stored as a row of its own
+     */
+    public PredictionResult copy() {
+        return new PredictionResult(region, date, likelihood, modelVersion);
+    }
 
     // Getters and Setters
     public Long getId() {
@@ -48,4 +70,12 @@ public class PredictionResult {
     public void setLikelihood(double likelihood) {
         this.likelihood = likelihood;
     }
+
+    public Long getModelVersion() {
+        return modelVersion;
+    }
+
+    public void setModelVersion(Long modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
\ No newline at end of file
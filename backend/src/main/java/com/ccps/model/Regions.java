@@ -0,0 +1,21 @@
+package com.clr.model;
+
+import java.util.Locale;
+
+/**
+ * Region names as stored for lookups. Region filters are case-insensitive; comparing
+ * {@code upper(region)} would defeat the index on the column, so tables filtered by region
+ * also store this key and are queried with an exact match on it.
+ */
+public final class Regions {
+
+    private Regions() {
+    }
+
+    /**
+     * The case-insensitive lookup key of a region name, null for null
+     */
+    public static String key(String region) {
+        return region == null ? null : region.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,66 @@
+package com.clr.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Projected shoreline position of one transect in one horizon year, extrapolated from the
+ * linear regression of its measured positions (see {@link TransectChangeRate}). Positions
+ * are in metres along the transect; the bounds are the 95% prediction interval and are
+ * null for transects with fewer than three measurements.
+ */
+@Entity
+@Table(name = "usgs_shoreline_forecasts",
+       indexes = {
+               @Index(name = "idx_usgs_shoreline_forecasts_year", columnList = "forecast_year, transect_id"),
+               @Index(name = "idx_usgs_shoreline_forecasts_region_year",
+                      columnList = "region_key, forecast_year, transect_id")
+       })
+@IdClass(ShorelineForecast.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShorelineForecast {
+
+    @Id
+    @Column(nullable = false)
+    private String transectId;
+
+    @Id
+    @Column(name = "forecast_year")
+    private int year;
+
+    private String region;
+
+    /** {@link Regions#key} of the region, what region lookups match on */
+    @Column(name = "region_key")
+    private String regionKey;
+
+    private String location;
+
+    private double position;
+
+    private Double lowerBound;
+
+    private Double upperBound;
+
+    /** Regression rate the projection follows, m/yr */
+    private double rate;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String transectId;
+        private int year;
+    }
+}
@@ -0,0 +1,26 @@
+package com.clr.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight view of a {@link UsgsCoastalDataset} row served from the in-memory spatial index
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShorelinePoint {
+
+    private Long id;
+    private String transectId;
+    private Double latitude;
+    private Double longitude;
+    private Double erosionRate;
+    private LocalDate measurementDate;
+    private Double distanceKm;
+}
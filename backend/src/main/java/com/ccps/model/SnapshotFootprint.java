@@ -0,0 +1,24 @@
+package com.clr.model;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Heap footprint of the columnar shoreline snapshot compared with the same rows held as
+ * a list of {@link UsgsCoastalDataset} entities. Sizes are estimates in bytes; the entity
+ * estimate leaves out the metadata text, which the snapshot does not hold.
+ */
+@Value
+public class SnapshotFootprint {
+
+    long version;
+    int rows;
+    Map<String, Long> columnBytes;
+    long snapshotBytes;
+    long estimatedEntityListBytes;
+
+    public double getCompressionRatio() {
+        return snapshotBytes == 0 ? 0 : (double) estimatedEntityListBytes / snapshotBytes;
+    }
+}
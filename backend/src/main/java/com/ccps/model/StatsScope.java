@@ -0,0 +1,27 @@
+package com.clr.model;
+
+/**
+ * Grouping of a {@link UsgsDatasetStats} row
+ */
+public enum StatsScope {
+    /** One row per region */
+    REGION,
+    /** One row per (region, location) */
+    LOCATION,
+    /** One row per (region, measurement year) */
+    YEAR,
+    /** One row per (region, location, transect) */
+    TRANSECT;
+
+    /**
+     * Parse a request parameter such as {@code region}, or return null when unknown
+     */
+    public static StatsScope fromParameter(String value) {
+        for (StatsScope scope : values()) {
+            if (scope.name().equalsIgnoreCase(value)) {
+                return scope;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.clr.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregate of the shoreline points falling into one cell of a map tile
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TileCluster {
+
+    private double latitude;
+    private double longitude;
+    private int count;
+    private Double meanErosionRate;
+    private Double minErosionRate;
+    private Double maxErosionRate;
+}
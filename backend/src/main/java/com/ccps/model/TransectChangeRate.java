@@ -0,0 +1,75 @@
+package com.clr.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Shoreline change rates of one transect derived from its shoreline positions over time,
+ * recomputed after each import. Positions are in metres along the transect and rates in
+ * m/yr; a positive rate means the position increased. Only measurements with both a date
+ * and a position are used; the weighted fit further needs a positive uncertainty.
+ */
+@Entity
+@Table(name = "usgs_transect_rates",
+       indexes = {
+               @Index(name = "idx_usgs_transect_rates_transect", columnList = "transect_id", unique = true),
+               @Index(name = "idx_usgs_transect_rates_region", columnList = "region_key, transect_id")
+       })
+@Data
+@NoArgsConstructor
+public class TransectChangeRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String transectId;
+
+    private String region;
+
+    /** {@link Regions#key} of the region, what region lookups match on */
+    @Column(name = "region_key")
+    private String regionKey;
+
+    private String location;
+
+    private int measurementCount;
+
+    private LocalDate firstMeasurement;
+
+    private LocalDate lastMeasurement;
+
+    /** Position at the last measurement minus the position at the first (NSM) */
+    private Double netShorelineMovement;
+
+    /** Net movement divided by the time between the first and last measurement (EPR) */
+    private Double endPointRate;
+
+    /** Least-squares slope of position against time (LRR) */
+    private Double linearRegressionRate;
+
+    /** Half-width of the 95% confidence interval of the LRR (Student t) */
+    private Double linearRegressionCi95;
+
+    private Double linearRegressionR2;
+
+    /** Least-squares slope weighted by {@code 1 / shorePosUncert²} (WLR) */
+    private Double weightedLinearRate;
+
+    /** Half-width of the 95% confidence interval of the WLR */
+    private Double weightedLinearCi95;
+
+    /** When the row's content last changed */
+    private Instant updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.clr.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -19,6 +20,10 @@ public class UsgsCoastalData {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    /** OBJECTID of the feature in the ArcGIS layer, the key the feed is upserted by */
+    @Column(name = "object_id", unique = true)
+    private Long objectId;
     
     private String location;
     private Integer year;
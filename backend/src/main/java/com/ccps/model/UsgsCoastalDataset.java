@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -18,7 +19,8 @@ import java.time.LocalDate;
  * Dataset: "Massachusetts Shoreline Change Project, 1800s to 2018"
  */
 @Entity
-@Table(name = "usgs_coastal_datasets")
+@Table(name = "usgs_coastal_datasets",
+       indexes = @Index(name = "idx_usgs_datasets_transect_date", columnList = "transect_id, measurement_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,94 @@
+package com.clr.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Pre-computed erosion rate summary of one group of USGS datasets, refreshed after each import.
+ * Rates are in the dataset's units (m/yr); the trend is the least-squares slope of the erosion
+ * rate against measurement date, per year. Percentiles are t-digest estimates (exact for small
+ * groups) and the transect count a HyperLogLog estimate; both sketches are stored so groups
+ * can be combined later without rescanning the records.
+ */
+@Entity
+@Table(name = "usgs_dataset_stats",
+       indexes = @Index(name = "idx_usgs_dataset_stats_scope_region", columnList = "scope, region"))
+@Data
+@NoArgsConstructor
+public class UsgsDatasetStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private StatsScope scope;
+
+    private String region;
+
+    private String location;
+
+    @Column(name = "stats_year")
+    private Integer year;
+
+    private String transectId;
+
+    private long recordCount;
+
+    /** Records with an erosion rate; the rate statistics cover only these */
+    private long rateCount;
+
+    private Double meanErosionRate;
+
+    private Double stddevErosionRate;
+
+    private Double minErosionRate;
+
+    private Double maxErosionRate;
+
+    private Double p10ErosionRate;
+
+    private Double p25ErosionRate;
+
+    private Double medianErosionRate;
+
+    private Double p75ErosionRate;
+
+    private Double p90ErosionRate;
+
+    private Double trendPerYear;
+
+    private LocalDate firstMeasurement;
+
+    private LocalDate lastMeasurement;
+
+    /** Estimated number of distinct transects; not set for transect rows */
+    private Long distinctTransects;
+
+    /** Serialized {@link com.clr.stats.TDigest} of the erosion rates */
+    @JsonIgnore
+    @Column(length = 16384)
+    private byte[] rateDigest;
+
+    /** Serialized {@link com.clr.stats.HyperLogLog} of the transect ids */
+    @JsonIgnore
+    @Column(length = 4096)
+    private byte[] transectSketch;
+
+    /** When the row's content last changed */
+    private Instant updatedAt;
+}
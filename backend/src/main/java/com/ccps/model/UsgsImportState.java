@@ -0,0 +1,45 @@
+package com.clr.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * What was last imported from a USGS source URL: the HTTP validators the server sent
+ * and a SHA-256 of the content, so an unchanged source can be skipped on refresh.
+ */
+@Entity
+@Table(name = "usgs_import_state")
+@Data
+@NoArgsConstructor
+public class UsgsImportState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 1000, unique = true, nullable = false)
+    private String sourceUrl;
+
+    private String etag;
+
+    private String lastModified;
+
+    @Column(length = 64)
+    private String contentHash;
+
+    private Instant importedAt;
+
+    private long rowsInserted;
+
+    private long rowsUpdated;
+
+    private long rowsUnchanged;
+}
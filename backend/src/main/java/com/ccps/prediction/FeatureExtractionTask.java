@@ -0,0 +1,53 @@
+package com.clr.prediction;
+
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.TransectGroups;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Extracts the training examples of a range of transect groups, splitting the range in
+ * halves until it is small enough to run directly. Every leaf fills its own
+ * {@link TrainingSet} and the halves are concatenated on the way back, in group order, so
+ * the result does not depend on the number of workers.
+ */
+public class FeatureExtractionTask extends RecursiveTask<TrainingSet> {
+
+    static final int THRESHOLD = 512;
+
+    private final ShorelineSnapshot snapshot;
+    private final TransectGroups groups;
+    private final double threshold;
+    private final int from;
+    private final int to;
+
+    public FeatureExtractionTask(ShorelineSnapshot snapshot, TransectGroups groups, double threshold) {
+        this(snapshot, groups, threshold, 0, groups.count());
+    }
+
+    private FeatureExtractionTask(ShorelineSnapshot snapshot, TransectGroups groups, double threshold,
+                                  int from, int to) {
+        this.snapshot = snapshot;
+        this.groups = groups;
+        this.threshold = threshold;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected TrainingSet compute() {
+        if (to - from <= THRESHOLD) {
+            TrainingSet set = new TrainingSet();
+            for (int g = from; g < to; g++) {
+                TrainingDataExtractor.addTransect(snapshot, groups, g, threshold, set);
+            }
+            return set;
+        }
+        int mid = (from + to) >>> 1;
+        FeatureExtractionTask right = new FeatureExtractionTask(snapshot, groups, threshold, mid, to);
+        right.fork();
+        TrainingSet set = new FeatureExtractionTask(snapshot, groups, threshold, from, mid).compute();
+        set.addAll(right.join());
+        return set;
+    }
+}
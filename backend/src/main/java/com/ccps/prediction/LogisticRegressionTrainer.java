@@ -0,0 +1,164 @@
+package com.clr.prediction;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Fits a {@link PredictionModel} by L2-regularized logistic regression, solved with Newton's
+ * method (iteratively reweighted least squares). Features are standardized first and missing
+ * values imputed with the feature mean, i.e. zero after standardization. With four parameters
+ * each iteration is one pass over the examples plus a 4x4 solve, and a handful of iterations
+ * usually reach the tolerance.
+ */
+public class LogisticRegressionTrainer {
+
+    static final int MAX_ITERATIONS = 50;
+    static final double TOLERANCE = 1e-8;
+
+    private final double l2;
+
+    public LogisticRegressionTrainer() {
+        this(1.0);
+    }
+
+    /**
+     * @param l2 penalty on the squared standardized weights, which keeps them finite when
+     *           the classes are separable
+     */
+    public LogisticRegressionTrainer(double l2) {
+        this.l2 = l2;
+    }
+
+    /**
+     * The fitted model, or the untrained one when {@code set} is empty
+     */
+    public PredictionModel fit(TrainingSet set) {
+        int n = set.size();
+        if (n == 0) {
+            return PredictionModel.untrained();
+        }
+        int width = TrainingSet.WIDTH;
+        double[] means = new double[width];
+        double[] scales = new double[width];
+        standardization(set, means, scales);
+
+        int p = width + 1;
+        double[] beta = new double[p];
+        double[] gradient = new double[p];
+        double[] hessian = new double[p * p];
+        // One standardized row with a leading intercept term, reused for every example
+        double[] x = new double[p];
+        x[0] = 1;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            Arrays.fill(gradient, 0);
+            Arrays.fill(hessian, 0);
+            for (int i = 0; i < n; i++) {
+                double z = beta[0];
+                for (int f = 0; f < width; f++) {
+                    double value = set.feature(i, f);
+                    x[f + 1] = Double.isNaN(value) ? 0 : (value - means[f]) / scales[f];
+                    z += beta[f + 1] * x[f + 1];
+                }
+                double prob = 1 / (1 + Math.exp(-z));
+                double residual = prob - (set.label(i) ? 1 : 0);
+                double weight = prob * (1 - prob);
+                for (int j = 0; j < p; j++) {
+                    gradient[j] += residual * x[j];
+                    for (int k = 0; k <= j; k++) {
+                        hessian[j * p + k] += weight * x[j] * x[k];
+                    }
+                }
+            }
+            // The intercept is not penalized
+            for (int j = 1; j < p; j++) {
+                gradient[j] += l2 * beta[j];
+                hessian[j * p + j] += l2;
+            }
+            for (int j = 0; j < p; j++) {
+                hessian[j * p + j] += 1e-9;
+                for (int k = 0; k < j; k++) {
+                    hessian[k * p + j] = hessian[j * p + k];
+                }
+            }
+            double[] step = solve(hessian, gradient, p);
+            double largest = 0;
+            for (int j = 0; j < p; j++) {
+                beta[j] -= step[j];
+                largest = Math.max(largest, Math.abs(step[j]));
+            }
+            if (largest < TOLERANCE) {
+                break;
+            }
+        }
+
+        double[] weights = new double[width];
+        System.arraycopy(beta, 1, weights, 0, width);
+        return new PredictionModel(means, scales, weights, beta[0], n, Instant.now());
+    }
+
+    /**
+     * Mean and standard deviation of each feature over its non-missing values; a feature
+     * that is constant or never present gets scale 1
+     */
+    static void standardization(TrainingSet set, double[] means, double[] scales) {
+        for (int f = 0; f < means.length; f++) {
+            long count = 0;
+            double mean = 0;
+            double m2 = 0;
+            for (int i = 0; i < set.size(); i++) {
+                double value = set.feature(i, f);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                count++;
+                double delta = value - mean;
+                mean += delta / count;
+                m2 += delta * (value - mean);
+            }
+            double deviation = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+            means[f] = mean;
+            scales[f] = deviation > 0 ? deviation : 1;
+        }
+    }
+
+    /**
+     * Solve {@code a x = b} for a small dense system by Gaussian elimination with partial
+     * pivoting; {@code a} and {@code b} are overwritten
+     */
+    static double[] solve(double[] a, double[] b, int n) {
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++) {
+                if (Math.abs(a[r * n + col]) > Math.abs(a[pivot * n + col])) {
+                    pivot = r;
+                }
+            }
+            if (pivot != col) {
+                for (int c = 0; c < n; c++) {
+                    double t = a[col * n + c];
+                    a[col * n + c] = a[pivot * n + c];
+                    a[pivot * n + c] = t;
+                }
+                double t = b[col];
+                b[col] = b[pivot];
+                b[pivot] = t;
+            }
+            for (int r = col + 1; r < n; r++) {
+                double factor = a[r * n + col] / a[col * n + col];
+                for (int c = col; c < n; c++) {
+                    a[r * n + c] -= factor * a[col * n + c];
+                }
+                b[r] -= factor * b[col];
+            }
+        }
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = b[r];
+            for (int c = r + 1; c < n; c++) {
+                sum -= a[r * n + c] * x[c];
+            }
+            x[r] = sum / a[r * n + r];
+        }
+        return x;
+    }
+}
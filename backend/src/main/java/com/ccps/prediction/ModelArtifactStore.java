@@ -0,0 +1,136 @@
+package com.clr.prediction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stores trained models as {@code model-<version>.bin} files of {@link PredictionModel#toBytes}
+ * plus an {@code ACTIVE} file naming the version in use. Every file is written to a temporary
+ * name and moved into place atomically, so a crash never leaves a partial artifact and a
+ * rollback survives a restart. Only the newest {@code prediction.model.retain} versions are
+ * kept; the active one is never removed.
+ */
+@Component
+@Slf4j
+public class ModelArtifactStore {
+
+    private static final Pattern ARTIFACT = Pattern.compile("model-(\\d+)\\.bin");
+    private static final String ACTIVE = "ACTIVE";
+
+    private final Path directory;
+    private final int retain;
+
+    public ModelArtifactStore(@Value("${prediction.model.dir:./data/models}") Path directory,
+                              @Value("${prediction.model.retain:20}") int retain) {
+        this.directory = directory;
+        this.retain = Math.max(retain, 1);
+    }
+
+    /**
+     * Stored versions, oldest first
+     */
+    public synchronized List<Long> versions() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Long> versions = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher m = ARTIFACT.matcher(file.getFileName().toString());
+                if (m.matches()) {
+                    versions.add(Long.parseLong(m.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        versions.sort(null);
+        return versions;
+    }
+
+    public synchronized long nextVersion() {
+        List<Long> versions = versions();
+        return versions.isEmpty() ? 1 : versions.get(versions.size() - 1) + 1;
+    }
+
+    public synchronized Optional<PredictionModel> load(long version) {
+        try {
+            return Optional.of(PredictionModel.fromBytes(Files.readAllBytes(artifact(version))));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unreadable model artifact {}: {}", artifact(version), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public synchronized void save(PredictionModel model) {
+        write(artifact(model.getVersion()), model.toBytes());
+        prune();
+    }
+
+    public synchronized OptionalLong activeVersion() {
+        try {
+            return OptionalLong.of(Long.parseLong(Files.readString(directory.resolve(ACTIVE)).trim()));
+        } catch (NoSuchFileException | NumberFormatException e) {
+            return OptionalLong.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void setActiveVersion(long version) {
+        write(directory.resolve(ACTIVE), Long.toString(version).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void prune() {
+        List<Long> versions = versions();
+        long active = activeVersion().orElse(-1);
+        for (int i = 0; i < versions.size() - retain; i++) {
+            if (versions.get(i) != active) {
+                try {
+                    Files.deleteIfExists(artifact(versions.get(i)));
+                } catch (IOException e) {
+                    log.warn("Could not delete model version {}", versions.get(i), e);
+                }
+            }
+        }
+    }
+
+    private Path artifact(long version) {
+        return directory.resolve("model-" + version + ".bin");
+    }
+
+    private void write(Path target, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.clr.prediction;
+
+/**
+ * Two model versions evaluated on the same examples
+ *
+ * @param meanAbsoluteDifference mean absolute difference of the two likelihoods per example
+ * @param disagreement           share of examples the models classify differently
+ */
+public record ModelComparison(ModelEvaluation a, ModelEvaluation b, double meanAbsoluteDifference,
+                              double disagreement) {
+
+    public static ModelComparison of(PredictionModel a, PredictionModel b, TrainingSet set) {
+        double[] meansA = a.getMeans();
+        double[] meansB = b.getMeans();
+        double difference = 0;
+        int disagreements = 0;
+        for (int i = 0; i < set.size(); i++) {
+            double pa = ModelEvaluation.score(a, meansA, set, i);
+            double pb = ModelEvaluation.score(b, meansB, set, i);
+            difference += Math.abs(pa - pb);
+            if ((pa >= 0.5) != (pb >= 0.5)) {
+                disagreements++;
+            }
+        }
+        int n = set.size();
+        return new ModelComparison(ModelEvaluation.of(a, set), ModelEvaluation.of(b, set),
+                n == 0 ? Double.NaN : difference / n, n == 0 ? Double.NaN : (double) disagreements / n);
+    }
+}
@@ -0,0 +1,46 @@
+package com.clr.prediction;
+
+/**
+ * Quality of one model on a set of labelled examples; missing features are imputed with the
+ * model's training means, as during training
+ *
+ * @param logLoss    mean negative log-likelihood of the labels
+ * @param brierScore mean squared difference between likelihood and label
+ * @param accuracy   share of examples on the right side of 0.5
+ */
+public record ModelEvaluation(long version, int examples, double logLoss, double brierScore, double accuracy) {
+
+    private static final double EPSILON = 1e-15;
+
+    public static ModelEvaluation of(PredictionModel model, TrainingSet set) {
+        double[] means = model.getMeans();
+        double logLoss = 0;
+        double brier = 0;
+        int correct = 0;
+        for (int i = 0; i < set.size(); i++) {
+            double p = score(model, means, set, i);
+            boolean label = set.label(i);
+            double clipped = Math.min(Math.max(p, EPSILON), 1 - EPSILON);
+            logLoss -= label ? Math.log(clipped) : Math.log(1 - clipped);
+            double error = p - (label ? 1 : 0);
+            brier += error * error;
+            if ((p >= 0.5) == label) {
+                correct++;
+            }
+        }
+        int n = set.size();
+        return n == 0
+                ? new ModelEvaluation(model.getVersion(), 0, Double.NaN, Double.NaN, Double.NaN)
+                : new ModelEvaluation(model.getVersion(), n, logLoss / n, brier / n, (double) correct / n);
+    }
+
+    static double score(PredictionModel model, double[] means, TrainingSet set, int example) {
+        return model.score(valueOrMean(set, example, 0, means), valueOrMean(set, example, 1, means),
+                valueOrMean(set, example, 2, means));
+    }
+
+    private static double valueOrMean(TrainingSet set, int example, int feature, double[] means) {
+        double value = set.feature(example, feature);
+        return Double.isNaN(value) ? means[feature] : value;
+    }
+}
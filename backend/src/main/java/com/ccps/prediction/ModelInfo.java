@@ -0,0 +1,15 @@
+package com.clr.prediction;
+
+import java.time.Instant;
+
+/**
+ * A stored model version as listed by {@code /api/coast/models}
+ */
+public record ModelInfo(long version, long datasetVersion, long trainingSamples, Instant trainedAt,
+                        double[] weights, boolean active) {
+
+    public static ModelInfo of(PredictionModel model, boolean active) {
+        return new ModelInfo(model.getVersion(), model.getDatasetVersion(), model.getTrainingSamples(),
+                model.getTrainedAt(), model.getWeights(), active);
+    }
+}
@@ -0,0 +1,129 @@
+package com.clr.prediction;
+
+import com.clr.model.CoastalData;
+import com.clr.model.PredictionResult;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of single predictions keyed by the normalized input and the model version,
+ * so a new model makes old entries unreachable and they age out.
+ * <p>
+ * The cache holds futures: the first request for a key computes the result on its own thread
+ * and identical requests arriving meanwhile wait for that computation instead of starting
+ * their own (single flight). A failed computation is not cached.
+ * <p>
+ * Metrics: {@code cache.gets}/{@code cache.evictions} with {@code cache=predictions}, and the
+ * {@code prediction.requests} timer tagged {@code outcome=miss|hit|coalesced}.
+ */
+@Component
+public class PredictionCache {
+
+    public static final String NAME = "predictions";
+
+    // Features are compared at 1e-6, matching the rounding of the stored statistics
+    private static final double FEATURE_PRECISION = 1e6;
+
+    /**
+     * Normalized prediction input
+     */
+    record Key(long modelVersion, String region, String date, long seaLevel, long erosionRate, long precipitation) {
+        static Key of(CoastalData data, long modelVersion) {
+            return new Key(modelVersion, normalize(data.getRegion()), normalize(data.getDate()),
+                    quantize(data.getSeaLevel()), quantize(data.getErosionRate()), quantize(data.getPrecipitation()));
+        }
+
+        private static String normalize(String value) {
+            return value == null ? null : value.trim();
+        }
+
+        private static long quantize(double value) {
+            return Math.round(value * FEATURE_PRECISION);
+        }
+    }
+
+    /**
+     * A cached or computed result
+     *
+     * @param computed whether this call ran the computation; false for hits and coalesced calls
+     */
+    public record Lookup(PredictionResult result, boolean computed) {
+    }
+
+    private final AsyncCache<Key, PredictionResult> cache;
+    private final Timer misses;
+    private final Timer hits;
+    private final Timer coalesced;
+
+    public PredictionCache(MeterRegistry meterRegistry,
+                           @Value("${prediction.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${prediction.cache.expire-after-write-minutes:10}") long expireAfterWriteMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), NAME);
+        this.misses = timer(meterRegistry, "miss");
+        this.hits = timer(meterRegistry, "hit");
+        this.coalesced = timer(meterRegistry, "coalesced");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("prediction.requests")
+                .description("Single predictions by cache outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The result for {@code data} under the given model version, computed by {@code loader}
+     * on the calling thread unless it is cached or already being computed
+     */
+    public Lookup get(CoastalData data, long modelVersion, Supplier<PredictionResult> loader) {
+        long start = System.nanoTime();
+        Key key = Key.of(data, modelVersion);
+        CompletableFuture<PredictionResult> mine = new CompletableFuture<>();
+        boolean[] created = new boolean[1];
+        CompletableFuture<PredictionResult> future = cache.get(key, (k, executor) -> {
+            created[0] = true;
+            return mine;
+        });
+        if (!created[0]) {
+            boolean done = future.isDone();
+            PredictionResult result = join(future);
+            (done ? hits : coalesced).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Lookup(result, false);
+        }
+        try {
+            mine.complete(loader.get());
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Lookup(mine.join(), true);
+    }
+
+    private static PredictionResult join(CompletableFuture<PredictionResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
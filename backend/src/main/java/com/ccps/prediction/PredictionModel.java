@@ -0,0 +1,177 @@
+package com.clr.prediction;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Immutable logistic model of the likelihood that a shoreline erodes faster than the
+ * high-erosion threshold at its next measurement, given the current sea level, erosion rate
+ * and precipitation.
+ * <p>
+ * Features are standardized with the training means and scales; the standardization is folded
+ * into the coefficients, so {@link #score} is three multiply-adds and one {@code exp} with no
+ * allocation. Instances are safely published through final fields and can be shared by any
+ * number of scoring threads.
+ * <p>
+ * Trained models are numbered and stored in a fixed-size binary form ({@link #toBytes}),
+ * so older versions can be reloaded for rollback and comparison.
+ */
+public final class PredictionModel {
+
+    /** Feature order of {@link #getMeans()}, {@link #getScales()} and {@link #getWeights()} */
+    public static final String[] FEATURES = {"seaLevel", "erosionRate", "precipitation"};
+
+    private static final int MAGIC = 0x43435044;
+    private static final byte FORMAT = 1;
+    private static final int BYTES = Integer.BYTES + 1 + 4 * Long.BYTES + (3 * FEATURES.length + 1) * Double.BYTES;
+    private static final long NO_INSTANT = Long.MIN_VALUE;
+
+    private final long version;
+    private final long datasetVersion;
+    private final double[] means;
+    private final double[] scales;
+    private final double[] weights;
+    private final double bias;
+    private final long trainingSamples;
+    private final Instant trainedAt;
+
+    // Coefficients on the raw features
+    private final double intercept;
+    private final double seaLevelCoefficient;
+    private final double erosionRateCoefficient;
+    private final double precipitationCoefficient;
+
+    public PredictionModel(double[] means, double[] scales, double[] weights, double bias,
+                           long trainingSamples, Instant trainedAt) {
+        this(0, -1, means, scales, weights, bias, trainingSamples, trainedAt);
+    }
+
+    public PredictionModel(long version, long datasetVersion, double[] means, double[] scales, double[] weights, double bias,
+                           long trainingSamples, Instant trainedAt) {
+        if (means.length != FEATURES.length || scales.length != FEATURES.length || weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("Expected " + FEATURES.length + " features");
+        }
+        this.version = version;
+        this.datasetVersion = datasetVersion;
+        this.means = means.clone();
+        this.scales = scales.clone();
+        this.weights = weights.clone();
+        this.bias = bias;
+        this.trainingSamples = trainingSamples;
+        this.trainedAt = trainedAt;
+
+        double folded = bias;
+        for (int i = 0; i < FEATURES.length; i++) {
+            folded -= weights[i] * means[i] / scales[i];
+        }
+        this.intercept = folded;
+        this.seaLevelCoefficient = weights[0] / scales[0];
+        this.erosionRateCoefficient = weights[1] / scales[1];
+        this.precipitationCoefficient = weights[2] / scales[2];
+    }
+
+    /**
+     * Model used until one has been trained: every input scores 0.5
+     */
+    public static PredictionModel untrained() {
+        double[] zeros = new double[FEATURES.length];
+        double[] ones = {1, 1, 1};
+        return new PredictionModel(zeros, ones, zeros, 0, 0, null);
+    }
+
+    /**
+     * Likelihood in [0, 1]
+     */
+    public double score(double seaLevel, double erosionRate, double precipitation) {
+        double z = intercept + seaLevelCoefficient * seaLevel + erosionRateCoefficient * erosionRate
+                + precipitationCoefficient * precipitation;
+        return 1 / (1 + Math.exp(-z));
+    }
+
+    /**
+     * The same model numbered as a training run over the given dataset version
+     */
+    public PredictionModel withVersion(long version, long datasetVersion) {
+        return new PredictionModel(version, datasetVersion, means, scales, weights, bias, trainingSamples, trainedAt);
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        buffer.putInt(MAGIC).put(FORMAT).putLong(version).putLong(datasetVersion).putLong(trainingSamples)
+                .putLong(trainedAt == null ? NO_INSTANT : trainedAt.toEpochMilli());
+        for (int i = 0; i < FEATURES.length; i++) {
+            buffer.putDouble(means[i]).putDouble(scales[i]).putDouble(weights[i]);
+        }
+        buffer.putDouble(bias);
+        return buffer.array();
+    }
+
+    public static PredictionModel fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != FORMAT) {
+                throw new IllegalArgumentException("Not a prediction model");
+            }
+            long version = buffer.getLong();
+            long datasetVersion = buffer.getLong();
+            long trainingSamples = buffer.getLong();
+            long trainedAt = buffer.getLong();
+            double[] means = new double[FEATURES.length];
+            double[] scales = new double[FEATURES.length];
+            double[] weights = new double[FEATURES.length];
+            for (int i = 0; i < FEATURES.length; i++) {
+                means[i] = buffer.getDouble();
+                scales[i] = buffer.getDouble();
+                weights[i] = buffer.getDouble();
+            }
+            return new PredictionModel(version, datasetVersion, means, scales, weights, buffer.getDouble(), trainingSamples,
+                    trainedAt == NO_INSTANT ? null : Instant.ofEpochMilli(trainedAt));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated prediction model", e);
+        }
+    }
+
+    /**
+     * Training run number, 0 for the untrained model
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Version of the shoreline dataset the model was trained on, -1 if unknown
+     */
+    public long getDatasetVersion() {
+        return datasetVersion;
+    }
+
+    public boolean isTrained() {
+        return trainingSamples > 0;
+    }
+
+    public double[] getMeans() {
+        return means.clone();
+    }
+
+    public double[] getScales() {
+        return scales.clone();
+    }
+
+    /** Weights on the standardized features */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    public double getBias() {
+        return bias;
+    }
+
+    public long getTrainingSamples() {
+        return trainingSamples;
+    }
+
+    public Instant getTrainedAt() {
+        return trainedAt;
+    }
+}
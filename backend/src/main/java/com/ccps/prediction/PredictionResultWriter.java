@@ -0,0 +1,29 @@
+package com.clr.prediction;
+
+import com.clr.model.PredictionResult;
+import com.clr.repository.PredictionResultRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Stores prediction results in one transaction. Ids come from the pooled
+ * {@code prediction_result_seq} sequence, so Hibernate assigns them without a round trip per
+ * row and groups the inserts into JDBC batches of {@code hibernate.jdbc.batch_size}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PredictionResultWriter {
+
+    private final PredictionResultRepository predictionResultRepository;
+
+    @Transactional
+    public void insert(List<PredictionResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        predictionResultRepository.saveAll(results);
+    }
+}
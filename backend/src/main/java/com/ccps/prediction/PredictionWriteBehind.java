@@ -0,0 +1,255 @@
+package com.clr.prediction;
+
+import com.clr.model.PredictionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind persistence of single prediction results
+ * ({@code prediction.write-behind.enabled}).
+ * <p>
+ * Results are put on a bounded queue and a background thread writes them with
+ * {@link PredictionResultWriter} in batches, whenever {@code batch-size} results are waiting or
+ * {@code flush-interval-ms} has passed since the first of them. Ids are assigned when the batch
+ * is written, so results returned to clients in this mode have none.
+ * <p>
+ * Backpressure: when the queue stays full for {@code offer-timeout-ms}, {@link #submit} refuses
+ * the result and the caller writes it synchronously, so load slows requests down instead of
+ * dropping results. On shutdown intake stops and the queue is drained before the context closes.
+ * <p>
+ * A batch that fails to write is retried up to {@code max-attempts} times with exponential
+ * backoff from {@code retry-backoff-ms}, then written row by row so one bad result cannot take
+ * the rest of its batch with it. Results that still fail are logged and counted and are lost,
+ * as are results still queued when the process dies without a clean shutdown or when the
+ * drain on shutdown takes longer than 30 seconds.
+ * <p>
+ * Metrics: gauge {@code prediction.write_behind.queue.depth}, counters
+ * {@code prediction.write_behind.written}/{@code rejected}/{@code failed} and timer
+ * {@code prediction.write_behind.flush}.
+ */
+@Component
+@Slf4j
+public class PredictionWriteBehind {
+
+    private final PredictionResultWriter writer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final BlockingQueue<PredictionResult> queue;
+    private final Counter written;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Timer flushes;
+
+    private volatile boolean accepting;
+    private Thread thread;
+
+    public PredictionWriteBehind(PredictionResultWriter writer, MeterRegistry meterRegistry,
+                                 @Value("${prediction.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${prediction.write-behind.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${prediction.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${prediction.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                                 @Value("${prediction.write-behind.offer-timeout-ms:50}") long offerTimeoutMillis,
+                                 @Value("${prediction.write-behind.max-attempts:3}") int maxAttempts,
+                                 @Value("${prediction.write-behind.retry-backoff-ms:100}") long retryBackoffMillis) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        Gauge.builder("prediction.write_behind.queue.depth", queue, BlockingQueue::size)
+                .description("Prediction results waiting to be written")
+                .register(meterRegistry);
+        this.written = Counter.builder("prediction.write_behind.written").register(meterRegistry);
+        this.rejected = Counter.builder("prediction.write_behind.rejected")
+                .description("Results refused because the queue was full, written synchronously instead")
+                .register(meterRegistry);
+        this.failed = Counter.builder("prediction.write_behind.failed")
+                .description("Results not written after all retries, and lost")
+                .register(meterRegistry);
+        this.flushes = Timer.builder("prediction.write_behind.flush").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        accepting = true;
+        thread = new Thread(this::run, "prediction-write-behind");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop taking results and write everything still queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        accepting = false;
+        thread.join(TimeUnit.SECONDS.toMillis(30));
+        if (thread.isAlive()) {
+            log.warn("Prediction write-behind did not drain in time, {} results not written", queue.size());
+            return;
+        }
+        // Results offered while intake was being closed
+        List<PredictionResult> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Queue a result for writing
+     *
+     * @return false if write-behind is off, stopped or the queue stayed full; the caller must
+     *         then write the result itself
+     */
+    public boolean submit(PredictionResult result) {
+        if (!accepting) {
+            return false;
+        }
+        try {
+            if (queue.offer(result, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private void run() {
+        List<PredictionResult> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PredictionResult first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PredictionResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Keep draining; stop() ends the loop through the accepting flag
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private void flush(List<PredictionResult> batch) {
+        long start = System.nanoTime();
+        try {
+            if (!insertWithRetry(batch)) {
+                insertOneByOne(batch);
+            }
+        } finally {
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return false if every attempt failed
+     */
+    private boolean insertWithRetry(List<PredictionResult> batch) {
+        long backoff = retryBackoffMillis;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                writer.insert(batch);
+                written.increment(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                // Ids assigned before the rollback were never stored
+                batch.forEach(result -> result.setId(null));
+                if (attempt == maxAttempts) {
+                    log.warn("Failed to write {} prediction results after {} attempts, writing them one by one",
+                            batch.size(), maxAttempts, e);
+                    return false;
+                }
+                log.warn("Failed to write {} prediction results (attempt {}/{}), retrying in {} ms: {}",
+                        batch.size(), attempt, maxAttempts, backoff, e.getMessage());
+                if (!sleep(backoff)) {
+                    return false;
+                }
+                backoff *= 2;
+            }
+        }
+        return false;
+    }
+
+    private void insertOneByOne(List<PredictionResult> batch) {
+        int lost = 0;
+        for (PredictionResult result : batch) {
+            try {
+                writer.insert(List.of(result));
+                written.increment();
+            } catch (RuntimeException e) {
+                result.setId(null);
+                lost++;
+                log.error("Failed to write prediction result for region {} and date {}, dropping it",
+                        result.getRegion(), result.getDate(), e);
+            }
+        }
+        if (lost > 0) {
+            failed.increment(lost);
+        }
+    }
+
+    /**
+     * @return false if the writer thread was interrupted
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
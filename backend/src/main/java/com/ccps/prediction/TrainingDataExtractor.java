@@ -0,0 +1,101 @@
+package com.clr.prediction;
+
+import com.clr.model.CoastalData;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.TransectGroups;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns measurement histories into {@link TrainingSet} examples: each measurement is paired
+ * with the next one of the same series, and the example is labelled positive when that next
+ * erosion rate exceeds the high-erosion threshold. {@link CoastalData} series are regions and
+ * carry all three features; USGS series are transects, which have no sea level or
+ * precipitation, so those features are missing.
+ */
+public final class TrainingDataExtractor {
+
+    private TrainingDataExtractor() {
+    }
+
+    /**
+     * Add an example per consecutive pair of records of the same region, ordered by date;
+     * records with an unparseable date are skipped
+     */
+    public static void addCoastalData(List<CoastalData> records, double threshold, TrainingSet set) {
+        Map<String, List<CoastalData>> byRegion = new HashMap<>();
+        Map<CoastalData, LocalDate> dates = new HashMap<>();
+        for (CoastalData record : records) {
+            LocalDate date = parseDate(record.getDate());
+            if (date != null) {
+                dates.put(record, date);
+                byRegion.computeIfAbsent(record.getRegion(), r -> new ArrayList<>()).add(record);
+            }
+        }
+        for (List<CoastalData> series : byRegion.values()) {
+            series.sort(Comparator.comparing(dates::get));
+            for (int i = 0; i + 1 < series.size(); i++) {
+                CoastalData current = series.get(i);
+                set.add(current.getSeaLevel(), current.getErosionRate(), current.getPrecipitation(),
+                        series.get(i + 1).getErosionRate() > threshold);
+            }
+        }
+    }
+
+    /**
+     * Add an example per consecutive pair of dated measurements with an erosion rate on the
+     * same transect
+     */
+    public static void addShorelineHistory(ShorelineSnapshot snapshot, double threshold, TrainingSet set) {
+        TransectGroups groups = snapshot.groupByTransect();
+        for (int g = 0; g < groups.count(); g++) {
+            addTransect(snapshot, groups, g, threshold, set);
+        }
+    }
+
+    static void addTransect(ShorelineSnapshot snapshot, TransectGroups groups, int group, double threshold,
+                            TrainingSet set) {
+        int[] rows = new int[groups.end(group) - groups.start(group)];
+        int count = 0;
+        for (int i = groups.start(group); i < groups.end(group); i++) {
+            int row = groups.row(i);
+            if (snapshot.getEpochDay(row) != ShorelineSnapshot.NO_DATE && !Double.isNaN(snapshot.getErosionRate(row))) {
+                rows[count++] = row;
+            }
+        }
+        if (count < 2) {
+            return;
+        }
+        // Insertion sort by date: transects hold a few dozen measurements at most
+        for (int i = 1; i < count; i++) {
+            int row = rows[i];
+            int j = i - 1;
+            while (j >= 0 && snapshot.getEpochDay(rows[j]) > snapshot.getEpochDay(row)) {
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            rows[j + 1] = row;
+        }
+        for (int i = 0; i + 1 < count; i++) {
+            set.add(Double.NaN, snapshot.getErosionRate(rows[i]), Double.NaN,
+                    snapshot.getErosionRate(rows[i + 1]) > threshold);
+        }
+    }
+
+    static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
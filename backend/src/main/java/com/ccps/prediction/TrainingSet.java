@@ -0,0 +1,55 @@
+package com.clr.prediction;
+
+import java.util.Arrays;
+
+/**
+ * Training examples in growable primitive arrays: the features of example {@code i} are
+ * {@code features[i * 3 .. i * 3 + 2]} in {@link PredictionModel#FEATURES} order, with
+ * {@code NaN} for a feature the source does not have. Not thread-safe.
+ */
+public final class TrainingSet {
+
+    static final int WIDTH = PredictionModel.FEATURES.length;
+
+    private double[] features = new double[1024 * WIDTH];
+    private boolean[] labels = new boolean[1024];
+    private int size;
+
+    public void add(double seaLevel, double erosionRate, double precipitation, boolean label) {
+        if (size == labels.length) {
+            features = Arrays.copyOf(features, features.length * 2);
+            labels = Arrays.copyOf(labels, labels.length * 2);
+        }
+        int base = size * WIDTH;
+        features[base] = seaLevel;
+        features[base + 1] = erosionRate;
+        features[base + 2] = precipitation;
+        labels[size++] = label;
+    }
+
+    /**
+     * Append all examples of {@code other}
+     */
+    public void addAll(TrainingSet other) {
+        if (size + other.size > labels.length) {
+            int capacity = Math.max(labels.length * 2, size + other.size);
+            features = Arrays.copyOf(features, capacity * WIDTH);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        System.arraycopy(other.features, 0, features, size * WIDTH, other.size * WIDTH);
+        System.arraycopy(other.labels, 0, labels, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    double feature(int example, int feature) {
+        return features[example * WIDTH + feature];
+    }
+
+    boolean label(int example) {
+        return labels[example];
+    }
+}
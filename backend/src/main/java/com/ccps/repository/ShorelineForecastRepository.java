@@ -0,0 +1,18 @@
+package com.clr.repository;
+
+import com.clr.model.ShorelineForecast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ShorelineForecastRepository extends JpaRepository<ShorelineForecast, ShorelineForecast.Key> {
+
+    List<ShorelineForecast> findByYearOrderByTransectIdAsc(int year);
+
+    /**
+     * @param regionKey {@link com.clr.model.Regions#key} of the region
+     */
+    List<ShorelineForecast> findByRegionKeyAndYearOrderByTransectIdAsc(String regionKey, int year);
+}
@@ -0,0 +1,21 @@
+package com.clr.repository;
+
+import com.clr.model.TransectChangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransectChangeRateRepository extends JpaRepository<TransectChangeRate, Long> {
+
+    Optional<TransectChangeRate> findByTransectId(String transectId);
+
+    List<TransectChangeRate> findAllByOrderByTransectIdAsc();
+
+    /**
+     * @param regionKey {@link com.clr.model.Regions#key} of the region
+     */
+    List<TransectChangeRate> findByRegionKeyOrderByTransectIdAsc(String regionKey);
+}
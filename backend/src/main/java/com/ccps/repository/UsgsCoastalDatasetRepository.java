@@ -1,16 +1,35 @@
 package com.clr.repository;
 
 import com.clr.model.UsgsCoastalDataset;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UsgsCoastalDatasetRepository extends JpaRepository<UsgsCoastalDataset, Long> {
 
+    /**
+     * Offset page without the COUNT(*) query that {@code findAll(Pageable)} issues
+     */
+    Slice<UsgsCoastalDataset> findAllBy(Pageable pageable);
+
+    /**
+     * Keyset page: rows strictly after the given id, walking the primary key index
+     */
+    Slice<UsgsCoastalDataset> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     List<UsgsCoastalDataset> findByRegionIgnoreCase(String region);
     
     List<UsgsCoastalDataset> findByLocationContainingIgnoreCase(String location);
@@ -26,9 +45,34 @@ public interface UsgsCoastalDatasetRepository extends JpaRepository<UsgsCoastalD
     @Query("SELECT u FROM UsgsCoastalDataset u WHERE u.erosionRate > ?1 ORDER BY u.erosionRate DESC")
     List<UsgsCoastalDataset> findHighErosionAreas(Double threshold);
     
+    /**
+     * Cursor over the rows matching the optional filters, in id order. Must be consumed inside a
+     * transaction and closed; the driver fetches {@code 1000} rows per round trip instead of all at once.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM UsgsCoastalDataset u " +
+           "WHERE (:region IS NULL OR LOWER(u.region) = LOWER(:region)) " +
+           "AND (:start IS NULL OR u.measurementDate >= :start) " +
+           "AND (:end IS NULL OR u.measurementDate <= :end) " +
+           "ORDER BY u.id")
+    Stream<UsgsCoastalDataset> streamFiltered(@Param("region") String region,
+                                              @Param("start") LocalDate start,
+                                              @Param("end") LocalDate end);
+    
+    /**
+     * Measurements within {@code radiusInMeters} of the point, nearest first. Uses the GiST index
+     * on the {@code geog} column created by {@code SpatialSchemaInitializer} (PostGIS only).
+     */
     @Query(value = "SELECT * FROM usgs_coastal_datasets u " +
-           "WHERE ST_Distance(ST_MakePoint(u.longitude, u.latitude), ST_MakePoint(?1, ?2)) <= ?3 " +
-           "ORDER BY ST_Distance(ST_MakePoint(u.longitude, u.latitude), ST_MakePoint(?1, ?2))",
+           "WHERE ST_DWithin(u.geog, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, :radius) " +
+           "ORDER BY u.geog <-> ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography " +
+           "LIMIT :limit",
            nativeQuery = true)
-    List<UsgsCoastalDataset> findNearbyMeasurements(Double longitude, Double latitude, Double radiusInKm);
+    List<UsgsCoastalDataset> findNearbyMeasurements(@Param("longitude") double longitude,
+                                                    @Param("latitude") double latitude,
+                                                    @Param("radius") double radiusInMeters,
+                                                    @Param("limit") int limit);
 }
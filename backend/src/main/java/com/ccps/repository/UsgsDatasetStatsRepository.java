@@ -0,0 +1,16 @@
+package com.clr.repository;
+
+import com.clr.model.StatsScope;
+import com.clr.model.UsgsDatasetStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UsgsDatasetStatsRepository extends JpaRepository<UsgsDatasetStats, Long> {
+
+    List<UsgsDatasetStats> findByScopeOrderByRegionAscLocationAscYearAscTransectIdAsc(StatsScope scope);
+
+    List<UsgsDatasetStats> findByScopeAndRegionIgnoreCaseOrderByLocationAscYearAscTransectIdAsc(StatsScope scope, String region);
+}
@@ -0,0 +1,13 @@
+package com.clr.repository;
+
+import com.clr.model.UsgsImportState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UsgsImportStateRepository extends JpaRepository<UsgsImportState, Long> {
+
+    Optional<UsgsImportState> findBySourceUrl(String sourceUrl);
+}
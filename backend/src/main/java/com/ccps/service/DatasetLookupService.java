@@ -0,0 +1,35 @@
+package com.clr.service;
+
+import com.clr.config.CachingConfig;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Cached distinct-value and count lookups over the USGS datasets. Keys are the current
+ * dataset version, so the first call after an import runs the query again.
+ */
+@Service
+@RequiredArgsConstructor
+public class DatasetLookupService {
+
+    private final UsgsCoastalDatasetRepository datasetRepository;
+
+    @Cacheable(cacheNames = CachingConfig.DATASET_REGIONS, keyGenerator = CachingConfig.DATASET_VERSION_KEY)
+    public List<String> getRegions() {
+        return datasetRepository.findDistinctRegions();
+    }
+
+    @Cacheable(cacheNames = CachingConfig.DATASET_LOCATIONS, keyGenerator = CachingConfig.DATASET_VERSION_KEY)
+    public List<String> getLocations() {
+        return datasetRepository.findDistinctLocations();
+    }
+
+    @Cacheable(cacheNames = CachingConfig.DATASET_COUNT, keyGenerator = CachingConfig.DATASET_VERSION_KEY)
+    public long getCount() {
+        return datasetRepository.count();
+    }
+}
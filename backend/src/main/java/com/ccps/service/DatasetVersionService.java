@@ -0,0 +1,39 @@
+package com.clr.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version number of the USGS dataset table, bumped whenever an import changes it.
+ * Caches and derived views key their entries by this number instead of tracking
+ * individual writes. Seeded from the clock so versions do not repeat across restarts.
+ */
+@Service
+public class DatasetVersionService {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile Instant lastModified = Instant.now();
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * When the version last changed, for {@code Last-Modified} headers
+     */
+    public Instant lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Advance the version after the table has changed
+     *
+     * @return the new version
+     */
+    public long bump() {
+        lastModified = Instant.now();
+        return version.incrementAndGet();
+    }
+}
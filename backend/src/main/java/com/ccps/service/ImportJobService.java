@@ -0,0 +1,126 @@
+package com.clr.service;
+
+import com.clr.ingest.ImportJob;
+import com.clr.ingest.ImportStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Runs imports as background jobs on the import executor and keeps track of them.
+ * A trigger for a source that already has a queued or running job returns that job
+ * instead of starting a second one.
+ */
+@Service
+@Slf4j
+public class ImportJobService {
+
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ImportJob> activeBySource = new ConcurrentHashMap<>();
+
+    public ImportJobService(@Qualifier("importExecutor") ThreadPoolTaskExecutor importExecutor) {
+        this.importExecutor = importExecutor;
+    }
+
+    /**
+     * Start a job for the source, or return the one already active for it
+     */
+    public ImportJob submit(String source, Function<ImportJob, ImportStats> task) {
+        ImportJob candidate = new ImportJob(source);
+        ImportJob job = activeBySource.merge(source, candidate,
+                (existing, created) -> existing.isFinished() ? created : existing);
+        if (job != candidate) {
+            log.info("Import of {} already in progress as job {}", source, job.getId());
+            return job;
+        }
+
+        jobs.put(job.getId(), job);
+        pruneFinishedJobs();
+        try {
+            job.attach(importExecutor.submit(() -> run(job, task)));
+            log.info("Queued import job {} for {}", job.getId(), source);
+        } catch (TaskRejectedException e) {
+            job.failed("Import queue is full");
+            activeBySource.remove(source, job);
+        }
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<ImportJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Request cancellation of a job
+     *
+     * @return the job, or empty if it is unknown
+     */
+    public Optional<ImportJob> cancel(String id) {
+        ImportJob job = jobs.get(id);
+        if (job != null && job.cancel()) {
+            log.info("Cancellation requested for import job {}", id);
+            if (job.isFinished()) {
+                activeBySource.remove(job.getSource(), job);
+            }
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private void run(ImportJob job, Function<ImportJob, ImportStats> task) {
+        if (job.isCancelled()) {
+            return;
+        }
+        job.started();
+        try {
+            job.completed(task.apply(job));
+            log.info("Import job {} finished: {}", job.getId(), job.getPhase());
+        } catch (RuntimeException e) {
+            if (job.isCancelled()) {
+                job.failed("Cancelled");
+                log.info("Import job {} cancelled after {} rows", job.getId(), job.getRowsProcessed());
+            } else {
+                job.failed(rootMessage(e));
+                log.error("Import job {} failed", job.getId(), e);
+            }
+        } finally {
+            activeBySource.remove(job.getSource(), job);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() <= MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(ImportJob::isFinished)
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt))
+                .limit(jobs.size() - MAX_RETAINED_JOBS)
+                .forEach(old -> jobs.remove(old.getId()));
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
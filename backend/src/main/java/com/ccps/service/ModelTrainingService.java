@@ -0,0 +1,194 @@
+package com.clr.service;
+
+import com.clr.prediction.FeatureExtractionTask;
+import com.clr.prediction.LogisticRegressionTrainer;
+import com.clr.prediction.ModelArtifactStore;
+import com.clr.prediction.ModelComparison;
+import com.clr.prediction.ModelInfo;
+import com.clr.prediction.PredictionModel;
+import com.clr.prediction.TrainingDataExtractor;
+import com.clr.prediction.TrainingSet;
+import com.clr.repository.CoastalDataRepository;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Trains, stores and activates the prediction models used by {@link PredictionService}.
+ * <p>
+ * Training runs as a background job on a single thread whenever the shoreline snapshot is
+ * rebuilt from a dataset version the active model has not seen, or on request. Requests that
+ * arrive while one is queued are coalesced. The USGS examples are extracted per transect on the
+ * shared analytics fork-join pool and the model is fitted by Newton iterations; each result is written as a
+ * new version by {@link ModelArtifactStore} and then swapped into the prediction service,
+ * which keeps scoring with the previous model until that moment. Stored versions can be
+ * re-activated (rollback) and compared on the current data.
+ */
+@Service
+@Slf4j
+public class ModelTrainingService {
+
+    private final CoastalDataRepository coastalDataRepository;
+    private final ShorelineSnapshotService snapshotService;
+    private final PredictionService predictionService;
+    private final ModelArtifactStore store;
+    private final LogisticRegressionTrainer trainer = new LogisticRegressionTrainer();
+    private final double highErosionThreshold;
+    private final ForkJoinPool pool;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "model-training");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    public ModelTrainingService(CoastalDataRepository coastalDataRepository,
+                                ShorelineSnapshotService snapshotService,
+                                PredictionService predictionService,
+                                ModelArtifactStore store,
+                                ForkJoinPool analyticsPool,
+                                @Value("${prediction.high-erosion-threshold:1.0}") double highErosionThreshold) {
+        this.coastalDataRepository = coastalDataRepository;
+        this.snapshotService = snapshotService;
+        this.predictionService = predictionService;
+        this.store = store;
+        this.highErosionThreshold = highErosionThreshold;
+        this.pool = analyticsPool;
+    }
+
+    /**
+     * Serve the model that was active before the restart until a new one is trained
+     */
+    @PostConstruct
+    public void restoreActiveModel() {
+        OptionalLong active = store.activeVersion();
+        if (active.isPresent()) {
+            store.load(active.getAsLong()).ifPresent(model -> {
+                predictionService.activate(model);
+                log.info("Restored prediction model version {}", model.getVersion());
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener
+    public void onSnapshotRebuilt(ShorelineSnapshotRebuiltEvent event) {
+        if (event.getSnapshot().getVersion() != predictionService.getModel().getDatasetVersion()) {
+            requestTraining();
+        }
+    }
+
+    /**
+     * Queue a training run unless one is already waiting
+     *
+     * @return whether a run was queued
+     */
+    public boolean requestTraining() {
+        if (!queued.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            queued.set(false);
+            try {
+                train();
+            } catch (RuntimeException e) {
+                log.error("Model training failed", e);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Train on the current data, store the result as a new version and activate it
+     *
+     * @return the new model, or empty when there is nothing to train on
+     */
+    public synchronized Optional<PredictionModel> train() {
+        long start = System.nanoTime();
+        ShorelineSnapshot snapshot = snapshotService.current().orElse(null);
+        TrainingSet set = trainingSet(snapshot);
+        if (set.size() == 0) {
+            log.info("No training examples, keeping prediction model version {}",
+                    predictionService.getModel().getVersion());
+            return Optional.empty();
+        }
+        PredictionModel model = trainer.fit(set)
+                .withVersion(store.nextVersion(), snapshot != null ? snapshot.getVersion() : -1);
+        store.save(model);
+        store.setActiveVersion(model.getVersion());
+        predictionService.activate(model);
+        log.info("Trained prediction model version {} on {} examples in {} ms", model.getVersion(), set.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(model);
+    }
+
+    /**
+     * Switch back (or forward) to a stored version
+     *
+     * @return the activated model, or empty if the version is not stored
+     */
+    public synchronized Optional<PredictionModel> activate(long version) {
+        Optional<PredictionModel> model = store.load(version);
+        model.ifPresent(m -> {
+            store.setActiveVersion(version);
+            predictionService.activate(m);
+            log.info("Activated prediction model version {}", version);
+        });
+        return model;
+    }
+
+    /**
+     * Stored versions, newest first
+     */
+    public List<ModelInfo> getModels() {
+        long active = predictionService.getModel().getVersion();
+        List<ModelInfo> models = new ArrayList<>();
+        List<Long> versions = store.versions();
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            store.load(versions.get(i)).ifPresent(m -> models.add(ModelInfo.of(m, m.getVersion() == active)));
+        }
+        return models;
+    }
+
+    /**
+     * Evaluate two stored versions on the examples of the current data
+     *
+     * @return the comparison, or empty if either version is not stored
+     */
+    public Optional<ModelComparison> compare(long a, long b) {
+        Optional<PredictionModel> modelA = store.load(a);
+        Optional<PredictionModel> modelB = store.load(b);
+        if (modelA.isEmpty() || modelB.isEmpty()) {
+            return Optional.empty();
+        }
+        TrainingSet set = trainingSet(snapshotService.current().orElse(null));
+        return Optional.of(ModelComparison.of(modelA.get(), modelB.get(), set));
+    }
+
+    private TrainingSet trainingSet(ShorelineSnapshot snapshot) {
+        TrainingSet set = new TrainingSet();
+        TrainingDataExtractor.addCoastalData(coastalDataRepository.findAll(), highErosionThreshold, set);
+        if (snapshot != null) {
+            set.addAll(pool.invoke(new FeatureExtractionTask(snapshot, snapshot.groupByTransect(), highErosionThreshold)));
+        }
+        return set;
+    }
+}
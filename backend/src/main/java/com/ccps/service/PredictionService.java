@@ -2,9 +2,60 @@ package com.clr.service;
 
 import com.clr.model.CoastalData;
 import com.clr.model.PredictionResult;
+import com.clr.prediction.PredictionModel;
+import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores {@link CoastalData} with a logistic {@link PredictionModel} of high erosion.
+ * <p>
+ * Models are trained by {@link ModelTrainingService} and swapped in through a volatile field:
+ * scoring threads read it once per call and never block on training.
+ */
+@Service
 public class PredictionService {
+
+    private volatile PredictionModel model = PredictionModel.untrained();
+
     public PredictionResult predict(CoastalData data) {
-        return new PredictionResult();
+        return predict(model, data);
+    }
+
+    /**
+     * Score every record with the same model, in input order
+     */
+    public List<PredictionResult> predictBatch(List<CoastalData> batch) {
+        PredictionModel current = model;
+        List<PredictionResult> results = new ArrayList<>(batch.size());
+        for (CoastalData data : batch) {
+            results.add(predict(current, data));
+        }
+        return results;
+    }
+
+    /**
+     * Score with the given model, e.g. one read with {@link #getModel()} for other uses as well
+     */
+    public PredictionResult predict(PredictionModel model, CoastalData data) {
+        double likelihood = model.score(data.getSeaLevel(), data.getErosionRate(), data.getPrecipitation());
+        return new PredictionResult(data.getRegion(), data.getDate(), likelihood, model.getVersion());
+    }
+
+    /**
+     * Make {@code next} the model of all subsequent predictions; calls in flight finish with
+     * the model they started with
+     */
+    public void activate(PredictionModel next) {
+        model = next;
+    }
+
+    public long getModelVersion() {
+        return model.getVersion();
+    }
+
+    public PredictionModel getModel() {
+        return model;
     }
 }
@@ -0,0 +1,119 @@
+package com.clr.service;
+
+import com.clr.model.Regions;
+import com.clr.model.ShorelineForecast;
+import com.clr.repository.ShorelineForecastRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maintains the {@code usgs_shoreline_forecasts} grid behind {@code /api/predictions/forecast}.
+ * <p>
+ * Whenever the shoreline snapshot is rebuilt, {@link TransectChangeRateService} projects the
+ * positions of every transect to each configured horizon year in the same fork-join pass that
+ * computes the rates, and the grid is replaced here in one transaction with JDBC batches. Reads are an index lookup on
+ * (year) or (region key, year), already in transect order, and never touch the measurements.
+ */
+@Service
+@Slf4j
+public class ShorelineForecastService {
+
+    static final String DELETE_SQL = "DELETE FROM usgs_shoreline_forecasts";
+    static final String INSERT_SQL = "INSERT INTO usgs_shoreline_forecasts "
+            + "(transect_id, forecast_year, region, region_key, location, position, lower_bound, upper_bound, rate) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ShorelineForecastRepository forecastRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int[] horizons;
+
+    private volatile long version = -1;
+
+    public ShorelineForecastService(ShorelineForecastRepository forecastRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${usgs.forecast.horizon-years:2030,2040,2050,2075,2100}") int[] horizons) {
+        this.forecastRepository = forecastRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.horizons = Arrays.stream(horizons).distinct().sorted().toArray();
+    }
+
+    /**
+     * Dataset version of the snapshot the stored grid was computed from, or -1 before the first refresh
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Years the grid holds projections for, ascending
+     */
+    public int[] getHorizons() {
+        return horizons.clone();
+    }
+
+    public boolean isHorizon(int year) {
+        return Arrays.binarySearch(horizons, year) >= 0;
+    }
+
+    /**
+     * Projections of all transects for a horizon year, optionally restricted to a region,
+     * ordered by transect id
+     */
+    public List<ShorelineForecast> getForecast(String region, int year) {
+        if (region == null || region.isBlank()) {
+            return forecastRepository.findByYearOrderByTransectIdAsc(year);
+        }
+        return forecastRepository.findByRegionKeyAndYearOrderByTransectIdAsc(Regions.key(region), year);
+    }
+
+    /**
+     * Replace the stored grid with the given projections of the snapshot of dataset version
+     * {@code snapshotVersion}, laid out by {@link com.clr.stats.TransectRateTask}; null slots
+     * are transects that could not be projected
+     */
+    public synchronized void replace(ShorelineForecast[] computed, long snapshotVersion) {
+        long start = System.currentTimeMillis();
+        try {
+            List<ShorelineForecast> rows = new ArrayList<>(computed.length);
+            for (ShorelineForecast forecast : computed) {
+                if (forecast != null) {
+                    rows.add(forecast);
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> store(rows));
+            version = snapshotVersion;
+            log.info("Shoreline forecasts for {} years stored in {} ms, {} rows",
+                    horizons.length, System.currentTimeMillis() - start, rows.size());
+        } catch (Exception e) {
+            log.error("Failed to store shoreline forecasts, keeping the previous ones", e);
+        }
+    }
+
+    private void store(List<ShorelineForecast> rows) {
+        jdbcTemplate.update(DELETE_SQL);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, f) -> {
+            ps.setString(1, f.getTransectId());
+            ps.setInt(2, f.getYear());
+            ps.setString(3, f.getRegion());
+            ps.setString(4, f.getRegionKey());
+            ps.setString(5, f.getLocation());
+            ps.setDouble(6, f.getPosition());
+            ps.setObject(7, f.getLowerBound(), Types.DOUBLE);
+            ps.setObject(8, f.getUpperBound(), Types.DOUBLE);
+            ps.setDouble(9, f.getRate());
+        });
+    }
+}
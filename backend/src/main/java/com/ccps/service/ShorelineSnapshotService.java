@@ -0,0 +1,112 @@
+package com.clr.service;
+
+import com.clr.ingest.UsgsDatasetImportedEvent;
+import com.clr.snapshot.ShorelineQueryEngine;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Holds the columnar {@link ShorelineSnapshot} used by in-memory queries and the
+ * {@link ShorelineQueryEngine} that scans it. The snapshot is rebuilt after every import and
+ * swapped in atomically, then announced with a {@link ShorelineSnapshotRebuiltEvent}; the
+ * spatial index, stats and analytics are derived from it instead of reading the table again.
+ */
+@Service
+@Slf4j
+public class ShorelineSnapshotService {
+
+    private static final String LOAD_SQL = "SELECT id, transect_id, region, location, latitude, longitude, "
+            + "erosion_rate, shoreline_position, shore_pos_uncert, measurement_date FROM usgs_coastal_datasets ORDER BY id";
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatasetVersionService datasetVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ShorelineQueryEngine queryEngine;
+
+    private volatile ShorelineSnapshot snapshot;
+
+    public ShorelineSnapshotService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    DatasetVersionService datasetVersionService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${usgs.query.vectorized:true}") boolean vectorized) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.datasetVersionService = datasetVersionService;
+        this.eventPublisher = eventPublisher;
+        this.queryEngine = ShorelineQueryEngine.create(vectorized);
+        log.info("Shoreline queries use the {} filter kernel", queryEngine.getKernelName());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onDatasetImported(UsgsDatasetImportedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * The current snapshot, or empty until the first build has finished
+     */
+    public Optional<ShorelineSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    public ShorelineQueryEngine getQueryEngine() {
+        return queryEngine;
+    }
+
+    /**
+     * Load all rows and replace the current snapshot
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        long version = datasetVersionService.current();
+        try {
+            ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(LOAD_SQL);
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, rs -> {
+                Date date = rs.getDate("measurement_date");
+                builder.add(rs.getLong("id"), rs.getString("transect_id"), rs.getString("region"),
+                        rs.getString("location"), getDouble(rs, "latitude"), getDouble(rs, "longitude"),
+                        getDouble(rs, "erosion_rate"), getDouble(rs, "shoreline_position"),
+                        getDouble(rs, "shore_pos_uncert"), date == null ? null : date.toLocalDate());
+            }));
+            ShorelineSnapshot built = builder.build(version);
+            snapshot = built;
+            log.info("Shoreline snapshot rebuilt with {} rows for dataset version {} in {} ms",
+                    built.size(), version, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild shoreline snapshot, keeping the previous one", e);
+            return;
+        }
+        eventPublisher.publishEvent(new ShorelineSnapshotRebuiltEvent(snapshot));
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
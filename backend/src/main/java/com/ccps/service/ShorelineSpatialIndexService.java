@@ -0,0 +1,65 @@
+package com.clr.service;
+
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import com.clr.spatial.ShorelineSpatialIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Holds the in-memory {@link ShorelineSpatialIndex} used by the bbox and k-nearest endpoints.
+ * The index is built from every new {@link ShorelineSnapshot}, which already holds the
+ * coordinates, rates and dates it needs, so an import reads the table once for both. The
+ * build runs on the thread that publishes the snapshot (the import job's worker; at startup
+ * the main thread) and the result is swapped in atomically; queries keep using the previous
+ * index until the new one is complete.
+ */
+@Service
+@Slf4j
+public class ShorelineSpatialIndexService {
+
+    private volatile ShorelineSpatialIndex index;
+
+    @EventListener
+    public void onSnapshotRebuilt(ShorelineSnapshotRebuiltEvent event) {
+        rebuild(event.getSnapshot());
+    }
+
+    /**
+     * The current index, or empty until the first build has finished
+     */
+    public Optional<ShorelineSpatialIndex> current() {
+        return Optional.ofNullable(index);
+    }
+
+    /**
+     * Index the points of the snapshot that have both coordinates and replace the current index
+     */
+    public synchronized void rebuild(ShorelineSnapshot snapshot) {
+        long start = System.currentTimeMillis();
+        try {
+            ShorelineSpatialIndex.Builder builder = ShorelineSpatialIndex.builder();
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (snapshot.isNull(ShorelineSnapshot.Column.LATITUDE, i)
+                        || snapshot.isNull(ShorelineSnapshot.Column.LONGITUDE, i)) {
+                    continue;
+                }
+                double rate = snapshot.getErosionRate(i);
+                int epochDay = snapshot.getEpochDay(i);
+                builder.add(snapshot.getId(i), snapshot.getTransectId(i), snapshot.getLatitude(i),
+                        snapshot.getLongitude(i), Double.isNaN(rate) ? null : rate,
+                        epochDay == ShorelineSnapshot.NO_DATE ? null : LocalDate.ofEpochDay(epochDay));
+            }
+            ShorelineSpatialIndex built = builder.build(snapshot.getVersion());
+            index = built;
+            log.info("Spatial index rebuilt with {} points for dataset version {} in {} ms",
+                    built.size(), snapshot.getVersion(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild spatial index, keeping the previous one", e);
+        }
+    }
+}
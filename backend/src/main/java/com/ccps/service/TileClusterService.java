@@ -0,0 +1,45 @@
+package com.clr.service;
+
+import com.clr.cache.LruCache;
+import com.clr.model.ClusterTile;
+import com.clr.spatial.ShorelineSpatialIndex;
+import com.clr.tiles.TileBounds;
+import com.clr.tiles.TileClusterer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Serves clustered map tiles computed from the in-memory spatial index. Tiles are cached
+ * per dataset version, so each tile is aggregated once per import.
+ */
+@Service
+@Slf4j
+public class TileClusterService {
+
+    private final ShorelineSpatialIndexService spatialIndexService;
+    private final LruCache<TileKey, ClusterTile> cache;
+    private final int grid;
+
+    private record TileKey(long version, int z, int x, int y) {
+    }
+
+    public TileClusterService(ShorelineSpatialIndexService spatialIndexService,
+                              @Value("${usgs.tiles.cache-size:4096}") int cacheSize,
+                              @Value("${usgs.tiles.cluster-grid:8}") int grid) {
+        this.spatialIndexService = spatialIndexService;
+        this.cache = new LruCache<>(cacheSize);
+        this.grid = grid;
+    }
+
+    /**
+     * The clustered tile, or empty while the spatial index is still being built
+     */
+    public Optional<ClusterTile> getTile(int z, int x, int y) {
+        return spatialIndexService.current().map(index -> cache.computeIfAbsent(
+                new TileKey(index.getVersion(), z, x, y),
+                key -> TileClusterer.cluster(index, TileBounds.of(z, x, y), grid)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.clr.service;
+
+import com.clr.model.Regions;
+import com.clr.model.ShorelineForecast;
+import com.clr.model.TransectChangeRate;
+import com.clr.repository.TransectChangeRateRepository;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import com.clr.snapshot.TransectGroups;
+import com.clr.stats.TransectRateTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Maintains the {@code usgs_transect_rates} table behind {@code /api/usgs-datasets/transect-rates}.
+ * <p>
+ * Whenever the shoreline snapshot is rebuilt its rows are grouped by transect and the
+ * end-point, linear regression and weighted linear regression rates of every transect are
+ * computed on the shared analytics fork-join pool, one task per range of transects, so a
+ * recompute scales with the number of cores. The same pass projects every transect to the
+ * forecast horizons and hands the grid to {@link ShorelineForecastService}, so the
+ * measurements are accumulated once per import. As with the dataset stats only changed rate
+ * rows are written.
+ */
+@Service
+@Slf4j
+public class TransectChangeRateService {
+
+    private final TransectChangeRateRepository rateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShorelineForecastService forecastService;
+    private final ForkJoinPool pool;
+
+    private volatile long version = -1;
+
+    public TransectChangeRateService(TransectChangeRateRepository rateRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     ShorelineForecastService forecastService,
+                                     ForkJoinPool analyticsPool) {
+        this.rateRepository = rateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.forecastService = forecastService;
+        this.pool = analyticsPool;
+    }
+
+    @EventListener
+    public void onSnapshotRebuilt(ShorelineSnapshotRebuiltEvent event) {
+        refresh(event.getSnapshot());
+    }
+
+    /**
+     * Dataset version of the snapshot the stored rates were computed from, or -1 before the first refresh
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Rates of all transects, optionally restricted to a region, ordered by transect id
+     */
+    public List<TransectChangeRate> getRates(String region) {
+        if (region == null || region.isBlank()) {
+            return rateRepository.findAllByOrderByTransectIdAsc();
+        }
+        return rateRepository.findByRegionKeyOrderByTransectIdAsc(Regions.key(region));
+    }
+
+    public Optional<TransectChangeRate> getRate(String transectId) {
+        return rateRepository.findByTransectId(transectId);
+    }
+
+    /**
+     * Recompute the rates and forecasts of every transect in the snapshot, write the rates
+     * that changed and replace the forecast grid
+     */
+    public synchronized void refresh(ShorelineSnapshot snapshot) {
+        long start = System.currentTimeMillis();
+        TransectGroups groups;
+        TransectChangeRate[] computed;
+        ShorelineForecast[] forecasts;
+        try {
+            groups = snapshot.groupByTransect();
+            int[] horizons = forecastService.getHorizons();
+            computed = new TransectChangeRate[groups.count()];
+            forecasts = new ShorelineForecast[groups.count() * horizons.length];
+            pool.invoke(new TransectRateTask(snapshot, groups, horizons, computed, forecasts));
+        } catch (Exception e) {
+            log.error("Failed to compute transect change rates, keeping the previous ones", e);
+            return;
+        }
+        long computedAt = System.currentTimeMillis();
+        log.info("Transect change rates and forecasts computed for {} transects on {} threads in {} ms",
+                computed.length, pool.getParallelism(), computedAt - start);
+
+        try {
+            int[] written = transactionTemplate.execute(status -> store(computed));
+            version = snapshot.getVersion();
+            log.info("Transect change rates stored in {} ms, {} rows written, {} removed",
+                    System.currentTimeMillis() - computedAt, written[0], written[1]);
+        } catch (Exception e) {
+            log.error("Failed to store transect change rates, keeping the previous ones", e);
+        }
+        forecastService.replace(forecasts, snapshot.getVersion());
+    }
+
+    private int[] store(TransectChangeRate[] computed) {
+        Map<String, TransectChangeRate> stored = new HashMap<>();
+        for (TransectChangeRate rate : rateRepository.findAll()) {
+            stored.put(rate.getTransectId(), rate);
+        }
+
+        Instant now = Instant.now();
+        List<TransectChangeRate> changed = new ArrayList<>();
+        for (TransectChangeRate rate : computed) {
+            TransectChangeRate existing = stored.remove(rate.getTransectId());
+            if (existing != null) {
+                rate.setId(existing.getId());
+                rate.setUpdatedAt(existing.getUpdatedAt());
+                if (rate.equals(existing)) {
+                    continue;
+                }
+            }
+            rate.setUpdatedAt(now);
+            changed.add(rate);
+        }
+
+        rateRepository.saveAll(changed);
+        // Transects no longer present in the dataset
+        rateRepository.deleteAllInBatch(stored.values());
+        return new int[]{changed.size(), stored.size()};
+    }
+}
@@ -1,37 +1,52 @@
 package com.clr.service;
 
-import com.clr.model.UsgsCoastalDataset;
+import com.clr.ingest.FetchedSource;
+import com.clr.ingest.ImportJob;
+import com.clr.ingest.ImportPhase;
+import com.clr.ingest.ImportProgress;
+import com.clr.ingest.ImportStats;
+import com.clr.ingest.UsgsCsvImportPipeline;
+import com.clr.ingest.UsgsDatasetImportedEvent;
+import com.clr.ingest.UsgsSourceFetcher;
+import com.clr.model.UsgsImportState;
 import com.clr.repository.UsgsCoastalDatasetRepository;
+import com.clr.repository.UsgsImportStateRepository;
+import com.clr.stats.DatasetSketches;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.URL;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 @Service
+@DependsOn("spatialSchemaInitializer") // the geography column is added before the startup import writes
 @RequiredArgsConstructor
 @Slf4j
 public class UsgsDataImportService {
 
+    static final String JOB_SOURCE_PREFIX = "usgs-datasets:";
+
     private final UsgsCoastalDatasetRepository datasetRepository;
-    private final ResourceLoader resourceLoader;
-    private final RestTemplate restTemplate;
+    private final UsgsImportStateRepository importStateRepository;
+    private final UsgsSourceFetcher sourceFetcher;
+    private final UsgsCsvImportPipeline importPipeline;
+    private final ImportJobService importJobService;
+    private final DatasetVersionService datasetVersionService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Value("${usgs.data.import.enabled:true}")
     private boolean importEnabled;
@@ -39,12 +54,12 @@ public class UsgsDataImportService {
     @Value("${usgs.data.url:https://cmgds.marine.usgs.gov/data/whcmsc/data-release/doi-F73J3B0B/data/shorelines/mass_shorelines_1800s_to_2018.csv}")
     private String usgsDataUrl;
     
-    public UsgsDataImportService(UsgsCoastalDatasetRepository datasetRepository, ResourceLoader resourceLoader) {
-        this.datasetRepository = datasetRepository;
-        this.resourceLoader = resourceLoader;
-        this.restTemplate = new RestTemplateBuilder().build();
-    }
-
+    @Value("${usgs.data.sha256:}")
+    private String usgsDataSha256;
+    
+    @Value("${usgs.import.memory-mapped:true}")
+    private boolean memoryMapped;
+    
     /**
      * Import USGS data on application startup if enabled and the database is empty
      */
@@ -52,209 +67,143 @@ public class UsgsDataImportService {
     public void initializeData() {
         if (importEnabled && datasetRepository.count() == 0) {
             log.info("Initializing USGS coastal data from {}", usgsDataUrl);
-            try {
-                importDataFromUrl();
-            } catch (Exception e) {
-                log.error("Failed to initialize USGS data", e);
-            }
+            // The table is empty, so the remembered source state no longer describes it
+            startImport(true);
         }
     }
     
     /**
-     * Scheduled task to refresh USGS data weekly
+     * Scheduled task to refresh USGS data weekly. Skips the import when the source is unchanged.
      */
     @Scheduled(cron = "0 0 0 * * 0") // Every Sunday at midnight
     public void refreshData() {
         if (importEnabled) {
             log.info("Refreshing USGS coastal data");
-            try {
-                importDataFromUrl();
-            } catch (Exception e) {
-                log.error("Failed to refresh USGS data", e);
-            }
+            startImport(false);
         }
     }
     
     /**
-     * Import data from the USGS data URL
+     * Run the import as a background job. Returns the already active job if one is
+     * importing the same URL.
      */
-    public void importDataFromUrl() {
-        try {
-            log.info("Importing USGS data from URL: {}", usgsDataUrl);
-            
-            // For CSV files
-            if (usgsDataUrl.endsWith(".csv")) {
-                Resource resource = resourceLoader.getResource(usgsDataUrl);
-                importCsvData(resource);
-            } 
-            // For ZIP files
-            else if (usgsDataUrl.endsWith(".zip")) {
-                URL url = new URL(usgsDataUrl);
-                try (ZipInputStream zipIn = new ZipInputStream(url.openStream())) {
-                    ZipEntry entry;
-                    while ((entry = zipIn.getNextEntry()) != null) {
-                        if (entry.getName().endsWith(".csv")) {
-                            importCsvData(zipIn);
-                        }
-                    }
-                }
-            }
-            
-            log.info("USGS data import completed successfully");
-        } catch (Exception e) {
-            log.error("Error importing USGS data", e);
-            throw new RuntimeException("Failed to import USGS data", e);
-        }
+    public ImportJob startImport(boolean force) {
+        return importJobService.submit(JOB_SOURCE_PREFIX + usgsDataUrl, job -> importDataFromUrl(force, job));
     }
     
     /**
-     * Import data from a CSV resource
+     * Import data from the USGS data URL unless it is unchanged since the last import
      */
-    private void importCsvData(Resource resource) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream()))) {
-            processCSV(reader);
-        }
+    public ImportStats importDataFromUrl() {
+        return importDataFromUrl(false);
     }
     
-    /**
-     * Import data from a ZIP input stream
-     */
-    private void importCsvData(ZipInputStream zipIn) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zipIn))) {
-            processCSV(reader);
-        }
+    public ImportStats importDataFromUrl(boolean force) {
+        return importDataFromUrl(force, ImportProgress.NONE);
     }
     
     /**
-     * Process CSV data from a reader
+     * Import data from the USGS data URL. Rows are upserted by (transect id, measurement date),
+     * so re-importing the same release does not duplicate it; rows without a transect id are
+     * skipped. When the release repeats a key with different values, which row is kept is not
+     * defined (see {@link com.clr.ingest.UsgsDatasetJdbcWriter}).
+     *
+     * @param force import even if the source's validators or content hash match the last import
+     * @param progress receives phase changes and row counts, and can cancel the import
      */
-    private void processCSV(BufferedReader reader) throws IOException {
-        String line;
-        String[] headers = null;
-        List<UsgsCoastalDataset> datasets = new ArrayList<>();
-        
-        // Read header line
-        if ((line = reader.readLine()) != null) {
-            headers = line.split(",");
-        }
-        
-        // Process data lines
-        int count = 0;
-        while ((line = reader.readLine()) != null) {
-            String[] values = line.split(",");
-            UsgsCoastalDataset dataset = parseDatasetFromCsv(headers, values);
-            if (dataset != null) {
-                datasets.add(dataset);
-                count++;
-            }
+    public ImportStats importDataFromUrl(boolean force, ImportProgress progress) {
+        long start = System.currentTimeMillis();
+        try {
+            log.info("Importing USGS data from URL: {}", usgsDataUrl);
+            UsgsImportState state = importStateRepository.findBySourceUrl(usgsDataUrl).orElse(null);
+            // The import is an upsert: only into an empty table do the imported rows make up all of it
+            boolean emptyTable = datasetRepository.count() == 0;
+            progress.phase(ImportPhase.DOWNLOADING);
             
-            // Batch save every 1000 records
-            if (count % 1000 == 0) {
-                datasetRepository.saveAll(datasets);
-                datasets.clear();
-                log.info("Imported {} USGS coastal data records", count);
+            try (FetchedSource source = sourceFetcher.fetch(usgsDataUrl, force ? null : state, usgsDataSha256)) {
+                if (source.isNotModified()) {
+                    return ImportStats.sourceUnchanged(System.currentTimeMillis() - start);
+                }
+                if (!force && state != null && source.getContentHash().equals(state.getContentHash())) {
+                    log.info("USGS source content unchanged (sha256 {}), skipping import", source.getContentHash());
+                    recordImport(state, source, null);
+                    return ImportStats.sourceUnchanged(System.currentTimeMillis() - start);
+                }
+                
+                progress.phase(ImportPhase.IMPORTING);
+                ImportStats stats = ImportStats.empty();
+                // Summarized while the rows stream in, so the stats of a first import need no second pass
+                DatasetSketches sketches = emptyTable ? new DatasetSketches() : null;
+                // For ZIP files
+                if (usgsDataUrl.endsWith(".zip")) {
+                    try (ZipInputStream zipIn = new ZipInputStream(Files.newInputStream(source.getFile()))) {
+                        ZipEntry entry;
+                        while ((entry = zipIn.getNextEntry()) != null) {
+                            if (entry.getName().endsWith(".csv")) {
+                                stats = stats.plus(importCsvData(zipIn, progress, sketches));
+                            }
+                        }
+                    }
+                }
+                // For CSV files
+                else if (memoryMapped) {
+                    stats = importPipeline.run(source.getFile(), progress, sketches);
+                    log.info("Total USGS coastal data records imported: {} ({} rows/sec, memory-mapped)",
+                            stats.getRowsProcessed(), Math.round(stats.getRowsPerSecond()));
+                } else {
+                    try (InputStream in = Files.newInputStream(source.getFile())) {
+                        stats = importCsvData(in, progress, sketches);
+                    }
+                }
+                
+                recordImport(state, source, stats);
+                if (sketches != null && stats.getRowsInserted() != stats.getRecordsRead()) {
+                    // Repeated keys were sketched once per occurrence but stored once, and rows
+                    // without a transect id were sketched but not stored
+                    sketches = null;
+                }
+                if (stats.getRowsWritten() > 0) {
+                    long version = datasetVersionService.bump();
+                    eventPublisher.publishEvent(new UsgsDatasetImportedEvent(stats, version, sketches));
+                }
+                log.info("USGS data import completed successfully: {} inserted, {} updated, {} unchanged",
+                        stats.getRowsInserted(), stats.getRowsUpdated(), stats.getRowsUnchanged());
+                return stats;
             }
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error importing USGS data", e);
+            throw new RuntimeException("Failed to import USGS data", e);
         }
-        
-        // Save any remaining records
-        if (!datasets.isEmpty()) {
-            datasetRepository.saveAll(datasets);
-        }
-        
-        log.info("Total USGS coastal data records imported: {}", count);
     }
     
-    /**
-     * Parse a dataset from CSV values
-     */
-    private UsgsCoastalDataset parseDatasetFromCsv(String[] headers, String[] values) {
-        if (headers == null || values.length < headers.length) {
-            return null;
-        }
-        
-        UsgsCoastalDataset dataset = new UsgsCoastalDataset();
-        
-        for (int i = 0; i < headers.length; i++) {
-            String header = headers[i].trim();
-            String value = i < values.length ? values[i].trim() : "";
-            
-            switch (header.toLowerCase()) {
-                case "transect_id":
-                case "transectid":
-                    dataset.setTransectId(value);
-                    break;
-                case "latitude":
-                case "lat":
-                    dataset.setLatitude(parseDouble(value));
-                    break;
-                case "longitude":
-                case "long":
-                case "lon":
-                    dataset.setLongitude(parseDouble(value));
-                    break;
-                case "location":
-                    dataset.setLocation(value);
-                    break;
-                case "region":
-                    dataset.setRegion(value);
-                    break;
-                case "date":
-                case "measurement_date":
-                    dataset.setMeasurementDate(parseDate(value));
-                    break;
-                case "shore_pos_uncert":
-                case "uncertainty":
-                    dataset.setShorePosUncert(parseDouble(value));
-                    break;
-                case "shoreline_position":
-                case "position":
-                    dataset.setShorelinePosition(parseDouble(value));
-                    break;
-                case "shoreline_change":
-                case "change":
-                    dataset.setShorelineChange(parseDouble(value));
-                    break;
-                case "erosion_rate":
-                case "rate":
-                    dataset.setErosionRate(parseDouble(value));
-                    break;
-                case "metadata":
-                    dataset.setMetadata(value);
-                    break;
-                default:
-                    // Add other fields to metadata
-                    String currentMetadata = dataset.getMetadata();
-                    String newMetadata = (currentMetadata == null ? "" : currentMetadata + "; ") 
-                            + header + ": " + value;
-                    dataset.setMetadata(newMetadata);
-            }
+    private void recordImport(UsgsImportState state, FetchedSource source, ImportStats stats) {
+        if (state == null) {
+            state = new UsgsImportState();
+            state.setSourceUrl(usgsDataUrl);
         }
-        
-        return dataset;
-    }
-    
-    private Double parseDouble(String value) {
-        try {
-            return Double.parseDouble(value);
-        } catch (NumberFormatException e) {
-            return null;
+        state.setEtag(source.getEtag());
+        state.setLastModified(source.getLastModified());
+        state.setContentHash(source.getContentHash());
+        state.setImportedAt(Instant.now());
+        if (stats != null) {
+            state.setRowsInserted(stats.getRowsInserted());
+            state.setRowsUpdated(stats.getRowsUpdated());
+            state.setRowsUnchanged(stats.getRowsUnchanged());
         }
+        importStateRepository.save(state);
     }
     
-    private LocalDate parseDate(String value) {
-        try {
-            // Try different date formats
-            if (value.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                return LocalDate.parse(value);
-            } else if (value.matches("\\d{2}/\\d{2}/\\d{4}")) {
-                return LocalDate.parse(value, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-            } else if (value.matches("\\d{4}")) {
-                // Just a year, use January 1
-                return LocalDate.of(Integer.parseInt(value), 1, 1);
-            }
-        } catch (Exception e) {
-            // Ignore parsing errors
-        }
-        return null;
+    /**
+     * Import data from a CSV stream. The stream is left open so ZIP entries can follow.
+     */
+    private ImportStats importCsvData(InputStream in, ImportProgress progress, DatasetSketches sketches)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        ImportStats stats = importPipeline.run(reader, progress, sketches);
+        log.info("Total USGS coastal data records imported: {} ({} rows/sec)",
+                stats.getRowsProcessed(), Math.round(stats.getRowsPerSecond()));
+        return stats;
     }
 }
@@ -1,33 +1,52 @@
 package com.clr.service;
 
+import com.clr.config.CachingConfig;
+import com.clr.ingest.ArcGisPagedFetcher;
+import com.clr.ingest.ImportJob;
+import com.clr.ingest.ImportPhase;
+import com.clr.ingest.ImportProgress;
+import com.clr.ingest.ImportStats;
+import com.clr.ingest.UsgsCoastalDataJdbcWriter;
+import com.clr.ingest.WriteCounts;
 import com.clr.model.UsgsCoastalData;
 import com.clr.repository.UsgsCoastalDataRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.ResponseEntity;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class UsgsDataService {
 
+    static final String JOB_SOURCE = "usgs-arcgis";
+
     private final UsgsCoastalDataRepository usgsRepository;
-    private final RestTemplate restTemplate;
+    private final ArcGisPagedFetcher arcGisFetcher;
+    private final UsgsCoastalDataJdbcWriter usgsWriter;
+    private final ImportJobService importJobService;
+    private final DatasetVersionService datasetVersionService;
     
     @Value("${usgs.api.baseUrl:https://coastalmap.marine.usgs.gov/cmgp/rest/services}")
     private String usgsApiBaseUrl;
     
-    public UsgsDataService(UsgsCoastalDataRepository usgsRepository, RestTemplateBuilder restTemplateBuilder) {
+    public UsgsDataService(UsgsCoastalDataRepository usgsRepository, ArcGisPagedFetcher arcGisFetcher,
+                           UsgsCoastalDataJdbcWriter usgsWriter, ImportJobService importJobService,
+                           DatasetVersionService datasetVersionService) {
         this.usgsRepository = usgsRepository;
-        this.restTemplate = restTemplateBuilder.build();
+        this.arcGisFetcher = arcGisFetcher;
+        this.usgsWriter = usgsWriter;
+        this.importJobService = importJobService;
+        this.datasetVersionService = datasetVersionService;
     }
     
     public List<UsgsCoastalData> getAllUsgsData() {
@@ -46,6 +65,7 @@ public class UsgsDataService {
         return usgsRepository.findHighErosionAreas(threshold);
     }
     
+    @Cacheable(cacheNames = CachingConfig.USGS_LOCATIONS, keyGenerator = CachingConfig.DATASET_VERSION_KEY)
     public List<String> getAvailableLocations() {
         return usgsRepository.findDistinctLocations();
     }
@@ -53,54 +73,59 @@ public class UsgsDataService {
     // Scheduled task to fetch and update USGS data (runs weekly)
     @Scheduled(cron = "0 0 0 * * 0") // Every Sunday at midnight
     public void updateUsgsData() {
-        // Fetch data from USGS API
-        String url = usgsApiBaseUrl + "/CoastalChangeHazardsPortal/ShorelineChangeRates/MapServer/query?where=1%3D1&outFields=*&f=json";
-        
-        try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                List<Map<String, Object>> features = (List<Map<String, Object>>) responseBody.get("features");
-                
-                if (features != null) {
-                    List<UsgsCoastalData> usgsData = features.stream()
-                        .map(this::convertFeatureToUsgsData)
-                        .collect(Collectors.toList());
-                    
-                    usgsRepository.saveAll(usgsData);
-                }
-            }
-        } catch (Exception e) {
-            // Log error and continue
-            System.err.println("Error fetching USGS data: " + e.getMessage());
-        }
+        startUpdate();
     }
     
-    private UsgsCoastalData convertFeatureToUsgsData(Map<String, Object> feature) {
-        Map<String, Object> attributes = (Map<String, Object>) feature.get("attributes");
-        
-        UsgsCoastalData data = new UsgsCoastalData();
-        
-        // Map fields from USGS data to our model
-        if (attributes != null) {
-            data.setLocation((String) attributes.getOrDefault("LOCATION", "Unknown"));
-            data.setYear(((Number) attributes.getOrDefault("YEAR", 0)).intValue());
-            data.setErosionRate(((Number) attributes.getOrDefault("EPR", 0)).doubleValue());
-            data.setConfidence((String) attributes.getOrDefault("CONFIDENCE", "Medium"));
-            data.setDataSource("USGS Coastal Change Hazards Portal");
-            data.setDatasetName((String) attributes.getOrDefault("DATASET_NAME", "Unknown"));
-            data.setMethodType((String) attributes.getOrDefault("METHOD_TYPE", "Unknown"));
-            data.setUnitOfMeasure((String) attributes.getOrDefault("UNIT", "m/yr"));
-            
-            // Extract coordinates if available
-            Map<String, Object> geometry = (Map<String, Object>) feature.get("geometry");
-            if (geometry != null) {
-                data.setLongitude(((Number) geometry.getOrDefault("x", 0)).doubleValue());
-                data.setLatitude(((Number) geometry.getOrDefault("y", 0)).doubleValue());
+    /**
+     * Fetch the ArcGIS feed as a background job. Returns the already active job if one is running.
+     */
+    public ImportJob startUpdate() {
+        return importJobService.submit(JOB_SOURCE, this::fetchAndStoreUsgsData);
+    }
+    
+    /**
+     * Fetch every feature of the ArcGIS layer in pages and upsert each page by OBJECTID as one
+     * batch. Only a run that fetched the whole layer removes the rows of features no longer in
+     * it; a run that fails part way leaves the pages it wrote, which the next run completes.
+     */
+    public ImportStats fetchAndStoreUsgsData(ImportProgress progress) {
+        long start = System.currentTimeMillis();
+        String url = usgsApiBaseUrl + "/CoastalChangeHazardsPortal/ShorelineChangeRates/MapServer/query";
+
+        // Pages are stored as they arrive, downloading and importing overlap
+        progress.phase(ImportPhase.IMPORTING);
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        AtomicLong unchanged = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        Queue<long[]> objectIds = new ConcurrentLinkedQueue<>();
+        long fetched;
+        int removed = 0;
+        try {
+            fetched = arcGisFetcher.fetchAll(url, page -> {
+                WriteCounts counts = usgsWriter.write(page);
+                inserted.addAndGet(counts.getInserted());
+                updated.addAndGet(counts.getUpdated());
+                unchanged.addAndGet(counts.getUnchanged());
+                skipped.addAndGet(counts.getSkipped());
+                objectIds.add(page.stream().filter(d -> d.getObjectId() != null)
+                        .mapToLong(UsgsCoastalData::getObjectId).toArray());
+            }, progress);
+            long[] stored = objectIds.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            // A run that stored no feature is more likely a broken layer than an empty one
+            removed = stored.length == 0 ? 0 : usgsWriter.retainOnly(stored);
+            if (removed > 0) {
+                log.info("Removed {} rows of features no longer in the ArcGIS layer", removed);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (inserted.get() + updated.get() + removed > 0) {
+                // Invalidates the version-keyed lookup caches
+                datasetVersionService.bump();
             }
         }
-        
-        return data;
+        return new ImportStats(fetched, inserted.get(), updated.get(), unchanged.get(), skipped.get(),
+                System.currentTimeMillis() - start, false);
     }
 }
@@ -0,0 +1,162 @@
+package com.clr.service;
+
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the USGS dataset table to an output stream row by row, so heap use
+ * does not depend on the size of the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsgsDatasetExportService {
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final String[] CSV_COLUMNS = {
+            "id", "transect_id", "latitude", "longitude", "location", "region", "measurement_date",
+            "shore_pos_uncert", "shoreline_position", "shoreline_change", "erosion_rate", "metadata"
+    };
+
+    private final UsgsCoastalDatasetRepository datasetRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public enum ExportFormat {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        ExportFormat(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * Resolve a format from a request parameter, or null if it is not supported
+         */
+        public static ExportFormat fromParameter(String value) {
+            for (ExportFormat format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Write every row matching the filters to the output stream. Null filters match everything.
+     * Each entity is detached once written so the persistence context stays empty.
+     *
+     * @return the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, String region, LocalDate start, LocalDate end,
+                       OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        long rows;
+        try (Stream<UsgsCoastalDataset> stream = datasetRepository.streamFiltered(region, start, end)) {
+            Iterator<UsgsCoastalDataset> iterator = stream.iterator();
+            rows = format == ExportFormat.CSV ? writeCsv(iterator, out) : writeNdjson(iterator, out);
+        }
+        log.info("Exported {} USGS dataset rows as {} in {} ms", rows, format.getExtension(),
+                System.currentTimeMillis() - startTime);
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<UsgsCoastalDataset> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UsgsCoastalDataset.class);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                UsgsCoastalDataset dataset = rows.next();
+                writer.writeValue(generator, dataset);
+                generator.writeRaw('\n');
+                entityManager.detach(dataset);
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<UsgsCoastalDataset> rows, OutputStream out) throws IOException {
+        // Not closed: closing would close the response stream underneath it
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", CSV_COLUMNS));
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            UsgsCoastalDataset d = rows.next();
+            writer.write(String.valueOf(d.getId()));
+            writeCsvField(writer, d.getTransectId());
+            writeCsvField(writer, d.getLatitude());
+            writeCsvField(writer, d.getLongitude());
+            writeCsvField(writer, d.getLocation());
+            writeCsvField(writer, d.getRegion());
+            writeCsvField(writer, d.getMeasurementDate());
+            writeCsvField(writer, d.getShorePosUncert());
+            writeCsvField(writer, d.getShorelinePosition());
+            writeCsvField(writer, d.getShorelineChange());
+            writeCsvField(writer, d.getErosionRate());
+            writeCsvField(writer, d.getMetadata());
+            writer.write('\n');
+            entityManager.detach(d);
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
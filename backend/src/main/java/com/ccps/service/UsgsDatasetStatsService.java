@@ -0,0 +1,142 @@
+package com.clr.service;
+
+import com.clr.ingest.UsgsDatasetImportedEvent;
+import com.clr.model.StatsScope;
+import com.clr.model.UsgsDatasetStats;
+import com.clr.repository.UsgsDatasetStatsRepository;
+import com.clr.stats.DatasetSketches;
+import com.clr.stats.DatasetSketches.GroupKey;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import com.clr.stats.RateSketch;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the {@code usgs_dataset_stats} summary table behind {@code /api/usgs-datasets/stats}.
+ * <p>
+ * Every (region), (region, location), (region, year) and (region, location, transect) group
+ * is summarized by a mergeable {@link RateSketch}. When an import fills an empty table, the
+ * pipeline's sketches cover every row and the summaries are written straight from them. Any
+ * other import upserts into existing rows, so its summaries are sketched from the
+ * {@link ShorelineSnapshot} that is reloaded after every import, without reading the table
+ * again; the same goes for filling an empty summary table at startup. Whichever of the two
+ * arrives first for a dataset version is stored and the other is skipped. Only rows whose
+ * content changed are written and stale groups are deleted. Reads then cost O(groups)
+ * instead of O(rows).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsgsDatasetStatsService {
+
+    private final TransactionTemplate transactionTemplate;
+    private final UsgsDatasetStatsRepository statsRepository;
+    private final DatasetVersionService datasetVersionService;
+
+    private volatile long version = -1;
+
+    @PostConstruct
+    public void init() {
+        // The table survives restarts; once computed it is only rewritten after imports
+        if (statsRepository.count() > 0) {
+            version = datasetVersionService.current();
+        }
+    }
+
+    @EventListener
+    public void onDatasetImported(UsgsDatasetImportedEvent event) {
+        // Sketches are only published when they describe the whole table
+        if (event.getSketches() != null && event.getVersion() != version) {
+            store(event.getSketches(), event.getVersion());
+        }
+    }
+
+    @EventListener
+    public void onSnapshotRebuilt(ShorelineSnapshotRebuiltEvent event) {
+        ShorelineSnapshot snapshot = event.getSnapshot();
+        if (snapshot.getVersion() != version) {
+            long start = System.currentTimeMillis();
+            DatasetSketches sketches = DatasetSketches.of(snapshot);
+            log.info("Snapshot of {} rows sketched for stats in {} ms", snapshot.size(),
+                    System.currentTimeMillis() - start);
+            store(sketches, snapshot.getVersion());
+        }
+    }
+
+    /**
+     * Dataset version the stored summaries were computed from, or -1 before the first refresh
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Summary rows of one scope, optionally restricted to a region
+     */
+    public List<UsgsDatasetStats> getStats(StatsScope scope, String region) {
+        if (region == null || region.isBlank()) {
+            return statsRepository.findByScopeOrderByRegionAscLocationAscYearAscTransectIdAsc(scope);
+        }
+        return statsRepository.findByScopeAndRegionIgnoreCaseOrderByLocationAscYearAscTransectIdAsc(scope, region);
+    }
+
+    /**
+     * Write the summaries of the given sketches as the stats of dataset version {@code sketchedVersion}.
+     * The sketches must cover the whole table: groups they lack are deleted.
+     */
+    public synchronized void store(DatasetSketches sketches, long sketchedVersion) {
+        if (sketchedVersion == version) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            int[] written = transactionTemplate.execute(status -> write(sketches));
+            version = sketchedVersion;
+            log.info("Dataset stats stored in {} ms: {} groups, {} rows written, {} removed",
+                    System.currentTimeMillis() - start, sketches.getGroups().size(), written[0], written[1]);
+        } catch (Exception e) {
+            log.error("Failed to store dataset stats, keeping the previous ones", e);
+        }
+    }
+
+    private int[] write(DatasetSketches sketches) {
+        Map<GroupKey, UsgsDatasetStats> stored = new HashMap<>();
+        for (UsgsDatasetStats stats : statsRepository.findAll()) {
+            stored.put(GroupKey.of(stats), stats);
+        }
+
+        Instant now = Instant.now();
+        List<UsgsDatasetStats> changed = new ArrayList<>();
+        for (Map.Entry<GroupKey, RateSketch> entry : sketches.getGroups().entrySet()) {
+            GroupKey key = entry.getKey();
+            UsgsDatasetStats computed = entry.getValue().applyTo(key.newStats());
+
+            UsgsDatasetStats existing = stored.remove(key);
+            if (existing != null) {
+                computed.setId(existing.getId());
+                computed.setUpdatedAt(existing.getUpdatedAt());
+                if (computed.equals(existing)) {
+                    continue;
+                }
+            }
+            computed.setUpdatedAt(now);
+            changed.add(computed);
+        }
+
+        statsRepository.saveAll(changed);
+        // Whatever is left no longer has any records
+        statsRepository.deleteAllInBatch(stored.values());
+        return new int[]{changed.size(), stored.size()};
+    }
+}
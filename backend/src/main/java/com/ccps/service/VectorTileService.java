@@ -0,0 +1,32 @@
+package com.clr.service;
+
+import com.clr.cache.LruCache;
+import com.clr.spatial.ShorelineSpatialIndex;
+import com.clr.tiles.MvtEncoder;
+import com.clr.tiles.TileBounds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves Mapbox Vector Tiles of the shoreline points. Encoded tiles are cached by
+ * (dataset version, z, x, y) in an LRU cache bounded by total bytes, so each tile is
+ * encoded once per import and the cache never needs explicit invalidation.
+ */
+@Service
+public class VectorTileService {
+
+    private final LruCache<TileKey, byte[]> cache;
+
+    private record TileKey(long version, int z, int x, int y) {
+    }
+
+    public VectorTileService(@Value("${usgs.tiles.mvt-cache-entries:16384}") int maxEntries,
+                             @Value("${usgs.tiles.mvt-cache-bytes:67108864}") long maxBytes) {
+        this.cache = new LruCache<>(maxEntries, maxBytes, tile -> tile.length);
+    }
+
+    public byte[] getTile(ShorelineSpatialIndex index, int z, int x, int y) {
+        return cache.computeIfAbsent(new TileKey(index.getVersion(), z, x, y),
+                key -> MvtEncoder.encode(index, TileBounds.of(z, x, y)));
+    }
+}
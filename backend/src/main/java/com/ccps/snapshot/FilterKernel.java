@@ -0,0 +1,20 @@
+package com.clr.snapshot;
+
+/**
+ * Evaluates range predicates over a snapshot column into a selection bitset: bit
+ * {@code i % 64} of word {@code i / 64} stays set only if row {@code i} is in range.
+ * Words that are already zero may be skipped. NaN values are never in range.
+ */
+interface FilterKernel {
+
+    String name();
+
+    /** Keep rows with {@code values[i] > threshold} */
+    void andGreaterThan(double[] values, double threshold, long[] selection, int size);
+
+    /** Keep rows with {@code lo <= values[i] <= hi} */
+    void andBetween(double[] values, double lo, double hi, long[] selection, int size);
+
+    /** Keep rows with {@code lo <= values[i] <= hi} */
+    void andBetween(int[] values, int lo, int hi, long[] selection, int size);
+}
@@ -0,0 +1,36 @@
+package com.clr.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the filter kernel: the Vector API one when the incubator module is in the boot
+ * layer, the scalar one otherwise
+ */
+@Slf4j
+public final class FilterKernels {
+
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.clr.snapshot.VectorFilterKernel";
+
+    private FilterKernels() {
+    }
+
+    static FilterKernel scalar() {
+        return new ScalarFilterKernel();
+    }
+
+    /**
+     * The vector kernel if the JVM supports it and {@code preferVector} is set, else the scalar one
+     */
+    static FilterKernel select(boolean preferVector) {
+        if (preferVector && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // Loaded by name so this class links without the incubator module
+                return (FilterKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API kernel unavailable, using the scalar kernel", e);
+            }
+        }
+        return scalar();
+    }
+}
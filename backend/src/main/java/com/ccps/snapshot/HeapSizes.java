@@ -0,0 +1,32 @@
+package com.clr.snapshot;
+
+/**
+ * Shallow heap size estimates for a 64-bit JVM with compressed oops and compact strings
+ */
+final class HeapSizes {
+
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+    static final int BOXED_DOUBLE = 16;
+    static final int BOXED_LONG = 16;
+    static final int LOCAL_DATE = 24;
+
+    private HeapSizes() {
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long array(long length, int elementBytes) {
+        return align(ARRAY_HEADER + length * elementBytes);
+    }
+
+    /**
+     * A String and its byte[] of Latin-1 characters, or 0 for null
+     */
+    static long string(String value) {
+        return value == null ? 0 : 24 + array(value.length(), 1);
+    }
+}
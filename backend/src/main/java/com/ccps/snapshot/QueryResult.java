@@ -0,0 +1,14 @@
+package com.clr.snapshot;
+
+import lombok.Value;
+
+/**
+ * Matching snapshot rows of a {@link ShorelineQuery}: the total number of matches and
+ * the returned row numbers, at most the query limit
+ */
+@Value
+public class QueryResult {
+
+    int matched;
+    int[] rows;
+}
@@ -0,0 +1,63 @@
+package com.clr.snapshot;
+
+/**
+ * Portable kernel. The inner loops are branch-free over one 64-row word, which keeps them
+ * short and lets the JIT unroll and, where it can, auto-vectorize them.
+ */
+final class ScalarFilterKernel implements FilterKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void andGreaterThan(double[] values, double threshold, long[] selection, int size) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int n = Math.min(64, size - base);
+            long bits = 0;
+            for (int j = 0; j < n; j++) {
+                bits |= (values[base + j] > threshold ? 1L : 0L) << j;
+            }
+            selection[w] &= bits;
+        }
+    }
+
+    @Override
+    public void andBetween(double[] values, double lo, double hi, long[] selection, int size) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int n = Math.min(64, size - base);
+            long bits = 0;
+            for (int j = 0; j < n; j++) {
+                double v = values[base + j];
+                bits |= (v >= lo & v <= hi ? 1L : 0L) << j;
+            }
+            selection[w] &= bits;
+        }
+    }
+
+    @Override
+    public void andBetween(int[] values, int lo, int hi, long[] selection, int size) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int n = Math.min(64, size - base);
+            long bits = 0;
+            for (int j = 0; j < n; j++) {
+                int v = values[base + j];
+                bits |= (v >= lo & v <= hi ? 1L : 0L) << j;
+            }
+            selection[w] &= bits;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.clr.snapshot;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Combined filter over the shoreline snapshot. Null fields match everything; the bounding
+ * box applies only when all four edges are given.
+ */
+@Value
+@Builder
+public class ShorelineQuery {
+
+    /** Region, compared ignoring case */
+    String region;
+
+    /** Inclusive measurement date range */
+    LocalDate start;
+    LocalDate end;
+
+    /** Erosion rate must be strictly greater */
+    Double minErosionRate;
+
+    /** Inclusive bounding box in degrees */
+    Double south;
+    Double west;
+    Double north;
+    Double east;
+
+    /** Maximum number of rows returned; all matches are still counted */
+    @Builder.Default
+    int limit = Integer.MAX_VALUE;
+
+    /** Return the {@code limit} highest erosion rates, highest first, instead of row order */
+    boolean topByErosionRate;
+
+    boolean hasBox() {
+        return south != null && west != null && north != null && east != null;
+    }
+}
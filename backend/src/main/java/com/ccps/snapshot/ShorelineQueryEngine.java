@@ -0,0 +1,236 @@
+package com.clr.snapshot;
+
+import java.util.Arrays;
+
+/**
+ * Runs {@link ShorelineQuery} filters over a {@link ShorelineSnapshot}.
+ * <p>
+ * The query is compiled into a sequence of column range checks, each narrowing a selection
+ * bitset in one pass over a primitive array (see {@link FilterKernel}). Region and date, usually
+ * the most selective, run first so later passes skip empty words. Top-K by erosion rate uses a
+ * bounded heap and sorts only the K survivors.
+ */
+public final class ShorelineQueryEngine {
+
+    private final FilterKernel kernel;
+
+    ShorelineQueryEngine(FilterKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * Engine on the Vector API kernel when available and wanted, the scalar kernel otherwise
+     */
+    public static ShorelineQueryEngine create(boolean preferVector) {
+        return new ShorelineQueryEngine(FilterKernels.select(preferVector));
+    }
+
+    public static ShorelineQueryEngine scalar() {
+        return new ShorelineQueryEngine(FilterKernels.scalar());
+    }
+
+    public String getKernelName() {
+        return kernel.name();
+    }
+
+    public QueryResult execute(ShorelineSnapshot snapshot, ShorelineQuery query) {
+        int size = snapshot.size();
+        long[] selection = selectAll(size);
+
+        boolean[] regionMatch = null;
+        if (query.getRegion() != null) {
+            regionMatch = snapshot.regions.matchIgnoreCase(query.getRegion());
+            int only = singleMatch(regionMatch);
+            if (only == StringDictionary.NO_CODE) {
+                return new QueryResult(0, new int[0]);
+            }
+            if (only >= 0) {
+                // The common case: one spelling of the region, an integer equality scan
+                kernel.andBetween(snapshot.regionCodes, only, only, selection, size);
+                regionMatch = null;
+            }
+        }
+        if (query.getStart() != null || query.getEnd() != null) {
+            // NO_DATE is below every real date, so unknown dates never match
+            int from = query.getStart() == null ? ShorelineSnapshot.NO_DATE + 1 : (int) query.getStart().toEpochDay();
+            int to = query.getEnd() == null ? Integer.MAX_VALUE : (int) query.getEnd().toEpochDay();
+            kernel.andBetween(snapshot.epochDays, from, to, selection, size);
+        }
+        if (query.getMinErosionRate() != null) {
+            kernel.andGreaterThan(snapshot.rates, query.getMinErosionRate(), selection, size);
+        }
+        if (query.hasBox()) {
+            kernel.andBetween(snapshot.lats, query.getSouth(), query.getNorth(), selection, size);
+            kernel.andBetween(snapshot.lons, query.getWest(), query.getEast(), selection, size);
+        }
+
+        return query.isTopByErosionRate()
+                ? topByRate(snapshot, selection, regionMatch, query.getLimit())
+                : inRowOrder(snapshot, selection, regionMatch, query.getLimit());
+    }
+
+    private static long[] selectAll(int size) {
+        long[] selection = new long[(size + 63) >>> 6];
+        Arrays.fill(selection, -1L);
+        if ((size & 63) != 0) {
+            selection[selection.length - 1] = (1L << size) - 1;
+        }
+        return selection;
+    }
+
+    /**
+     * The only matching code, {@link StringDictionary#NO_CODE} for none, or -2 for several
+     */
+    private static int singleMatch(boolean[] matches) {
+        int found = StringDictionary.NO_CODE;
+        for (int code = 0; code < matches.length; code++) {
+            if (matches[code]) {
+                if (found != StringDictionary.NO_CODE) {
+                    return -2;
+                }
+                found = code;
+            }
+        }
+        return found;
+    }
+
+    private static boolean regionMatches(ShorelineSnapshot snapshot, boolean[] regionMatch, int row) {
+        int code = snapshot.regionCodes[row];
+        return regionMatch == null || (code != StringDictionary.NO_CODE && regionMatch[code]);
+    }
+
+    private static QueryResult inRowOrder(ShorelineSnapshot snapshot, long[] selection, boolean[] regionMatch, int limit) {
+        int[] rows = new int[Math.min(limit, 1024)];
+        int returned = 0;
+        int matched = 0;
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            while (word != 0) {
+                int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (!regionMatches(snapshot, regionMatch, row)) {
+                    continue;
+                }
+                matched++;
+                if (returned < limit) {
+                    if (returned == rows.length) {
+                        rows = Arrays.copyOf(rows, (int) Math.min((long) rows.length * 2, limit));
+                    }
+                    rows[returned++] = row;
+                }
+            }
+        }
+        return new QueryResult(matched, Arrays.copyOf(rows, returned));
+    }
+
+    /**
+     * Rows without an erosion rate match but cannot rank, so they are counted and not returned
+     */
+    private static QueryResult topByRate(ShorelineSnapshot snapshot, long[] selection, boolean[] regionMatch, int limit) {
+        double[] rates = snapshot.rates;
+        TopKHeap heap = new TopKHeap(Math.max(0, Math.min(limit, snapshot.size())));
+        int matched = 0;
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            while (word != 0) {
+                int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (!regionMatches(snapshot, regionMatch, row)) {
+                    continue;
+                }
+                matched++;
+                if (!Double.isNaN(rates[row])) {
+                    heap.offer(rates[row], row);
+                }
+            }
+        }
+        return new QueryResult(matched, heap.drainDescending());
+    }
+
+    /**
+     * Bounded min-heap of (rate, row) keeping the {@code capacity} highest rates; ties keep
+     * the lower row number
+     */
+    static final class TopKHeap {
+        private final double[] rate;
+        private final int[] row;
+        private int count;
+
+        TopKHeap(int capacity) {
+            this.rate = new double[capacity];
+            this.row = new int[capacity];
+        }
+
+        void offer(double r, int s) {
+            if (count < rate.length) {
+                int i = count++;
+                rate[i] = r;
+                row[i] = s;
+                siftUp(i);
+            } else if (count > 0 && worse(0, r, s)) {
+                rate[0] = r;
+                row[0] = s;
+                siftDown(0);
+            }
+        }
+
+        int[] drainDescending() {
+            int[] result = new int[count];
+            // Popping the minimum repeatedly fills the result from the back
+            while (count > 0) {
+                result[count - 1] = row[0];
+                count--;
+                rate[0] = rate[count];
+                row[0] = row[count];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        /** Whether the entry at {@code i} ranks below (r, s) */
+        private boolean worse(int i, double r, int s) {
+            return rate[i] < r || (rate[i] == r && row[i] > s);
+        }
+
+        private boolean less(int a, int b) {
+            return worse(a, rate[b], row[b]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, smallest = i;
+                if (left < count && less(left, smallest)) {
+                    smallest = left;
+                }
+                if (right < count && less(right, smallest)) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double r = rate[a];
+            rate[a] = rate[b];
+            rate[b] = r;
+            int s = row[a];
+            row[a] = row[b];
+            row[b] = s;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.clr.snapshot;
+
+import com.clr.model.ShorelinePoint;
+import com.clr.model.SnapshotFootprint;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented copy of the shoreline dataset.
+ * <p>
+ * Every column is one primitive array indexed by row: coordinates and measurements are
+ * {@code double[]} holding {@code NaN} for null, dates are epoch days in an {@code int[]}
+ * holding {@link #NO_DATE} for null, and the region, location and transect strings are
+ * dictionary codes. A null bitmap per nullable column records which values are present
+ * (a NaN input counts as missing). Scans run over contiguous memory without unboxing, and
+ * the whole copy is a fraction of the size of the equivalent entity list (see
+ * {@link #footprint()}).
+ */
+public final class ShorelineSnapshot {
+
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Nullable columns that carry a null bitmap
+     */
+    public enum Column {
+        LATITUDE, LONGITUDE, EROSION_RATE, SHORELINE_POSITION, SHORE_POS_UNCERT, MEASUREMENT_DATE
+    }
+
+    private final int size;
+    private final long version;
+
+    final long[] ids;
+    final double[] lats;
+    final double[] lons;
+    final double[] rates;
+    final double[] positions;
+    final double[] uncertainties;
+    final int[] epochDays;
+    final int[] regionCodes;
+    final int[] locationCodes;
+    final int[] transectCodes;
+    final StringDictionary regions;
+    final StringDictionary locations;
+    final StringDictionary transects;
+    private final long[][] present;
+
+    private ShorelineSnapshot(Builder b, long version) {
+        this.size = b.size;
+        this.version = version;
+        this.ids = Arrays.copyOf(b.ids, size);
+        this.lats = Arrays.copyOf(b.lats, size);
+        this.lons = Arrays.copyOf(b.lons, size);
+        this.rates = Arrays.copyOf(b.rates, size);
+        this.positions = Arrays.copyOf(b.positions, size);
+        this.uncertainties = Arrays.copyOf(b.uncertainties, size);
+        this.epochDays = Arrays.copyOf(b.epochDays, size);
+        this.regionCodes = Arrays.copyOf(b.regionCodes, size);
+        this.locationCodes = Arrays.copyOf(b.locationCodes, size);
+        this.transectCodes = Arrays.copyOf(b.transectCodes, size);
+        this.regions = b.regions.build();
+        this.locations = b.locations.build();
+        this.transects = b.transects.build();
+
+        // Derived from the values: the builder writes NaN and NO_DATE only for missing values
+        this.present = new long[Column.values().length][(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            mark(Column.LATITUDE, i, !Double.isNaN(lats[i]));
+            mark(Column.LONGITUDE, i, !Double.isNaN(lons[i]));
+            mark(Column.EROSION_RATE, i, !Double.isNaN(rates[i]));
+            mark(Column.SHORELINE_POSITION, i, !Double.isNaN(positions[i]));
+            mark(Column.SHORE_POS_UNCERT, i, !Double.isNaN(uncertainties[i]));
+            mark(Column.MEASUREMENT_DATE, i, epochDays[i] != NO_DATE);
+        }
+    }
+
+    private void mark(Column column, int row, boolean isPresent) {
+        if (isPresent) {
+            present[column.ordinal()][row >>> 6] |= 1L << row;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Dataset version the snapshot was built from
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isNull(Column column, int row) {
+        return (present[column.ordinal()][row >>> 6] & (1L << row)) == 0;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public String getRegion(int row) {
+        return regions.value(regionCodes[row]);
+    }
+
+    public String getLocation(int row) {
+        return locations.value(locationCodes[row]);
+    }
+
+    public String getTransectId(int row) {
+        return transects.value(transectCodes[row]);
+    }
+
+    /** Latitude, {@code NaN} when missing */
+    public double getLatitude(int row) {
+        return lats[row];
+    }
+
+    /** Longitude, {@code NaN} when missing */
+    public double getLongitude(int row) {
+        return lons[row];
+    }
+
+    /** Erosion rate, {@code NaN} when missing */
+    public double getErosionRate(int row) {
+        return rates[row];
+    }
+
+    /** Shoreline position, {@code NaN} when missing */
+    public double getShorelinePosition(int row) {
+        return positions[row];
+    }
+
+    /** Shoreline position uncertainty, {@code NaN} when missing */
+    public double getShorePosUncert(int row) {
+        return uncertainties[row];
+    }
+
+    /** Measurement date as epoch day, {@link #NO_DATE} when missing */
+    public int getEpochDay(int row) {
+        return epochDays[row];
+    }
+
+    /**
+     * Group the rows by transect with a counting sort over the transect codes, O(rows)
+     */
+    public TransectGroups groupByTransect() {
+        int[] offsets = new int[transects.size() + 1];
+        for (int i = 0; i < size; i++) {
+            if (transectCodes[i] != StringDictionary.NO_CODE) {
+                offsets[transectCodes[i] + 1]++;
+            }
+        }
+        for (int g = 0; g < transects.size(); g++) {
+            offsets[g + 1] += offsets[g];
+        }
+        int[] next = Arrays.copyOf(offsets, transects.size());
+        int[] rows = new int[offsets[transects.size()]];
+        for (int i = 0; i < size; i++) {
+            if (transectCodes[i] != StringDictionary.NO_CODE) {
+                rows[next[transectCodes[i]]++] = i;
+            }
+        }
+        return new TransectGroups(this, offsets, rows);
+    }
+
+    /**
+     * Rows matching all given filters, in row order; null filters match everything.
+     * The region is compared ignoring case, the date range is inclusive and the erosion
+     * rate must be strictly greater than {@code minErosionRate}.
+     */
+    public int[] filter(String region, LocalDate start, LocalDate end, Double minErosionRate) {
+        ShorelineQuery query = ShorelineQuery.builder()
+                .region(region).start(start).end(end).minErosionRate(minErosionRate)
+                .build();
+        return ShorelineQueryEngine.scalar().execute(this, query).getRows();
+    }
+
+    public ShorelinePoint point(int row) {
+        return new ShorelinePoint(ids[row], getTransectId(row),
+                nullable(lats[row]), nullable(lons[row]), nullable(rates[row]),
+                epochDays[row] == NO_DATE ? null : LocalDate.ofEpochDay(epochDays[row]),
+                null);
+    }
+
+    private static Double nullable(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    /**
+     * Heap size of this snapshot next to an estimate for the same rows as loaded entities
+     */
+    public SnapshotFootprint footprint() {
+        Map<String, Long> columns = new LinkedHashMap<>();
+        columns.put("id", HeapSizes.array(size, 8));
+        columns.put("latitude", HeapSizes.array(size, 8));
+        columns.put("longitude", HeapSizes.array(size, 8));
+        columns.put("erosionRate", HeapSizes.array(size, 8));
+        columns.put("shorelinePosition", HeapSizes.array(size, 8));
+        columns.put("shorePosUncert", HeapSizes.array(size, 8));
+        columns.put("measurementDate", HeapSizes.array(size, 4));
+        columns.put("region", HeapSizes.array(size, 4) + regions.heapBytes());
+        columns.put("location", HeapSizes.array(size, 4) + locations.heapBytes());
+        columns.put("transectId", HeapSizes.array(size, 4) + transects.heapBytes());
+        columns.put("nullBitmaps", present.length * HeapSizes.array(present[0].length, 8));
+        long snapshotBytes = columns.values().stream().mapToLong(Long::longValue).sum();
+        return new SnapshotFootprint(version, size, columns, snapshotBytes, estimateEntityListBytes());
+    }
+
+    /**
+     * An ArrayList of entities as Hibernate loads them: one boxed value per non-null numeric
+     * field and a separate String instance per row for every text column, including the
+     * constant source columns. Metadata is not counted.
+     */
+    private long estimateEntityListBytes() {
+        // 15 fields as compressed references after the object header
+        long entity = HeapSizes.align(HeapSizes.OBJECT_HEADER + 15L * HeapSizes.REFERENCE);
+        long constantStrings = HeapSizes.string("USGS CMGDS") + HeapSizes.string("F73J3B0B")
+                + HeapSizes.string("https://cmgds.marine.usgs.gov/data/whcmsc/data-release/doi-F73J3B0B/");
+        long bytes = HeapSizes.array(size, HeapSizes.REFERENCE);
+        for (int i = 0; i < size; i++) {
+            bytes += entity + HeapSizes.BOXED_LONG + constantStrings;
+            for (Column column : Column.values()) {
+                if (!isNull(column, i)) {
+                    bytes += column == Column.MEASUREMENT_DATE ? HeapSizes.LOCAL_DATE : HeapSizes.BOXED_DOUBLE;
+                }
+            }
+            bytes += HeapSizes.string(getRegion(i)) + HeapSizes.string(getLocation(i)) + HeapSizes.string(getTransectId(i));
+        }
+        return bytes;
+    }
+
+    /**
+     * Accumulates rows in growable primitive arrays before the snapshot is built
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private double[] lats = new double[INITIAL_CAPACITY];
+        private double[] lons = new double[INITIAL_CAPACITY];
+        private double[] rates = new double[INITIAL_CAPACITY];
+        private double[] positions = new double[INITIAL_CAPACITY];
+        private double[] uncertainties = new double[INITIAL_CAPACITY];
+        private int[] epochDays = new int[INITIAL_CAPACITY];
+        private int[] regionCodes = new int[INITIAL_CAPACITY];
+        private int[] locationCodes = new int[INITIAL_CAPACITY];
+        private int[] transectCodes = new int[INITIAL_CAPACITY];
+        private final StringDictionary.Builder regions = new StringDictionary.Builder();
+        private final StringDictionary.Builder locations = new StringDictionary.Builder();
+        private final StringDictionary.Builder transects = new StringDictionary.Builder();
+        private int size;
+
+        public Builder add(long id, String transectId, String region, String location,
+                           Double latitude, Double longitude, Double erosionRate,
+                           Double shorelinePosition, Double shorePosUncert, LocalDate measurementDate) {
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            lats[size] = orNaN(latitude);
+            lons[size] = orNaN(longitude);
+            rates[size] = orNaN(erosionRate);
+            positions[size] = orNaN(shorelinePosition);
+            uncertainties[size] = orNaN(shorePosUncert);
+            epochDays[size] = measurementDate == null ? NO_DATE : (int) measurementDate.toEpochDay();
+            regionCodes[size] = regions.encode(region);
+            locationCodes[size] = locations.encode(location);
+            transectCodes[size] = transects.encode(transectId);
+            size++;
+            return this;
+        }
+
+        public ShorelineSnapshot build(long version) {
+            return new ShorelineSnapshot(this, version);
+        }
+
+        private static double orNaN(Double value) {
+            return value == null ? Double.NaN : value;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lons = Arrays.copyOf(lons, capacity);
+            rates = Arrays.copyOf(rates, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            uncertainties = Arrays.copyOf(uncertainties, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            regionCodes = Arrays.copyOf(regionCodes, capacity);
+            locationCodes = Arrays.copyOf(locationCodes, capacity);
+            transectCodes = Arrays.copyOf(transectCodes, capacity);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.clr.snapshot;
+
+import lombok.Value;
+
+/**
+ * Published after a new {@link ShorelineSnapshot} has been swapped in, so analytics derived
+ * from the snapshot run on the rows of the latest import rather than racing its rebuild
+ */
+@Value
+public class ShorelineSnapshotRebuiltEvent {
+
+    ShorelineSnapshot snapshot;
+}
@@ -0,0 +1,75 @@
+package com.clr.snapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of a string column: each distinct value is stored once and rows hold
+ * its int code. Codes are assigned in first-seen order; {@link #NO_CODE} stands for null.
+ */
+public final class StringDictionary {
+
+    public static final int NO_CODE = -1;
+
+    private final String[] values;
+
+    private StringDictionary(String[] values) {
+        this.values = values;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public String value(int code) {
+        return code == NO_CODE ? null : values[code];
+    }
+
+    /**
+     * Which codes equal the given value ignoring case, indexed by code
+     */
+    public boolean[] matchIgnoreCase(String value) {
+        boolean[] matches = new boolean[values.length];
+        for (int code = 0; code < values.length; code++) {
+            matches[code] = values[code].equalsIgnoreCase(value);
+        }
+        return matches;
+    }
+
+    /**
+     * Approximate retained heap size in bytes (compressed oops, Latin-1 strings)
+     */
+    long heapBytes() {
+        long bytes = HeapSizes.array(values.length, HeapSizes.REFERENCE);
+        for (String value : values) {
+            bytes += HeapSizes.string(value);
+        }
+        return bytes;
+    }
+
+    static final class Builder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[64];
+
+        int encode(String value) {
+            if (value == null) {
+                return NO_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                values[code] = value;
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        StringDictionary build() {
+            return new StringDictionary(Arrays.copyOf(values, codes.size()));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.clr.snapshot;
+
+/**
+ * Snapshot rows grouped by transect, in row order within each group. Group {@code g} is the
+ * transect with dictionary code {@code g}; its rows are {@code row(start(g))} up to but
+ * excluding {@code row(end(g))}. Rows without a transect id belong to no group.
+ */
+public final class TransectGroups {
+
+    private final ShorelineSnapshot snapshot;
+    private final int[] offsets;
+    private final int[] rows;
+
+    TransectGroups(ShorelineSnapshot snapshot, int[] offsets, int[] rows) {
+        this.snapshot = snapshot;
+        this.offsets = offsets;
+        this.rows = rows;
+    }
+
+    public int count() {
+        return offsets.length - 1;
+    }
+
+    public String transectId(int group) {
+        return snapshot.transects.value(group);
+    }
+
+    public int start(int group) {
+        return offsets[group];
+    }
+
+    public int end(int group) {
+        return offsets[group + 1];
+    }
+
+    public int row(int index) {
+        return rows[index];
+    }
+}
@@ -0,0 +1,91 @@
+package com.clr.snapshot;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel on the incubating Vector API. Each compare yields a lane mask whose bits are
+ * shifted into the selection word, so a 64-row word takes 64 / lanes compares. Only loaded
+ * when the JVM runs with {@code --add-modules jdk.incubator.vector}; see {@link FilterKernels}.
+ */
+final class VectorFilterKernel implements FilterKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Same lane count as DOUBLES, so both fill a word in the same steps
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    private static final int LANES = DOUBLES.length();
+
+    @Override
+    public String name() {
+        return "vector-" + LANES + "x" + DOUBLES.elementSize();
+    }
+
+    @Override
+    public void andGreaterThan(double[] values, double threshold, long[] selection, int size) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int n = Math.min(64, size - base);
+            long bits = 0;
+            int j = 0;
+            for (; j + LANES <= n; j += LANES) {
+                DoubleVector v = DoubleVector.fromArray(DOUBLES, values, base + j);
+                bits |= v.compare(VectorOperators.GT, threshold).toLong() << j;
+            }
+            for (; j < n; j++) {
+                bits |= (values[base + j] > threshold ? 1L : 0L) << j;
+            }
+            selection[w] &= bits;
+        }
+    }
+
+    @Override
+    public void andBetween(double[] values, double lo, double hi, long[] selection, int size) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int n = Math.min(64, size - base);
+            long bits = 0;
+            int j = 0;
+            for (; j + LANES <= n; j += LANES) {
+                DoubleVector v = DoubleVector.fromArray(DOUBLES, values, base + j);
+                bits |= v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi)).toLong() << j;
+            }
+            for (; j < n; j++) {
+                double v = values[base + j];
+                bits |= (v >= lo & v <= hi ? 1L : 0L) << j;
+            }
+            selection[w] &= bits;
+        }
+    }
+
+    @Override
+    public void andBetween(int[] values, int lo, int hi, long[] selection, int size) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int n = Math.min(64, size - base);
+            long bits = 0;
+            int j = 0;
+            for (; j + LANES <= n; j += LANES) {
+                IntVector v = IntVector.fromArray(INTS, values, base + j);
+                bits |= v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi)).toLong() << j;
+            }
+            for (; j < n; j++) {
+                int v = values[base + j];
+                bits |= (v >= lo & v <= hi ? 1L : 0L) << j;
+            }
+            selection[w] &= bits;
+        }
+    }
+}
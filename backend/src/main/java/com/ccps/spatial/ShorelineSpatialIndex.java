@@ -0,0 +1,423 @@
+package com.clr.spatial;
+
+import com.clr.model.ShorelinePoint;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable uniform-grid index over shoreline measurement points.
+ * <p>
+ * Points are bucketed into lat/lon cells sized for a handful of points each and stored
+ * cell by cell in parallel primitive arrays ({@code cellStart[c]..cellStart[c+1]} are the
+ * points of cell {@code c}), so a query touches only the cells overlapping its area and
+ * scans contiguous memory. Distances are great-circle kilometres.
+ */
+public final class ShorelineSpatialIndex {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    static final double KM_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_KM;
+    private static final int TARGET_POINTS_PER_CELL = 8;
+    private static final int MAX_CELLS = 1 << 22;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final int size;
+    private final long[] ids;
+    private final String[] transectIds;
+    private final double[] lats;
+    private final double[] lons;
+    private final double[] rates;
+    private final int[] epochDays;
+
+    private final double minLat;
+    private final double minLon;
+    private final double maxLat;
+    private final double maxLon;
+    private final double cellLat;
+    private final double cellLon;
+    private final int rows;
+    private final int cols;
+    private final int[] cellStart;
+    private final long version;
+
+    private ShorelineSpatialIndex(Builder b, long version) {
+        this.size = b.size;
+        this.version = version;
+
+        double loLat = Double.POSITIVE_INFINITY, hiLat = Double.NEGATIVE_INFINITY;
+        double loLon = Double.POSITIVE_INFINITY, hiLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            loLat = Math.min(loLat, b.lats[i]);
+            hiLat = Math.max(hiLat, b.lats[i]);
+            loLon = Math.min(loLon, b.lons[i]);
+            hiLon = Math.max(hiLon, b.lons[i]);
+        }
+        if (size == 0) {
+            loLat = hiLat = loLon = hiLon = 0;
+        }
+        this.minLat = loLat;
+        this.minLon = loLon;
+        this.maxLat = hiLat;
+        this.maxLon = hiLon;
+
+        double latSpan = Math.max(hiLat - loLat, 1e-9);
+        double lonSpan = Math.max(hiLon - loLon, 1e-9);
+        int cells = Math.max(1, Math.min(MAX_CELLS, size / TARGET_POINTS_PER_CELL));
+        int c = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * lonSpan / latSpan))));
+        int r = Math.max(1, cells / c);
+        this.cols = c;
+        this.rows = r;
+        // Slightly larger than span/count so the maximum coordinate still falls in the last cell
+        this.cellLat = latSpan / r * (1 + 1e-9);
+        this.cellLon = lonSpan / c * (1 + 1e-9);
+
+        // Counting sort of the points by cell
+        int[] cellOf = new int[size];
+        int[] counts = new int[rows * cols + 1];
+        for (int i = 0; i < size; i++) {
+            cellOf[i] = cell(row(b.lats[i]), col(b.lons[i]));
+            counts[cellOf[i] + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        this.cellStart = counts.clone();
+
+        this.ids = new long[size];
+        this.transectIds = new String[size];
+        this.lats = new double[size];
+        this.lons = new double[size];
+        this.rates = new double[size];
+        this.epochDays = new int[size];
+        int[] next = counts;
+        for (int i = 0; i < size; i++) {
+            int slot = next[cellOf[i]]++;
+            ids[slot] = b.ids[i];
+            transectIds[slot] = b.transectIds[i];
+            lats[slot] = b.lats[i];
+            lons[slot] = b.lons[i];
+            rates[slot] = b.rates[i];
+            epochDays[slot] = b.epochDays[i];
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Dataset version the index was built from
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Called for each point inside a box with the point's coordinates and erosion rate
+     * ({@code NaN} when unknown), without allocating a result object per point
+     */
+    @FunctionalInterface
+    public interface PointVisitor {
+        void visit(double lat, double lon, double erosionRate);
+    }
+
+    /**
+     * Visit every point inside the box (inclusive)
+     */
+    public void visitBox(double south, double west, double north, double east, PointVisitor visitor) {
+        if (size == 0 || south > maxLat || north < minLat || west > maxLon || east < minLon) {
+            return;
+        }
+        int r0 = row(south), r1 = row(north), c0 = col(west), c1 = col(east);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = cell(r, c);
+                for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+                    double lat = lats[i], lon = lons[i];
+                    if (lat >= south && lat <= north && lon >= west && lon <= east) {
+                        visitor.visit(lat, lon, rates[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Points inside the box (inclusive), in no particular order, at most {@code limit}
+     */
+    public List<ShorelinePoint> withinBox(double south, double west, double north, double east, int limit) {
+        List<ShorelinePoint> result = new ArrayList<>();
+        if (size == 0 || south > maxLat || north < minLat || west > maxLon || east < minLon) {
+            return result;
+        }
+        int r0 = row(south), r1 = row(north), c0 = col(west), c1 = col(east);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = cell(r, c);
+                for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+                    double lat = lats[i], lon = lons[i];
+                    if (lat >= south && lat <= north && lon >= west && lon <= east) {
+                        result.add(point(i, null));
+                        if (result.size() >= limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Points within {@code radiusKm} of the given point, nearest first, at most {@code limit}
+     */
+    public List<ShorelinePoint> withinRadius(double lat, double lon, double radiusKm, int limit) {
+        if (size == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double dLon = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(Math.min(Math.abs(lat) + dLat, 90))), 1e-6));
+        NearestHeap heap = new NearestHeap(limit);
+        double south = lat - dLat, north = lat + dLat, west = lon - dLon, east = lon + dLon;
+        if (south > maxLat || north < minLat || west > maxLon || east < minLon) {
+            return new ArrayList<>();
+        }
+        int r0 = row(south), r1 = row(north), c0 = col(west), c1 = col(east);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                scanCell(cell(r, c), lat, lon, radiusKm, heap);
+            }
+        }
+        return heap.drainSorted(this);
+    }
+
+    /**
+     * The {@code k} points nearest to the given point, nearest first
+     */
+    public List<ShorelinePoint> nearest(double lat, double lon, int k) {
+        if (size == 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+        NearestHeap heap = new NearestHeap(Math.min(k, size));
+        int row0 = row(lat), col0 = col(lon);
+        double cosMin = Math.max(Math.min(Math.min(cosDeg(minLat), cosDeg(maxLat)), cosDeg(lat)), 1e-6);
+        int maxRing = Math.max(rows, cols);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int rLo = row0 - ring, rHi = row0 + ring, cLo = col0 - ring, cHi = col0 + ring;
+            for (int r = Math.max(rLo, 0); r <= Math.min(rHi, rows - 1); r++) {
+                boolean edgeRow = r == rLo || r == rHi;
+                for (int c = Math.max(cLo, 0); c <= Math.min(cHi, cols - 1); c++) {
+                    if (edgeRow || c == cLo || c == cHi) {
+                        scanCell(cell(r, c), lat, lon, Double.POSITIVE_INFINITY, heap);
+                    }
+                }
+            }
+            if (rLo <= 0 && rHi >= rows - 1 && cLo <= 0 && cHi >= cols - 1) {
+                break;
+            }
+            if (heap.isFull() && heap.worst() <= unvisitedLowerBoundKm(lat, lon, rLo, rHi, cLo, cHi, cosMin)) {
+                break;
+            }
+        }
+        return heap.drainSorted(this);
+    }
+
+    /**
+     * Lower bound on the distance from the query to any point outside the visited block of cells
+     */
+    private double unvisitedLowerBoundKm(double lat, double lon, int rLo, int rHi, int cLo, int cHi, double cosMin) {
+        double bound = Double.POSITIVE_INFINITY;
+        if (rLo > 0) {
+            bound = Math.min(bound, Math.max(0, lat - (minLat + rLo * cellLat)) * KM_PER_DEGREE);
+        }
+        if (rHi < rows - 1) {
+            bound = Math.min(bound, Math.max(0, minLat + (rHi + 1) * cellLat - lat) * KM_PER_DEGREE);
+        }
+        // Longitude degrees shrink with latitude; cosMin keeps the bound conservative
+        if (cLo > 0) {
+            bound = Math.min(bound, Math.max(0, lon - (minLon + cLo * cellLon)) * KM_PER_DEGREE * cosMin * 0.99);
+        }
+        if (cHi < cols - 1) {
+            bound = Math.min(bound, Math.max(0, minLon + (cHi + 1) * cellLon - lon) * KM_PER_DEGREE * cosMin * 0.99);
+        }
+        return bound;
+    }
+
+    private void scanCell(int cell, double lat, double lon, double radiusKm, NearestHeap heap) {
+        for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+            double d = haversineKm(lat, lon, lats[i], lons[i]);
+            if (d <= radiusKm) {
+                heap.offer(d, i);
+            }
+        }
+    }
+
+    ShorelinePoint point(int i, Double distanceKm) {
+        return new ShorelinePoint(ids[i], transectIds[i], lats[i], lons[i],
+                Double.isNaN(rates[i]) ? null : rates[i],
+                epochDays[i] == NO_DATE ? null : LocalDate.ofEpochDay(epochDays[i]),
+                distanceKm);
+    }
+
+    private int row(double lat) {
+        return clamp((int) Math.floor((lat - minLat) / cellLat), rows);
+    }
+
+    private int col(double lon) {
+        return clamp((int) Math.floor((lon - minLon) / cellLon), cols);
+    }
+
+    private int cell(int row, int col) {
+        return row * cols + col;
+    }
+
+    private static int clamp(int value, int count) {
+        return value < 0 ? 0 : Math.min(value, count - 1);
+    }
+
+    private static double cosDeg(double degrees) {
+        return Math.cos(Math.toRadians(degrees));
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Bounded max-heap of (distance, slot) keeping the {@code capacity} smallest distances
+     */
+    private static final class NearestHeap {
+        private final double[] dist;
+        private final int[] slot;
+        private int count;
+
+        NearestHeap(int capacity) {
+            this.dist = new double[capacity];
+            this.slot = new int[capacity];
+        }
+
+        boolean isFull() {
+            return count == dist.length;
+        }
+
+        double worst() {
+            return dist[0];
+        }
+
+        void offer(double d, int s) {
+            if (count < dist.length) {
+                int i = count++;
+                dist[i] = d;
+                slot[i] = s;
+                siftUp(i);
+            } else if (d < dist[0]) {
+                dist[0] = d;
+                slot[0] = s;
+                siftDown(0);
+            }
+        }
+
+        List<ShorelinePoint> drainSorted(ShorelineSpatialIndex index) {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(dist[a], dist[b]));
+            List<ShorelinePoint> result = new ArrayList<>(count);
+            for (Integer i : order) {
+                result.add(index.point(slot[i], dist[i]));
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (dist[parent] >= dist[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, largest = i;
+                if (left < count && dist[left] > dist[largest]) {
+                    largest = left;
+                }
+                if (right < count && dist[right] > dist[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double d = dist[a];
+            dist[a] = dist[b];
+            dist[b] = d;
+            int s = slot[a];
+            slot[a] = slot[b];
+            slot[b] = s;
+        }
+    }
+
+    /**
+     * Accumulates points in growable primitive arrays before the index is built
+     */
+    public static final class Builder {
+        private long[] ids = new long[1024];
+        private String[] transectIds = new String[1024];
+        private double[] lats = new double[1024];
+        private double[] lons = new double[1024];
+        private double[] rates = new double[1024];
+        private int[] epochDays = new int[1024];
+        private int size;
+
+        /**
+         * Add a point. Points with missing or out-of-range coordinates are ignored.
+         */
+        public Builder add(long id, String transectId, double lat, double lon, Double erosionRate, LocalDate date) {
+            if (Double.isNaN(lat) || Double.isNaN(lon) || Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+                return this;
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                transectIds = Arrays.copyOf(transectIds, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+                rates = Arrays.copyOf(rates, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+            }
+            ids[size] = id;
+            transectIds[size] = transectId;
+            lats[size] = lat;
+            lons[size] = lon;
+            rates[size] = erosionRate == null ? Double.NaN : erosionRate;
+            epochDays[size] = date == null ? NO_DATE : (int) date.toEpochDay();
+            size++;
+            return this;
+        }
+
+        public ShorelineSpatialIndex build(long version) {
+            return new ShorelineSpatialIndex(this, version);
+        }
+    }
+}
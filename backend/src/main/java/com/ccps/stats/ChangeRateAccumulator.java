@@ -0,0 +1,175 @@
+package com.clr.stats;
+
+import com.clr.model.TransectChangeRate;
+
+import java.time.LocalDate;
+
+/**
+ * Collects the shoreline positions of one transect in a single pass: the first and last
+ * measurement for the end-point rate, and online (weighted) least-squares fits of position
+ * against time for the linear regression rates. Not thread-safe.
+ */
+public class ChangeRateAccumulator {
+
+    private static final double DAYS_PER_YEAR = 365.2425;
+    private static final double Z_975 = 1.959963984540054;
+
+    // Two-sided 95% critical values of Student's t for 1..30 degrees of freedom
+    private static final double[] T_975 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private int count;
+    private int firstDay;
+    private int lastDay;
+    private double firstPosition;
+    private double lastPosition;
+
+    // Ordinary fit over (years since epoch, position)
+    private double meanX;
+    private double meanY;
+    private double m2X;
+    private double m2Y;
+    private double coMoment;
+
+    // Fit weighted by 1 / uncertainty², same recurrences with weights
+    private int weightedCount;
+    private double weightSum;
+    private double wMeanX;
+    private double wMeanY;
+    private double wM2X;
+    private double wM2Y;
+    private double wCoMoment;
+
+    /**
+     * Add one measurement; rows without a position are ignored and {@code NaN} or
+     * non-positive uncertainties leave the row out of the weighted fit only
+     */
+    public void add(LocalDate date, double position, double uncertainty) {
+        if (date == null || Double.isNaN(position)) {
+            return;
+        }
+        int day = (int) date.toEpochDay();
+        if (count == 0 || day < firstDay) {
+            firstDay = day;
+            firstPosition = position;
+        }
+        if (count == 0 || day >= lastDay) {
+            lastDay = day;
+            lastPosition = position;
+        }
+        count++;
+
+        double x = day / DAYS_PER_YEAR;
+        double dx = x - meanX;
+        double dy = position - meanY;
+        meanX += dx / count;
+        meanY += dy / count;
+        m2X += dx * (x - meanX);
+        m2Y += dy * (position - meanY);
+        coMoment += dx * (position - meanY);
+
+        if (uncertainty > 0) {
+            double weight = 1 / (uncertainty * uncertainty);
+            weightedCount++;
+            weightSum += weight;
+            double wdx = x - wMeanX;
+            double wdy = position - wMeanY;
+            wMeanX += weight * wdx / weightSum;
+            wMeanY += weight * wdy / weightSum;
+            wM2X += weight * wdx * (x - wMeanX);
+            wM2Y += weight * wdy * (position - wMeanY);
+            wCoMoment += weight * wdx * (position - wMeanY);
+        }
+    }
+
+    /**
+     * Fill the rate columns of the given row. Rates need two measurements on different
+     * dates and confidence intervals a third.
+     */
+    public TransectChangeRate applyTo(TransectChangeRate rate) {
+        rate.setMeasurementCount(count);
+        if (count == 0) {
+            return rate;
+        }
+        rate.setFirstMeasurement(LocalDate.ofEpochDay(firstDay));
+        rate.setLastMeasurement(LocalDate.ofEpochDay(lastDay));
+        rate.setNetShorelineMovement(lastPosition - firstPosition);
+        if (lastDay > firstDay) {
+            rate.setEndPointRate((lastPosition - firstPosition) / ((lastDay - firstDay) / DAYS_PER_YEAR));
+        }
+
+        if (count > 1 && m2X > 0) {
+            double slope = coMoment / m2X;
+            rate.setLinearRegressionRate(slope);
+            rate.setLinearRegressionR2(m2Y > 0 ? coMoment * coMoment / (m2X * m2Y) : 1.0);
+            if (count > 2) {
+                double residual = Math.max(0, m2Y - slope * coMoment);
+                rate.setLinearRegressionCi95(tCritical95(count - 2) * Math.sqrt(residual / (count - 2) / m2X));
+            }
+        }
+        if (weightedCount > 1 && wM2X > 0) {
+            double slope = wCoMoment / wM2X;
+            rate.setWeightedLinearRate(slope);
+            if (weightedCount > 2) {
+                double residual = Math.max(0, wM2Y - slope * wCoMoment);
+                rate.setWeightedLinearCi95(tCritical95(weightedCount - 2)
+                        * Math.sqrt(residual / (weightedCount - 2) / wM2X));
+            }
+        }
+        return rate;
+    }
+
+    /**
+     * Whether the linear regression can be extrapolated: two measurements on different dates
+     */
+    public boolean canProject() {
+        return count > 1 && m2X > 0;
+    }
+
+    /**
+     * Slope of the linear regression, m/yr
+     */
+    public double regressionRate() {
+        return coMoment / m2X;
+    }
+
+    /**
+     * Position on the regression line at the given date
+     */
+    public double projectPosition(LocalDate date) {
+        double x = date.toEpochDay() / DAYS_PER_YEAR;
+        return meanY + regressionRate() * (x - meanX);
+    }
+
+    /**
+     * Half-width of the 95% prediction interval of a single position at the given date,
+     * widening with the distance from the measured period; {@code NaN} below three measurements
+     */
+    public double predictionInterval95(LocalDate date) {
+        if (count < 3) {
+            return Double.NaN;
+        }
+        double x = date.toEpochDay() / DAYS_PER_YEAR;
+        double residual = Math.max(0, m2Y - regressionRate() * coMoment);
+        double dx = x - meanX;
+        return tCritical95(count - 2) * Math.sqrt(residual / (count - 2) * (1 + 1.0 / count + dx * dx / m2X));
+    }
+
+    /**
+     * Two-sided 95% critical value of Student's t: tabulated up to 30 degrees of freedom,
+     * then the Cornish-Fisher expansion around the normal quantile
+     */
+    static double tCritical95(int degreesOfFreedom) {
+        if (degreesOfFreedom <= T_975.length) {
+            return T_975[degreesOfFreedom - 1];
+        }
+        double z = Z_975;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double v = degreesOfFreedom;
+        return z + (z3 + z) / (4 * v) + (5 * z5 + 16 * z3 + 3 * z) / (96 * v * v);
+    }
+}
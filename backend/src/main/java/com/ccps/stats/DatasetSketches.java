@@ -0,0 +1,102 @@
+package com.clr.stats;
+
+import com.clr.model.StatsScope;
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.model.UsgsDatasetStats;
+import com.clr.snapshot.ShorelineSnapshot;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link RateSketch}es of every (region), (region, location), (region, year) and
+ * (region, location, transect) group, filled one record at a time. Parse workers each keep
+ * their own instance and the results are combined with {@link #merge}. Not thread-safe.
+ */
+public class DatasetSketches {
+
+    /**
+     * Identity of one group, the unused parts null
+     */
+    public record GroupKey(StatsScope scope, String region, String location, Integer year, String transectId) {
+        public static GroupKey of(UsgsDatasetStats stats) {
+            return new GroupKey(stats.getScope(), stats.getRegion(), stats.getLocation(), stats.getYear(),
+                    stats.getTransectId());
+        }
+
+        /**
+         * A new stats row carrying this key
+         */
+        public UsgsDatasetStats newStats() {
+            UsgsDatasetStats stats = new UsgsDatasetStats();
+            stats.setScope(scope);
+            stats.setRegion(region);
+            stats.setLocation(location);
+            stats.setYear(year);
+            stats.setTransectId(transectId);
+            return stats;
+        }
+    }
+
+    private final Map<GroupKey, RateSketch> groups = new HashMap<>();
+
+    /**
+     * Sketches of every row of the snapshot, which after an import are those of the whole
+     * table without reading it again
+     */
+    public static DatasetSketches of(ShorelineSnapshot snapshot) {
+        DatasetSketches sketches = new DatasetSketches();
+        for (int i = 0; i < snapshot.size(); i++) {
+            double rate = snapshot.getErosionRate(i);
+            int epochDay = snapshot.getEpochDay(i);
+            sketches.add(snapshot.getRegion(i), snapshot.getLocation(i), snapshot.getTransectId(i),
+                    Double.isNaN(rate) ? null : rate,
+                    epochDay == ShorelineSnapshot.NO_DATE ? null : LocalDate.ofEpochDay(epochDay));
+        }
+        return sketches;
+    }
+
+    public void add(UsgsCoastalDataset dataset) {
+        add(dataset.getRegion(), dataset.getLocation(), dataset.getTransectId(),
+                dataset.getErosionRate(), dataset.getMeasurementDate());
+    }
+
+    public void add(String region, String location, String transectId, Double erosionRate, LocalDate date) {
+        sketch(new GroupKey(StatsScope.REGION, region, null, null, null)).add(transectId, erosionRate, date);
+        sketch(new GroupKey(StatsScope.LOCATION, region, location, null, null)).add(transectId, erosionRate, date);
+        if (date != null) {
+            sketch(new GroupKey(StatsScope.YEAR, region, null, date.getYear(), null)).add(transectId, erosionRate, date);
+        }
+        if (transectId != null) {
+            sketch(new GroupKey(StatsScope.TRANSECT, region, location, null, transectId))
+                    .add(transectId, erosionRate, date);
+        }
+    }
+
+    private RateSketch sketch(GroupKey key) {
+        // A transect group is one transect, counting it would only cost a 4 KiB register array
+        return groups.computeIfAbsent(key, k -> new RateSketch(k.scope() != StatsScope.TRANSECT));
+    }
+
+    /**
+     * Fold in the sketches of another, disjoint part of the input. {@code other} hands over
+     * its sketches and must not be used afterwards.
+     */
+    public void merge(DatasetSketches other) {
+        other.groups.forEach((key, sketch) -> {
+            RateSketch existing = groups.putIfAbsent(key, sketch);
+            if (existing != null) {
+                existing.merge(sketch);
+            }
+        });
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    public Map<GroupKey, RateSketch> getGroups() {
+        return groups;
+    }
+}
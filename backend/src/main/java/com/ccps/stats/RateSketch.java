@@ -0,0 +1,163 @@
+package com.clr.stats;
+
+import com.clr.model.UsgsDatasetStats;
+
+import java.time.LocalDate;
+
+/**
+ * Mergeable one-pass summary of the records of one group: Welford mean/variance, min/max,
+ * the date span, an online least-squares fit of rate against time, a {@link TDigest} of the
+ * rates for percentiles and optionally a {@link HyperLogLog} of the transect ids.
+ * <p>
+ * Sketches of disjoint parts of the input (e.g. one per parse worker) combine with
+ * {@link #merge}; moments use the pairwise update of Chan et al., so merged results equal
+ * a single pass up to rounding. Not thread-safe.
+ */
+public class RateSketch {
+
+    private static final double DAYS_PER_YEAR = 365.2425;
+    private static final double ROUNDING = 1e6;
+
+    private long recordCount;
+    private long rateCount;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final TDigest rates = new TDigest();
+    private final HyperLogLog transects;
+    private LocalDate firstDate;
+    private LocalDate lastDate;
+
+    // Online regression over (years since epoch, rate) for dated records with a rate
+    private long trendCount;
+    private double meanX;
+    private double meanY;
+    private double m2X;
+    private double coMoment;
+
+    public RateSketch() {
+        this(false);
+    }
+
+    /**
+     * @param countTransects whether to estimate the number of distinct transects
+     */
+    public RateSketch(boolean countTransects) {
+        this.transects = countTransects ? new HyperLogLog() : null;
+    }
+
+    public void add(Double erosionRate, LocalDate date) {
+        add(null, erosionRate, date);
+    }
+
+    public void add(String transectId, Double erosionRate, LocalDate date) {
+        recordCount++;
+        if (transects != null) {
+            transects.add(transectId);
+        }
+        if (date != null) {
+            if (firstDate == null || date.isBefore(firstDate)) {
+                firstDate = date;
+            }
+            if (lastDate == null || date.isAfter(lastDate)) {
+                lastDate = date;
+            }
+        }
+        if (erosionRate == null || erosionRate.isNaN()) {
+            return;
+        }
+        double rate = erosionRate;
+        rates.add(rate);
+        rateCount++;
+        double delta = rate - mean;
+        mean += delta / rateCount;
+        m2 += delta * (rate - mean);
+        min = Math.min(min, rate);
+        max = Math.max(max, rate);
+
+        if (date != null) {
+            double x = date.toEpochDay() / DAYS_PER_YEAR;
+            trendCount++;
+            double dx = x - meanX;
+            meanX += dx / trendCount;
+            meanY += (rate - meanY) / trendCount;
+            m2X += dx * (x - meanX);
+            coMoment += dx * (rate - meanY);
+        }
+    }
+
+    /**
+     * Fold in the sketch of another, disjoint part of the same group
+     */
+    public void merge(RateSketch other) {
+        recordCount += other.recordCount;
+        if (transects != null && other.transects != null) {
+            transects.merge(other.transects);
+        }
+        if (other.firstDate != null && (firstDate == null || other.firstDate.isBefore(firstDate))) {
+            firstDate = other.firstDate;
+        }
+        if (other.lastDate != null && (lastDate == null || other.lastDate.isAfter(lastDate))) {
+            lastDate = other.lastDate;
+        }
+        if (other.rateCount > 0) {
+            long n = rateCount + other.rateCount;
+            double delta = other.mean - mean;
+            m2 += other.m2 + delta * delta * rateCount * other.rateCount / n;
+            mean += delta * other.rateCount / n;
+            rateCount = n;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            rates.merge(other.rates);
+        }
+        if (other.trendCount > 0) {
+            long n = trendCount + other.trendCount;
+            double dx = other.meanX - meanX;
+            double dy = other.meanY - meanY;
+            double weight = (double) trendCount * other.trendCount / n;
+            m2X += other.m2X + dx * dx * weight;
+            coMoment += other.coMoment + dx * dy * weight;
+            meanX += dx * other.trendCount / n;
+            meanY += dy * other.trendCount / n;
+            trendCount = n;
+        }
+    }
+
+    /**
+     * Fill the statistics and sketch columns of the given row
+     */
+    public UsgsDatasetStats applyTo(UsgsDatasetStats stats) {
+        stats.setRecordCount(recordCount);
+        stats.setRateCount(rateCount);
+        stats.setFirstMeasurement(firstDate);
+        stats.setLastMeasurement(lastDate);
+        if (transects != null) {
+            stats.setDistinctTransects(transects.estimate());
+            stats.setTransectSketch(transects.toBytes());
+        }
+        if (rateCount == 0) {
+            return stats;
+        }
+        stats.setMeanErosionRate(round(mean));
+        stats.setStddevErosionRate(rateCount > 1 ? round(Math.sqrt(m2 / (rateCount - 1))) : null);
+        stats.setMinErosionRate(min);
+        stats.setMaxErosionRate(max);
+        stats.setP10ErosionRate(round(rates.quantile(0.10)));
+        stats.setP25ErosionRate(round(rates.quantile(0.25)));
+        stats.setMedianErosionRate(round(rates.quantile(0.50)));
+        stats.setP75ErosionRate(round(rates.quantile(0.75)));
+        stats.setP90ErosionRate(round(rates.quantile(0.90)));
+        stats.setTrendPerYear(trendCount > 1 && m2X > 0 ? round(coMoment / m2X) : null);
+        stats.setRateDigest(rates.toBytes());
+        return stats;
+    }
+
+    /**
+     * Round away floating point noise, so re-summing rows in a different order
+     * does not rewrite unchanged summary rows
+     */
+    private static double round(double value) {
+        return Math.round(value * ROUNDING) / ROUNDING;
+    }
+}
@@ -0,0 +1,256 @@
+package com.clr.stats;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest for streaming quantiles. Values are buffered and periodically folded into
+ * a sorted list of weighted centroids whose size is bounded by the compression; centroids near
+ * the tails stay small, so extreme quantiles keep their accuracy. Digests of disjoint inputs
+ * can be merged, and while every centroid holds a single value the quantiles are exact.
+ * Not thread-safe.
+ */
+public final class TDigest {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final double compression;
+    private final int bufferLimit;
+
+    private double[] means = new double[8];
+    private double[] weights = new double[8];
+    private int centroids;
+
+    private double[] bufferMeans = new double[8];
+    private double[] bufferWeights = new double[8];
+    private int buffered;
+
+    private double count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        this.bufferLimit = (int) (5 * compression);
+    }
+
+    public long size() {
+        return (long) count;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    private void add(double mean, double weight) {
+        if (buffered == bufferMeans.length) {
+            if (buffered >= bufferLimit) {
+                compress();
+            } else {
+                bufferMeans = Arrays.copyOf(bufferMeans, buffered * 2);
+                bufferWeights = Arrays.copyOf(bufferWeights, buffered * 2);
+            }
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        count += weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    /**
+     * Fold another digest into this one; {@code other} is compressed but otherwise unchanged
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.count > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    /**
+     * Estimated value at quantile {@code q} in [0, 1], or NaN when empty. Interpolates
+     * linearly between centroid centres, anchored at the minimum and maximum, which for
+     * single-value centroids is the usual {@code q * (n - 1)} percentile.
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        double index = q * (count - 1) + 0.5;
+        double leftX = 0.5;
+        double leftValue = min;
+        double cumulative = 0;
+        for (int i = 0; i < centroids; i++) {
+            double centre = cumulative + weights[i] / 2;
+            if (index <= centre) {
+                return interpolate(leftX, leftValue, centre, means[i], index);
+            }
+            leftX = centre;
+            leftValue = means[i];
+            cumulative += weights[i];
+        }
+        return interpolate(leftX, leftValue, count - 0.5, max, index);
+    }
+
+    private static double interpolate(double x0, double y0, double x1, double y1, double x) {
+        if (x1 <= x0) {
+            return y1;
+        }
+        return y0 + (y1 - y0) * Math.min(1, Math.max(0, (x - x0) / (x1 - x0)));
+    }
+
+    /**
+     * Merge the buffer into the centroids, combining neighbours while the combined weight
+     * stays within {@code 4 n q (1 - q) / compression}
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = centroids + buffered;
+        double[] allMeans = new double[n];
+        double[] allWeights = new double[n];
+        // The centroids are already sorted: sort the buffer and merge the two runs
+        sortByMean(bufferMeans, bufferWeights, 0, buffered - 1);
+        for (int i = 0, c = 0, b = 0; i < n; i++) {
+            if (b == buffered || (c < centroids && means[c] <= bufferMeans[b])) {
+                allMeans[i] = means[c];
+                allWeights[i] = weights[c++];
+            } else {
+                allMeans[i] = bufferMeans[b];
+                allWeights[i] = bufferWeights[b++];
+            }
+        }
+
+        double[] mergedMeans = new double[n];
+        double[] mergedWeights = new double[n];
+        int merged = 0;
+        double soFar = 0;
+        double currentMean = allMeans[0];
+        double currentWeight = allWeights[0];
+        for (int i = 1; i < n; i++) {
+            double proposed = currentWeight + allWeights[i];
+            double q0 = soFar / count;
+            double q2 = (soFar + proposed) / count;
+            double limit = count * Math.min(maxSize(q0), maxSize(q2));
+            if (proposed <= limit) {
+                currentMean += (allMeans[i] - currentMean) * allWeights[i] / proposed;
+                currentWeight = proposed;
+            } else {
+                mergedMeans[merged] = currentMean;
+                mergedWeights[merged] = currentWeight;
+                merged++;
+                soFar += currentWeight;
+                currentMean = allMeans[i];
+                currentWeight = allWeights[i];
+            }
+        }
+        mergedMeans[merged] = currentMean;
+        mergedWeights[merged] = currentWeight;
+        merged++;
+
+        means = Arrays.copyOf(mergedMeans, Math.max(merged, 8));
+        weights = Arrays.copyOf(mergedWeights, Math.max(merged, 8));
+        centroids = merged;
+        buffered = 0;
+    }
+
+    private double maxSize(double q) {
+        return 4 * q * (1 - q) / compression;
+    }
+
+    /**
+     * Sort {@code means[from..to]} in place, moving the weights along: a quicksort on the
+     * primitive arrays, finished by insertion sort on short ranges
+     */
+    static void sortByMean(double[] means, double[] weights, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            double pivot = means[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (means[i] < pivot) {
+                    i++;
+                }
+                while (means[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(means, weights, i++, j--);
+                }
+            }
+            // Recurse into the shorter part so the stack stays O(log n)
+            if (j - from < to - i) {
+                sortByMean(means, weights, from, j);
+                from = i;
+            } else {
+                sortByMean(means, weights, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            double mean = means[i];
+            double weight = weights[i];
+            int k = i - 1;
+            while (k >= from && means[k] > mean) {
+                means[k + 1] = means[k];
+                weights[k + 1] = weights[k];
+                k--;
+            }
+            means[k + 1] = mean;
+            weights[k + 1] = weight;
+        }
+    }
+
+    private static void swap(double[] means, double[] weights, int a, int b) {
+        double mean = means[a];
+        means[a] = means[b];
+        means[b] = mean;
+        double weight = weights[a];
+        weights[a] = weights[b];
+        weights[b] = weight;
+    }
+
+    /**
+     * Compact binary form: compression, count, min, max, then (mean, weight) per centroid
+     */
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Double.BYTES + Integer.BYTES + centroids * 2 * Double.BYTES);
+        buffer.putDouble(compression).putDouble(count).putDouble(min).putDouble(max).putInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            buffer.putDouble(means[i]).putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        TDigest digest = new TDigest(buffer.getDouble());
+        digest.count = buffer.getDouble();
+        digest.min = buffer.getDouble();
+        digest.max = buffer.getDouble();
+        int n = buffer.getInt();
+        digest.means = new double[Math.max(n, 8)];
+        digest.weights = new double[Math.max(n, 8)];
+        for (int i = 0; i < n; i++) {
+            digest.means[i] = buffer.getDouble();
+            digest.weights[i] = buffer.getDouble();
+        }
+        digest.centroids = n;
+        return digest;
+    }
+}
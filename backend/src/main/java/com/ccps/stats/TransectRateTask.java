@@ -0,0 +1,104 @@
+package com.clr.stats;
+
+import com.clr.model.Regions;
+import com.clr.model.ShorelineForecast;
+import com.clr.model.TransectChangeRate;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.TransectGroups;
+
+import java.time.LocalDate;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the change rates of a range of transect groups and, from the same accumulated
+ * measurements, projects their shoreline positions to every horizon year, splitting the
+ * range in halves until it is small enough to run directly. Each group writes only its own
+ * result slots, so the subtasks share nothing and the work spreads over all workers of the
+ * pool. Group {@code g} writes rate slot {@code g} and the forecast slots
+ * {@code g * horizons.length} onwards, which it leaves null if it cannot be projected.
+ */
+public class TransectRateTask extends RecursiveAction {
+
+    static final int THRESHOLD = 256;
+
+    private static final int[] NO_HORIZONS = new int[0];
+
+    private final ShorelineSnapshot snapshot;
+    private final TransectGroups groups;
+    private final int[] horizons;
+    private final TransectChangeRate[] rates;
+    private final ShorelineForecast[] forecasts;
+    private final int from;
+    private final int to;
+
+    /**
+     * Rates only, without forecasts
+     */
+    public TransectRateTask(ShorelineSnapshot snapshot, TransectGroups groups, TransectChangeRate[] rates) {
+        this(snapshot, groups, NO_HORIZONS, rates, new ShorelineForecast[0]);
+    }
+
+    public TransectRateTask(ShorelineSnapshot snapshot, TransectGroups groups, int[] horizons,
+                            TransectChangeRate[] rates, ShorelineForecast[] forecasts) {
+        this(snapshot, groups, horizons, rates, forecasts, 0, groups.count());
+    }
+
+    private TransectRateTask(ShorelineSnapshot snapshot, TransectGroups groups, int[] horizons,
+                             TransectChangeRate[] rates, ShorelineForecast[] forecasts, int from, int to) {
+        this.snapshot = snapshot;
+        this.groups = groups;
+        this.horizons = horizons;
+        this.rates = rates;
+        this.forecasts = forecasts;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int g = from; g < to; g++) {
+                computeGroup(g);
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new TransectRateTask(snapshot, groups, horizons, rates, forecasts, from, mid),
+                new TransectRateTask(snapshot, groups, horizons, rates, forecasts, mid, to));
+    }
+
+    private void computeGroup(int group) {
+        ChangeRateAccumulator accumulator = new ChangeRateAccumulator();
+        for (int i = groups.start(group); i < groups.end(group); i++) {
+            int row = groups.row(i);
+            int day = snapshot.getEpochDay(row);
+            if (day != ShorelineSnapshot.NO_DATE) {
+                accumulator.add(LocalDate.ofEpochDay(day), snapshot.getShorelinePosition(row),
+                        snapshot.getShorePosUncert(row));
+            }
+        }
+        TransectChangeRate rate = new TransectChangeRate();
+        rate.setTransectId(groups.transectId(group));
+        if (groups.end(group) > groups.start(group)) {
+            int first = groups.row(groups.start(group));
+            rate.setRegion(snapshot.getRegion(first));
+            rate.setRegionKey(Regions.key(rate.getRegion()));
+            rate.setLocation(snapshot.getLocation(first));
+        }
+        rates[group] = accumulator.applyTo(rate);
+
+        if (horizons.length == 0 || !accumulator.canProject()) {
+            return;
+        }
+        for (int h = 0; h < horizons.length; h++) {
+            LocalDate date = LocalDate.of(horizons[h], 1, 1);
+            double position = accumulator.projectPosition(date);
+            double band = accumulator.predictionInterval95(date);
+            Double lower = Double.isNaN(band) ? null : position - band;
+            Double upper = Double.isNaN(band) ? null : position + band;
+            forecasts[group * horizons.length + h] = new ShorelineForecast(rate.getTransectId(), horizons[h],
+                    rate.getRegion(), rate.getRegionKey(), rate.getLocation(), position, lower, upper,
+                    rate.getLinearRegressionRate());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.clr.tiles;
+
+import com.clr.spatial.ShorelineSpatialIndex;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the shoreline points of one tile as a Mapbox Vector Tile (spec 2.1) with a single
+ * {@value #LAYER_NAME} point layer.
+ * <p>
+ * Points are quantized to the tile extent, which shrinks at low zoom levels, and points that
+ * land on the same quantized pixel are merged into one feature carrying {@code count} and the
+ * mean {@code erosion_rate}. The protobuf is written by hand; the format needs only varints and
+ * length-delimited fields.
+ */
+public final class MvtEncoder {
+
+    public static final String LAYER_NAME = "shorelines";
+    static final int BUFFER_PIXELS = 64;
+
+    // Protobuf wire types
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+
+    // Vector tile field numbers
+    private static final int TILE_LAYERS = 3;
+    private static final int LAYER_VERSION = 15;
+    private static final int LAYER_NAME_FIELD = 1;
+    private static final int LAYER_FEATURES = 2;
+    private static final int LAYER_KEYS = 3;
+    private static final int LAYER_VALUES = 4;
+    private static final int LAYER_EXTENT = 5;
+    private static final int FEATURE_ID = 1;
+    private static final int FEATURE_TAGS = 2;
+    private static final int FEATURE_TYPE = 3;
+    private static final int FEATURE_GEOMETRY = 4;
+    private static final int VALUE_DOUBLE = 3;
+    private static final int VALUE_UINT = 5;
+    private static final int GEOM_TYPE_POINT = 1;
+    private static final int MOVE_TO_ONE = (1 & 0x7) | (1 << 3);
+
+    private static final int KEY_COUNT = 0;
+    private static final int KEY_EROSION_RATE = 1;
+
+    private MvtEncoder() {
+    }
+
+    /**
+     * Quantization grid of the tile at a zoom level: coarse when zoomed out, full 4096 when zoomed in
+     */
+    public static int extentFor(int zoom) {
+        if (zoom < 6) {
+            return 256;
+        }
+        if (zoom < 10) {
+            return 1024;
+        }
+        return 4096;
+    }
+
+    public static byte[] encode(ShorelineSpatialIndex index, TileBounds bounds) {
+        int extent = extentFor(bounds.getZ());
+        int buffer = BUFFER_PIXELS * extent / 4096;
+
+        // Merge points by quantized pixel; insertion order keeps the output deterministic
+        Map<Long, double[]> pixels = new LinkedHashMap<>();
+        double lonPad = (bounds.getEast() - bounds.getWest()) * buffer / extent;
+        double latPad = (bounds.getNorth() - bounds.getSouth()) * buffer / extent;
+        index.visitBox(bounds.getSouth() - latPad, bounds.getWest() - lonPad,
+                bounds.getNorth() + latPad, bounds.getEast() + lonPad, (lat, lon, rate) -> {
+                    long px = Math.round(bounds.tileX(lon) * extent);
+                    long py = Math.round(bounds.tileY(lat) * extent);
+                    if (px < -buffer || py < -buffer || px > extent + buffer || py > extent + buffer) {
+                        return;
+                    }
+                    // {px, py, count, rateSum, rateCount}
+                    double[] acc = pixels.computeIfAbsent((px << 32) ^ (py & 0xffffffffL),
+                            key -> new double[]{px, py, 0, 0, 0});
+                    acc[2]++;
+                    if (!Double.isNaN(rate)) {
+                        acc[3] += rate;
+                        acc[4]++;
+                    }
+                });
+
+        ProtoWriter layer = new ProtoWriter();
+        layer.varintField(LAYER_VERSION, 2);
+        layer.stringField(LAYER_NAME_FIELD, LAYER_NAME);
+
+        List<byte[]> values = new ArrayList<>();
+        Map<Object, Integer> valueIndex = new HashMap<>();
+        long featureId = 1;
+        for (double[] acc : pixels.values()) {
+            ProtoWriter feature = new ProtoWriter();
+            feature.varintField(FEATURE_ID, featureId++);
+
+            List<Integer> tags = new ArrayList<>(4);
+            tags.add(KEY_COUNT);
+            tags.add(valueIndex.computeIfAbsent((long) acc[2], v -> addValue(values, uintValue((Long) v))));
+            if (acc[4] > 0) {
+                // Two decimals keep the shared value table small
+                double mean = Math.round(acc[3] / acc[4] * 100) / 100.0;
+                tags.add(KEY_EROSION_RATE);
+                tags.add(valueIndex.computeIfAbsent(mean, v -> addValue(values, doubleValue((Double) v))));
+            }
+            feature.packedField(FEATURE_TAGS, tags.stream().mapToLong(Integer::longValue).toArray());
+            feature.varintField(FEATURE_TYPE, GEOM_TYPE_POINT);
+            feature.packedField(FEATURE_GEOMETRY, new long[]{MOVE_TO_ONE, zigZag((long) acc[0]), zigZag((long) acc[1])});
+            layer.bytesField(LAYER_FEATURES, feature.toByteArray());
+        }
+
+        layer.stringField(LAYER_KEYS, "count");
+        layer.stringField(LAYER_KEYS, "erosion_rate");
+        for (byte[] value : values) {
+            layer.bytesField(LAYER_VALUES, value);
+        }
+        layer.varintField(LAYER_EXTENT, extent);
+
+        ProtoWriter tile = new ProtoWriter();
+        tile.bytesField(TILE_LAYERS, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private static int addValue(List<byte[]> values, byte[] encoded) {
+        values.add(encoded);
+        return values.size() - 1;
+    }
+
+    private static byte[] uintValue(long value) {
+        ProtoWriter writer = new ProtoWriter();
+        writer.varintField(VALUE_UINT, value);
+        return writer.toByteArray();
+    }
+
+    private static byte[] doubleValue(double value) {
+        ProtoWriter writer = new ProtoWriter();
+        writer.doubleField(VALUE_DOUBLE, value);
+        return writer.toByteArray();
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Minimal protobuf writer for the handful of field kinds a vector tile uses
+     */
+    static final class ProtoWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void varintField(int field, long value) {
+            tag(field, VARINT);
+            varint(value);
+        }
+
+        void doubleField(int field, double value) {
+            tag(field, FIXED64);
+            long bits = Double.doubleToLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (8 * i)) & 0xff);
+            }
+        }
+
+        void stringField(int field, String value) {
+            bytesField(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void bytesField(int field, byte[] value) {
+            tag(field, LENGTH_DELIMITED);
+            varint(value.length);
+            out.writeBytes(value);
+        }
+
+        void packedField(int field, long[] values) {
+            ProtoWriter packed = new ProtoWriter();
+            for (long value : values) {
+                packed.varint(value);
+            }
+            bytesField(field, packed.toByteArray());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void tag(int field, int wireType) {
+            varint(((long) field << 3) | wireType);
+        }
+
+        private void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
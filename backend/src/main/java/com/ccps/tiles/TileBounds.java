@@ -0,0 +1,55 @@
+package com.clr.tiles;
+
+import lombok.Value;
+
+/**
+ * Geographic extent of a Web Mercator (slippy map) tile {@code z/x/y}
+ */
+@Value
+public class TileBounds {
+
+    /** Web Mercator cannot represent the poles; tiles stop at this latitude */
+    public static final double MAX_LATITUDE = 85.05112878;
+    public static final int MAX_ZOOM = 22;
+
+    int z;
+    int x;
+    int y;
+    double west;
+    double south;
+    double east;
+    double north;
+
+    public static boolean isValid(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            return false;
+        }
+        long n = 1L << z;
+        return x >= 0 && y >= 0 && x < n && y < n;
+    }
+
+    public static TileBounds of(int z, int x, int y) {
+        double n = 1L << z;
+        return new TileBounds(z, x, y, x / n * 360.0 - 180.0, latitude(y + 1, n), (x + 1) / n * 360.0 - 180.0,
+                latitude(y, n));
+    }
+
+    /**
+     * Position of the point inside this tile, in tile widths: {@code 0..1} inside, y growing southwards
+     */
+    public double tileX(double lon) {
+        double n = 1L << z;
+        return (lon + 180.0) / 360.0 * n - x;
+    }
+
+    public double tileY(double lat) {
+        double n = 1L << z;
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * n - y;
+    }
+
+    private static double latitude(double y, double n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / n))));
+    }
+}
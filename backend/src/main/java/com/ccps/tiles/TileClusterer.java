@@ -0,0 +1,63 @@
+package com.clr.tiles;
+
+import com.clr.model.ClusterTile;
+import com.clr.model.TileCluster;
+import com.clr.spatial.ShorelineSpatialIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aggregates the points of one tile into a {@code grid x grid} raster of clusters:
+ * count, centroid and mean/min/max erosion rate per non-empty cell.
+ */
+public final class TileClusterer {
+
+    private TileClusterer() {
+    }
+
+    public static ClusterTile cluster(ShorelineSpatialIndex index, TileBounds bounds, int grid) {
+        int cells = grid * grid;
+        int[] counts = new int[cells];
+        int[] rateCounts = new int[cells];
+        double[] sumLat = new double[cells];
+        double[] sumLon = new double[cells];
+        double[] sumRate = new double[cells];
+        double[] minRate = new double[cells];
+        double[] maxRate = new double[cells];
+        Arrays.fill(minRate, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxRate, Double.NEGATIVE_INFINITY);
+
+        index.visitBox(bounds.getSouth(), bounds.getWest(), bounds.getNorth(), bounds.getEast(), (lat, lon, rate) -> {
+            int cx = Math.min(grid - 1, Math.max(0, (int) (bounds.tileX(lon) * grid)));
+            int cy = Math.min(grid - 1, Math.max(0, (int) (bounds.tileY(lat) * grid)));
+            int cell = cy * grid + cx;
+            counts[cell]++;
+            sumLat[cell] += lat;
+            sumLon[cell] += lon;
+            if (!Double.isNaN(rate)) {
+                rateCounts[cell]++;
+                sumRate[cell] += rate;
+                minRate[cell] = Math.min(minRate[cell], rate);
+                maxRate[cell] = Math.max(maxRate[cell], rate);
+            }
+        });
+
+        List<TileCluster> clusters = new ArrayList<>();
+        int total = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int count = counts[cell];
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            boolean hasRate = rateCounts[cell] > 0;
+            clusters.add(new TileCluster(sumLat[cell] / count, sumLon[cell] / count, count,
+                    hasRate ? sumRate[cell] / rateCounts[cell] : null,
+                    hasRate ? minRate[cell] : null,
+                    hasRate ? maxRate[cell] : null));
+        }
+        return new ClusterTile(bounds.getZ(), bounds.getX(), bounds.getY(), index.getVersion(), total, clusters);
+    }
+}
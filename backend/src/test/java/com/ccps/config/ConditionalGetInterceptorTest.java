@@ -0,0 +1,77 @@
+package com.clr.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ConditionalGetInterceptorTest {
+
+    private final AtomicLong version = new AtomicLong(5);
+    private final Instant modified = Instant.parse("2024-03-01T12:00:00Z");
+    private final ConditionalGetInterceptor interceptor =
+            new ConditionalGetInterceptor(version::get, () -> modified, "public, max-age=60");
+
+    @Test
+    void testSetsValidatorsOnFirstRequest() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get("region", "Cape Cod"), response, null));
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.ETAG).startsWith("\"5-"));
+        assertEquals("public, max-age=60", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(modified.toEpochMilli(), response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void testMatchingEtagSkipsHandler() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        interceptor.preHandle(get("region", "Cape Cod"), first, null);
+
+        MockHttpServletRequest revalidation = get("region", "Cape Cod");
+        revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(revalidation, second, null));
+        assertEquals(304, second.getStatus());
+    }
+
+    @Test
+    void testEtagChangesWithVersionAndParameters() {
+        String etag = ConditionalGetInterceptor.etag(5, get("region", "Cape Cod"));
+        assertNotEquals(etag, ConditionalGetInterceptor.etag(5, get("region", "Islands")));
+        assertNotEquals(etag, ConditionalGetInterceptor.etag(6, get("region", "Cape Cod")));
+
+        // Parameter order does not matter
+        MockHttpServletRequest ab = get("a", "1");
+        ab.addParameter("b", "2");
+        MockHttpServletRequest ba = get("b", "2");
+        ba.addParameter("a", "1");
+        assertEquals(ConditionalGetInterceptor.etag(5, ab), ConditionalGetInterceptor.etag(5, ba));
+    }
+
+    @Test
+    void testSkipsWhenDataNotReadyOrNotGet() {
+        version.set(-1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get("region", "Cape Cod"), response, null));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+
+        version.set(5);
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/api/usgs-datasets/import");
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(post, postResponse, null));
+        assertNull(postResponse.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    private static MockHttpServletRequest get(String name, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/usgs-datasets/stats");
+        request.addParameter(name, value);
+        return request;
+    }
+}
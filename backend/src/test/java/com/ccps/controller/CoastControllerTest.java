@@ -5,6 +5,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +16,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import com.clr.model.CoastalData;
 import com.clr.model.PredictionResult;
+import com.clr.prediction.PredictionModel;
 import com.clr.repository.CoastalDataRepository;
 import com.clr.repository.PredictionResultRepository;
 import com.clr.service.PredictionService;
@@ -32,6 +34,11 @@ class CoastControllerTest {
     @MockBean
     private PredictionResultRepository predictionResultRepository;
 
+    @BeforeEach
+    void setUp() {
+        Mockito.when(predictionService.getModel()).thenReturn(PredictionModel.untrained());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void testGetCoastalData() throws Exception {
@@ -67,7 +74,7 @@ class CoastControllerTest {
         result.setDate("2024-01-01");
         result.setLikelihood(0.5);
 
-        Mockito.when(predictionService.predict(any(CoastalData.class))).thenReturn(result);
+        Mockito.when(predictionService.predict(any(), any(CoastalData.class))).thenReturn(result);
 
         String json = "{\"region\":\"TestRegion\",\"date\":\"2024-01-01\",\"seaLevel\":1.0,\"erosionRate\":2.0,\"precipitation\":3.0}";
 
@@ -94,7 +101,7 @@ class CoastControllerTest {
         result.setDate("2024-02-02");
         result.setLikelihood(0.7);
 
-        Mockito.when(predictionService.predict(any(CoastalData.class))).thenReturn(result);
+        Mockito.when(predictionService.predict(any(), any(CoastalData.class))).thenReturn(result);
 
         String json = "{\"region\":\"SaveRegion\",\"date\":\"2024-02-02\",\"seaLevel\":2.0,\"erosionRate\":3.0,\"precipitation\":4.0}";
 
@@ -151,7 +158,7 @@ class CoastControllerTest {
     @Test
     @WithMockUser(roles = "USER")
     void testPredictServiceThrowsException() throws Exception {
-        Mockito.when(predictionService.predict(any(CoastalData.class))).thenThrow(new RuntimeException("Prediction failed"));
+        Mockito.when(predictionService.predict(any(), any(CoastalData.class))).thenThrow(new RuntimeException("Prediction failed"));
         String json = "{\"region\":\"TestRegion\",\"date\":\"2024-01-01\",\"seaLevel\":1.0,\"erosionRate\":2.0,\"precipitation\":3.0}";
         mockMvc.perform(post("/api/coast/predict")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,83 @@
+package com.clr.controller;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+import com.clr.service.DatasetLookupService;
+import com.clr.service.ShorelineSnapshotService;
+import com.clr.service.ShorelineSpatialIndexService;
+import com.clr.service.TileClusterService;
+import com.clr.service.TransectChangeRateService;
+import com.clr.service.UsgsDataImportService;
+import com.clr.service.UsgsDatasetExportService;
+import com.clr.service.UsgsDatasetStatsService;
+import com.clr.service.VectorTileService;
+
+class UsgsDatasetControllerTest {
+
+    private UsgsCoastalDatasetRepository datasetRepository;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        datasetRepository = mock(UsgsCoastalDatasetRepository.class);
+        UsgsDatasetController controller = new UsgsDatasetController(datasetRepository,
+                mock(UsgsDataImportService.class), mock(UsgsDatasetExportService.class),
+                mock(ShorelineSpatialIndexService.class), mock(TileClusterService.class),
+                mock(VectorTileService.class), mock(UsgsDatasetStatsService.class),
+                mock(DatasetLookupService.class), mock(ShorelineSnapshotService.class),
+                mock(TransectChangeRateService.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testNearbyPassesTheRadiusInMetres() throws Exception {
+        UsgsCoastalDataset dataset = new UsgsCoastalDataset();
+        dataset.setTransectId("T-1");
+        when(datasetRepository.findNearbyMeasurements(-69.95, 41.68, 2500.0, 20))
+                .thenReturn(Collections.singletonList(dataset));
+
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=-69.95&latitude=41.68&radiusKm=2.5&limit=20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].transectId").value("T-1"));
+        verify(datasetRepository).findNearbyMeasurements(-69.95, 41.68, 2500.0, 20);
+    }
+
+    @Test
+    void testNearbyDefaultsToTenKilometres() throws Exception {
+        when(datasetRepository.findNearbyMeasurements(anyDouble(), anyDouble(), anyDouble(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=-70.0&latitude=41.5"))
+                .andExpect(status().isOk());
+        verify(datasetRepository).findNearbyMeasurements(-70.0, 41.5, 10000.0, 500);
+    }
+
+    @Test
+    void testNearbyRejectsNonPositiveRadius() throws Exception {
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=-70.0&latitude=41.5&radiusKm=0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=-70.0&latitude=41.5&radiusKm=-1"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(datasetRepository);
+    }
+
+    @Test
+    void testNearbyRejectsOutOfRangeCoordinates() throws Exception {
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=-70.0&latitude=90.5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=-70.0&latitude=-91"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usgs-datasets/nearby?longitude=180.5&latitude=41.5"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(datasetRepository);
+    }
+}
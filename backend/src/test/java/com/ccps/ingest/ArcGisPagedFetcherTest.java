@@ -0,0 +1,178 @@
+package com.clr.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.clr.model.UsgsCoastalData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the fetcher against a local stub of an ArcGIS layer query endpoint that caps every
+ * response at {@link #MAX_RECORD_COUNT} features, like a real server's maxRecordCount
+ */
+class ArcGisPagedFetcherTest {
+
+    private static final int FEATURES = 23;
+    private static final int MAX_RECORD_COUNT = 4;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private String queryUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/MapServer/query", this::handle);
+        server.start();
+        queryUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/MapServer/query";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        Map<String, String> params = params(exchange.getRequestURI().getRawQuery());
+        String body;
+        if (!"1=1".equals(params.get("where"))) {
+            body = "{\"error\":{\"code\":400,\"message\":\"Invalid where\"}}";
+        } else if ("true".equals(params.get("returnCountOnly"))) {
+            body = "{\"count\":" + FEATURES + "}";
+        } else {
+            int offset = Integer.parseInt(params.get("resultOffset"));
+            int count = Integer.parseInt(params.get("resultRecordCount"));
+            int end = Math.min(FEATURES, offset + Math.min(count, MAX_RECORD_COUNT));
+            StringBuilder features = new StringBuilder();
+            for (int i = offset; i < end; i++) {
+                if (features.length() > 0) {
+                    features.append(',');
+                }
+                features.append("{\"attributes\":{\"OBJECTID\":").append(i)
+                        .append(",\"LOCATION\":\"Site ").append(i).append("\",\"YEAR\":2000,\"EPR\":")
+                        .append(i / 10.0).append(",\"CONFIDENCE\":null},\"geometry\":{\"x\":-70.5,\"y\":41.2}}");
+            }
+            body = "{\"displayFieldName\":\"LOCATION\",\"fields\":[{\"name\":\"OBJECTID\"}],\"features\":["
+                    + features + "],\"exceededTransferLimit\":" + (count > MAX_RECORD_COUNT) + "}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> params(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private ArcGisPagedFetcher fetcher(int pageSize, int parallelism) {
+        ArcGisPagedFetcher fetcher = new ArcGisPagedFetcher(new RestTemplateBuilder(), new ObjectMapper());
+        ReflectionTestUtils.setField(fetcher, "pageSize", pageSize);
+        ReflectionTestUtils.setField(fetcher, "parallelism", parallelism);
+        return fetcher;
+    }
+
+    @Test
+    void testFetchesEveryFeatureDespiteTheServerCap() throws Exception {
+        List<List<UsgsCoastalData>> pages = Collections.synchronizedList(new ArrayList<>());
+
+        long fetched = fetcher(10, 3).fetchAll(queryUrl, pages::add, ImportProgress.NONE);
+
+        assertEquals(FEATURES, fetched);
+        assertEquals(3, pages.size());
+        List<String> locations = pages.stream().flatMap(List::stream).map(UsgsCoastalData::getLocation)
+                .sorted().distinct().toList();
+        assertEquals(FEATURES, locations.size());
+        // One count request plus ceil(10 / 4) requests per full page and one for the last three features
+        assertEquals(1 + 3 + 3 + 1, requests.get());
+    }
+
+    @Test
+    void testCancellationStopsTheFetch() {
+        ImportProgress cancelled = new ImportProgress() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        assertThrows(java.util.concurrent.CancellationException.class,
+                () -> fetcher(5, 2).fetchAll(queryUrl, page -> { }, cancelled));
+    }
+
+    @Test
+    void testReaderConvertsFeaturesAndReportsErrors() throws Exception {
+        ArcGisFeatureReader reader = new ArcGisFeatureReader(new ObjectMapper());
+        String json = "{\"features\":[{\"attributes\":{\"LOCATION\":\"Nauset\",\"YEAR\":1994,\"EPR\":-1.5,"
+                + "\"CONFIDENCE\":null,\"UNIT\":\"m/yr\"},\"geometry\":{\"x\":-69.9,\"y\":41.8}}],"
+                + "\"exceededTransferLimit\":true}";
+        List<UsgsCoastalData> out = new ArrayList<>();
+
+        ArcGisFeatureReader.Page page = reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                out::add);
+
+        assertEquals(1, page.features());
+        assertTrue(page.exceededTransferLimit());
+        UsgsCoastalData data = out.get(0);
+        assertEquals("Nauset", data.getLocation());
+        assertEquals(1994, data.getYear());
+        assertEquals(-1.5, data.getErosionRate());
+        assertEquals("Medium", data.getConfidence());
+        assertEquals(41.8, data.getLatitude());
+        assertEquals(-69.9, data.getLongitude());
+
+        String error = "{\"error\":{\"code\":400,\"message\":\"Invalid or missing input parameters.\"}}";
+        assertThrows(IllegalStateException.class,
+                () -> reader.read(new ByteArrayInputStream(error.getBytes(StandardCharsets.UTF_8)), out::add));
+    }
+
+    @Test
+    void testReaderHandsOutBatchesAndSkipsUnknownFields() throws Exception {
+        ArcGisFeatureReader reader = new ArcGisFeatureReader(new ObjectMapper());
+        StringBuilder json = new StringBuilder("{\"fields\":[{\"name\":\"EPR\",\"domain\":null}],\"features\":[");
+        for (int i = 0; i < 5; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"attributes\":{\"SHAPE\":{\"rings\":[[1,2]]},\"EPR\":")
+                    .append(i).append("},\"geometry\":{\"x\":1,\"y\":2,\"spatialReference\":{\"wkid\":4326}}}");
+        }
+        json.append("]}");
+        List<List<UsgsCoastalData>> batches = new ArrayList<>();
+
+        ArcGisFeatureReader.Page page = reader.read(
+                new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)), 2, batches::add);
+
+        assertEquals(5, page.features());
+        assertFalse(page.exceededTransferLimit());
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+        UsgsCoastalData last = batches.get(2).get(0);
+        assertEquals(4.0, last.getErosionRate());
+        assertEquals("Unknown", last.getLocation());
+        assertEquals(2.0, last.getLatitude());
+        assertEquals(1.0, last.getLongitude());
+    }
+}
@@ -0,0 +1,36 @@
+package com.clr.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CsvTokenizerTest {
+
+    @Test
+    void testTokenizeSimpleRecord() {
+        assertEquals(List.of("a", "b", "c"), CsvTokenizer.tokenize("a,b,c"));
+    }
+
+    @Test
+    void testTokenizeKeepsEmptyFields() {
+        assertEquals(List.of("", "b", ""), CsvTokenizer.tokenize(",b,"));
+        assertEquals(List.of(""), CsvTokenizer.tokenize(""));
+    }
+
+    @Test
+    void testTokenizeQuotedFieldsWithCommasAndEscapedQuotes() {
+        List<String> fields = CsvTokenizer.tokenize("T-1,\"Chatham, MA\",\"said \"\"hi\"\"\",3.5");
+        assertEquals(List.of("T-1", "Chatham, MA", "said \"hi\"", "3.5"), fields);
+    }
+
+    @Test
+    void testReadRecordJoinsQuotedFieldSpanningLines() throws Exception {
+        BufferedReader reader = new BufferedReader(new StringReader("a,\"line one\nline two\",c\nd,e,f\n"));
+        String first = CsvTokenizer.readRecord(reader);
+        assertEquals(List.of("a", "line one\nline two", "c"), CsvTokenizer.tokenize(first));
+        assertEquals("d,e,f", CsvTokenizer.readRecord(reader));
+        assertNull(CsvTokenizer.readRecord(reader));
+    }
+}
@@ -0,0 +1,84 @@
+package com.clr.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import com.clr.model.UsgsCoastalData;
+
+class UsgsCoastalDataJdbcWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UsgsCoastalDataJdbcWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        // YEAR is a keyword in H2 but not in PostgreSQL, where the column is created unquoted
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:arcgis;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS usgs_coastal_data");
+        jdbcTemplate.execute("CREATE TABLE usgs_coastal_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "object_id BIGINT UNIQUE, location VARCHAR(255), year INTEGER, latitude DOUBLE, longitude DOUBLE, "
+                + "erosion_rate DOUBLE, confidence VARCHAR(255), data_source VARCHAR(255), dataset_name VARCHAR(255), "
+                + "method_type VARCHAR(255), uncertainty_value DOUBLE, unit_of_measure VARCHAR(255))");
+        writer = new UsgsCoastalDataJdbcWriter(jdbcTemplate);
+    }
+
+    @Test
+    void testRefetchIsIdempotent() {
+        WriteCounts first = writer.write(List.of(feature(1L, -0.5), feature(2L, 0.3), feature(3L, 0.4)));
+        WriteCounts second = writer.write(List.of(feature(1L, -0.5), feature(2L, 0.3), feature(3L, 0.4)));
+
+        assertEquals(new WriteCounts(3, 0, 0, 0, 0), first);
+        assertEquals(new WriteCounts(0, 0, 3, 0, 0), second);
+        assertEquals(3, count());
+    }
+
+    @Test
+    void testChangedFeaturesAreUpdatedInPlace() {
+        writer.write(List.of(feature(1L, -0.5), feature(2L, -0.6)));
+
+        WriteCounts counts = writer.write(List.of(feature(1L, -0.9), feature(3L, -0.7)));
+
+        assertEquals(new WriteCounts(1, 1, 0, 0, 0), counts);
+        assertEquals(3, count());
+        assertEquals(-0.9, jdbcTemplate.queryForObject(
+                "SELECT erosion_rate FROM usgs_coastal_data WHERE object_id = 1", Double.class));
+    }
+
+    @Test
+    void testFeaturesWithoutObjectIdAreSkipped() {
+        List<UsgsCoastalData> page = List.of(feature(null, -0.5), feature(1L, 0.3));
+
+        assertEquals(new WriteCounts(1, 0, 0, 0, 1), writer.write(page));
+        assertEquals(new WriteCounts(0, 0, 1, 0, 1), writer.write(page));
+        assertEquals(1, count());
+    }
+
+    @Test
+    void testRetainOnlyRemovesVanishedFeaturesAndAppendedCopies() {
+        writer.write(List.of(feature(1L, -0.5), feature(2L, 0.3), feature(3L, 0.4)));
+        jdbcTemplate.update("INSERT INTO usgs_coastal_data (location, erosion_rate) VALUES ('Site 1', -0.5)");
+
+        int removed = writer.retainOnly(new long[] {1, 3});
+
+        assertEquals(2, removed);
+        assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList(
+                "SELECT object_id FROM usgs_coastal_data ORDER BY object_id", Long.class));
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usgs_coastal_data", Integer.class);
+    }
+
+    private static UsgsCoastalData feature(Long objectId, double rate) {
+        UsgsCoastalData data = new UsgsCoastalData();
+        data.setObjectId(objectId);
+        data.setLocation("Site " + objectId);
+        data.setYear(2000);
+        data.setErosionRate(rate);
+        return data;
+    }
+}
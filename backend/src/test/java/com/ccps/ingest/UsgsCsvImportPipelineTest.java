@@ -0,0 +1,270 @@
+package com.clr.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.clr.model.StatsScope;
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.model.UsgsDatasetStats;
+import com.clr.stats.DatasetSketches;
+
+class UsgsCsvImportPipelineTest {
+
+    @Test
+    void testRunWritesEveryParsedRow() throws Exception {
+        Queue<UsgsCoastalDataset> written = new ConcurrentLinkedQueue<>();
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<UsgsCoastalDataset> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return new WriteCounts(batch.size(), 0, 0, 0, 0);
+        });
+
+        StringBuilder csv = new StringBuilder("transect_id,latitude,longitude,region,date,rate,baseline\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append("T-").append(i).append(",42.1,-70.2,\"Cape Cod, Outer\",1994-03-0").append(1 + i % 9)
+                    .append(",-0.5,B").append(i % 3).append('\n');
+        }
+        csv.append("short,row\n");
+
+        ImportStats stats = new UsgsCsvImportPipeline(writer).run(new BufferedReader(new StringReader(csv.toString())));
+
+        assertEquals(2501, stats.getRecordsRead());
+        assertEquals(2500, stats.getRowsInserted());
+        assertEquals(1, stats.getRowsSkipped());
+        assertEquals(2500, written.size());
+        UsgsCoastalDataset first = written.stream().filter(d -> "T-0".equals(d.getTransectId())).findFirst().orElseThrow();
+        assertEquals("Cape Cod, Outer", first.getRegion());
+        assertEquals(LocalDate.of(1994, 3, 1), first.getMeasurementDate());
+        assertEquals(-0.5, first.getErosionRate());
+        assertEquals("baseline: B0", first.getMetadata());
+    }
+
+    @Test
+    void testRunSketchesRowsWhileParsing() throws Exception {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        when(writer.write(anyList())).thenAnswer(invocation ->
+                new WriteCounts(invocation.<List<UsgsCoastalDataset>>getArgument(0).size(), 0, 0, 0, 0));
+
+        StringBuilder csv = new StringBuilder("transect_id,region,location,date,rate\n");
+        for (int i = 0; i < 3000; i++) {
+            csv.append("T-").append(i % 300).append(i % 2 == 0 ? ",Islands,Nantucket," : ",Cape Cod,Chatham,")
+                    .append(1990 + i % 20).append("-01-01,").append(i % 2 == 0 ? "1.0" : "-1.0").append('\n');
+        }
+        UsgsCsvImportPipeline pipeline = new UsgsCsvImportPipeline(writer);
+        DatasetSketches sketches = new DatasetSketches();
+
+        pipeline.run(new BufferedReader(new StringReader(csv.toString())), ImportProgress.NONE, sketches);
+
+        UsgsDatasetStats islands = sketches.getGroups()
+                .get(new DatasetSketches.GroupKey(StatsScope.REGION, "Islands", null, null, null))
+                .applyTo(new UsgsDatasetStats());
+        assertEquals(1500, islands.getRecordCount());
+        assertEquals(1.0, islands.getMeanErosionRate());
+        assertEquals(150, islands.getDistinctTransects(), 3);
+        UsgsDatasetStats transect = sketches.getGroups()
+                .get(new DatasetSketches.GroupKey(StatsScope.TRANSECT, "Cape Cod", "Chatham", null, "T-1"))
+                .applyTo(new UsgsDatasetStats());
+        assertEquals(10, transect.getRecordCount());
+        assertEquals(-1.0, transect.getMedianErosionRate());
+    }
+
+    @Test
+    void testRunPropagatesWriterFailure() {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        when(writer.write(anyList())).thenThrow(new IllegalStateException("database down"));
+
+        String csv = "transect_id,rate\nT-1,1.0\n";
+        UsgsCsvImportPipeline pipeline = new UsgsCsvImportPipeline(writer);
+        assertThrows(IllegalStateException.class,
+                () -> pipeline.run(new BufferedReader(new StringReader(csv))));
+    }
+
+    @Test
+    void testWriterFailureStopsEveryPipelineThread() throws Exception {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        AtomicInteger calls = new AtomicInteger();
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("database down");
+            }
+            return new WriteCounts(invocation.<List<UsgsCoastalDataset>>getArgument(0).size(), 0, 0, 0, 0);
+        });
+        UsgsCsvImportPipeline pipeline = smallQueuePipeline(writer);
+
+        assertThrows(IllegalStateException.class,
+                () -> pipeline.run(new BufferedReader(new StringReader(largeCsv()))));
+
+        assertPipelineThreadsExit();
+    }
+
+    @Test
+    void testCancellationStopsEveryPipelineThread() throws Exception {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        when(writer.write(anyList())).thenAnswer(invocation ->
+                new WriteCounts(invocation.<List<UsgsCoastalDataset>>getArgument(0).size(), 0, 0, 0, 0));
+        ImportProgress cancelled = new ImportProgress() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+
+        assertThrows(CancellationException.class, () -> smallQueuePipeline(writer)
+                .run(new BufferedReader(new StringReader(largeCsv())), cancelled, null));
+
+        assertPipelineThreadsExit();
+    }
+
+    @Test
+    void testMemoryMappedWriterFailureStopsEveryPipelineThread(@TempDir Path dir) throws Exception {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        AtomicInteger calls = new AtomicInteger();
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("database down");
+            }
+            return new WriteCounts(invocation.<List<UsgsCoastalDataset>>getArgument(0).size(), 0, 0, 0, 0);
+        });
+        Path file = dir.resolve("large.csv");
+        Files.writeString(file, largeCsv());
+
+        assertThrows(IllegalStateException.class,
+                () -> smallQueuePipeline(writer).run(file, ImportProgress.NONE, null));
+
+        assertPipelineThreadsExit();
+    }
+
+    @Test
+    void testMemoryMappedCancellationStopsEveryPipelineThread(@TempDir Path dir) throws Exception {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        when(writer.write(anyList())).thenAnswer(invocation ->
+                new WriteCounts(invocation.<List<UsgsCoastalDataset>>getArgument(0).size(), 0, 0, 0, 0));
+        ImportProgress cancelled = new ImportProgress() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        Path file = dir.resolve("large.csv");
+        Files.writeString(file, largeCsv());
+
+        assertThrows(CancellationException.class, () -> smallQueuePipeline(writer).run(file, cancelled, null));
+
+        assertPipelineThreadsExit();
+    }
+
+    /**
+     * Tiny batches and queues, so every producer is blocked on a full queue when the writer stops
+     */
+    private static UsgsCsvImportPipeline smallQueuePipeline(UsgsDatasetJdbcWriter writer) {
+        UsgsCsvImportPipeline pipeline = new UsgsCsvImportPipeline(writer);
+        ReflectionTestUtils.setField(pipeline, "parseThreads", 4);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 10);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 1);
+        return pipeline;
+    }
+
+    private static String largeCsv() {
+        StringBuilder csv = new StringBuilder("transect_id,date,rate\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append("T-").append(i).append(",2001-01-01,0.5\n");
+        }
+        return csv.toString();
+    }
+
+    private static void assertPipelineThreadsExit() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pipelineThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, pipelineThreads(), "pipeline threads still running");
+    }
+
+    private static long pipelineThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.isAlive() && t.getName().startsWith("usgs-import-"))
+                .count();
+    }
+
+    @Test
+    void testMemoryMappedRunMatchesReaderRun(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("transect_id,latitude,longitude,region,date,rate,notes\r\n");
+        for (int i = 0; i < 3000; i++) {
+            csv.append("T-").append(i).append(',').append(41 + i % 100 / 100.0).append(",-70.")
+                    .append(i % 1000).append(',')
+                    .append(i % 3 == 0 ? "\"Cape Cod, \"\"Outer\"\"\"" : "Islands").append(',')
+                    .append(i % 7 == 0 ? "n/a" : "03/0" + (1 + i % 9) + "/1994").append(',')
+                    .append(i % 11 == 0 ? "NaN" : Double.toString(i * 0.01 - 15)).append(',')
+                    .append(i % 5 == 0 ? "\"line one\nline two\"" : "plain")
+                    .append(i % 2 == 0 ? "\r\n" : "\n");
+            if (i % 500 == 0) {
+                csv.append("\n");
+            }
+        }
+        csv.append("short,row");
+        Path file = dir.resolve("shorelines.csv");
+        Files.writeString(file, csv);
+
+        List<UsgsCoastalDataset> fromReader = Collections.synchronizedList(new ArrayList<>());
+        List<UsgsCoastalDataset> fromFile = Collections.synchronizedList(new ArrayList<>());
+        ImportStats readerStats = new UsgsCsvImportPipeline(collectingWriter(fromReader))
+                .run(new BufferedReader(new StringReader(csv.toString())));
+        DatasetSketches sketches = new DatasetSketches();
+        ImportStats fileStats = new UsgsCsvImportPipeline(collectingWriter(fromFile))
+                .run(file, ImportProgress.NONE, sketches);
+
+        assertEquals(3001, fileStats.getRecordsRead());
+        assertEquals(readerStats.getRecordsRead(), fileStats.getRecordsRead());
+        assertEquals(readerStats.getRowsInserted(), fileStats.getRowsInserted());
+        assertEquals(1, fileStats.getRowsSkipped());
+        Comparator<UsgsCoastalDataset> byTransect = Comparator.comparing(UsgsCoastalDataset::getTransectId);
+        fromReader.sort(byTransect);
+        fromFile.sort(byTransect);
+        assertEquals(fromReader, fromFile);
+        UsgsCoastalDataset first = fromFile.stream().filter(d -> "T-0".equals(d.getTransectId())).findFirst().orElseThrow();
+        assertEquals("Cape Cod, \"Outer\"", first.getRegion());
+        assertEquals("notes: line one\nline two", first.getMetadata());
+        assertNull(first.getMeasurementDate());
+        assertEquals(2000, sketches.getGroups()
+                .get(new DatasetSketches.GroupKey(StatsScope.REGION, "Islands", null, null, null))
+                .applyTo(new UsgsDatasetStats()).getRecordCount());
+    }
+
+    private static UsgsDatasetJdbcWriter collectingWriter(List<UsgsCoastalDataset> written) {
+        UsgsDatasetJdbcWriter writer = mock(UsgsDatasetJdbcWriter.class);
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<UsgsCoastalDataset> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return new WriteCounts(batch.size(), 0, 0, 0, 0);
+        });
+        return writer;
+    }
+
+    @Test
+    void testParseDateFormats() {
+        assertEquals(LocalDate.of(2018, 6, 1), UsgsCsvRowMapper.parseDate("2018-06-01"));
+        assertEquals(LocalDate.of(1850, 7, 4), UsgsCsvRowMapper.parseDate("07/04/1850"));
+        assertEquals(LocalDate.of(1938, 1, 1), UsgsCsvRowMapper.parseDate("1938"));
+        assertNull(UsgsCsvRowMapper.parseDate("2018-13-01"));
+        assertNull(UsgsCsvRowMapper.parseDate("n/a"));
+        assertNull(UsgsCsvRowMapper.parseDouble("NaN"));
+        assertNull(UsgsCsvRowMapper.parseDouble(""));
+    }
+}
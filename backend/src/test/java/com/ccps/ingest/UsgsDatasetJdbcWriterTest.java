@@ -0,0 +1,99 @@
+package com.clr.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import com.clr.model.UsgsCoastalDataset;
+
+class UsgsDatasetJdbcWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UsgsDatasetJdbcWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:writer;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS usgs_coastal_datasets");
+        jdbcTemplate.execute("CREATE TABLE usgs_coastal_datasets (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "transect_id VARCHAR(255), latitude DOUBLE, longitude DOUBLE, location VARCHAR(255), "
+                + "region VARCHAR(255), measurement_date DATE, shore_pos_uncert DOUBLE, shoreline_position DOUBLE, "
+                + "shoreline_change DOUBLE, erosion_rate DOUBLE, metadata VARCHAR(2000), data_source VARCHAR(255), "
+                + "dataset_doi VARCHAR(255), data_url VARCHAR(255))");
+        writer = new UsgsDatasetJdbcWriter(jdbcTemplate);
+    }
+
+    @Test
+    void testReimportIsIdempotent() {
+        List<UsgsCoastalDataset> release = List.of(row("T-1", 1994, -0.5), row("T-2", 1994, 0.3), row("T-2", 2001, 0.4));
+
+        WriteCounts first = writer.write(release);
+        WriteCounts second = writer.write(List.of(row("T-1", 1994, -0.5), row("T-2", 1994, 0.3), row("T-2", 2001, 0.4)));
+
+        assertEquals(new WriteCounts(3, 0, 0, 0, 0), first);
+        assertEquals(new WriteCounts(0, 0, 3, 0, 0), second);
+        assertEquals(3, count());
+    }
+
+    @Test
+    void testChangedRowsAreUpdatedInPlace() {
+        writer.write(List.of(row("T-1", 1994, -0.5), row("T-1", 2001, -0.6)));
+
+        WriteCounts counts = writer.write(List.of(row("T-1", 1994, -0.9), row("T-1", 2018, -0.7)));
+
+        assertEquals(new WriteCounts(1, 1, 0, 0, 0), counts);
+        assertEquals(3, count());
+        assertEquals(-0.9, jdbcTemplate.queryForObject(
+                "SELECT erosion_rate FROM usgs_coastal_datasets WHERE measurement_date = DATE '1994-01-01'", Double.class));
+    }
+
+    @Test
+    void testDuplicatesFromAppendOnlyImportsAreRemoved() {
+        writer.write(List.of(row("T-1", 1994, -0.5)));
+        jdbcTemplate.update("INSERT INTO usgs_coastal_datasets (transect_id, measurement_date, erosion_rate) "
+                + "VALUES ('T-1', DATE '1994-01-01', -0.5)");
+
+        WriteCounts counts = writer.write(List.of(row("T-1", 1994, -0.5)));
+
+        assertEquals(1, counts.getDuplicatesRemoved());
+        assertEquals(1, count());
+    }
+
+    @Test
+    void testRowsWithoutTransectIdAreSkipped() {
+        List<UsgsCoastalDataset> release = List.of(row(null, 1994, -0.5), row("", 1994, -0.5), row("T-1", 1994, 0.3));
+
+        WriteCounts first = writer.write(release);
+        WriteCounts second = writer.write(release);
+
+        assertEquals(new WriteCounts(1, 0, 0, 0, 2), first);
+        assertEquals(new WriteCounts(0, 0, 1, 0, 2), second);
+        assertEquals(1, count());
+    }
+
+    @Test
+    void testRepeatedKeyKeepsTheLastWrittenRow() {
+        WriteCounts sameBatch = writer.write(List.of(row("T-1", 1994, -0.5), row("T-1", 1994, -0.9)));
+        WriteCounts laterBatch = writer.write(List.of(row("T-1", 1994, -0.7)));
+
+        assertEquals(new WriteCounts(1, 0, 1, 0, 0), sameBatch);
+        assertEquals(new WriteCounts(0, 1, 0, 0, 0), laterBatch);
+        assertEquals(1, count());
+        assertEquals(-0.7, jdbcTemplate.queryForObject("SELECT erosion_rate FROM usgs_coastal_datasets", Double.class));
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usgs_coastal_datasets", Integer.class);
+    }
+
+    private static UsgsCoastalDataset row(String transectId, int year, double rate) {
+        UsgsCoastalDataset dataset = new UsgsCoastalDataset();
+        dataset.setTransectId(transectId);
+        dataset.setMeasurementDate(LocalDate.of(year, 1, 1));
+        dataset.setErosionRate(rate);
+        return dataset;
+    }
+}
@@ -0,0 +1,174 @@
+package com.clr.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Runs the fetcher against a local HTTP stub serving one versioned file, which can break the
+ * first transfer off halfway or announce a wrong digest
+ */
+class UsgsSourceFetcherTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private String url;
+    private byte[] content;
+    private volatile boolean breakFirstTransfer;
+    private volatile boolean wrongDigest;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void startServer() throws IOException {
+        content = new byte[64 * 1024];
+        new Random(7).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/shorelines.csv", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/shorelines.csv";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(range != null ? range : ifNoneMatch != null ? "If-None-Match " + ifNoneMatch : "GET");
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        if (ETAG.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        if (wrongDigest) {
+            exchange.getResponseHeaders().set("Repr-Digest",
+                    "sha-256=:" + Base64.getEncoder().encodeToString(sha256(new byte[]{1})) + ":");
+        }
+        int from = 0;
+        if (range != null && ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+            from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+            exchange.getResponseHeaders().set("Content-Range",
+                    "bytes " + from + "-" + (content.length - 1) + "/" + content.length);
+            exchange.sendResponseHeaders(206, content.length - from);
+        } else {
+            exchange.sendResponseHeaders(200, content.length);
+        }
+        OutputStream out = exchange.getResponseBody();
+        if (breakFirstTransfer && requests.size() == 1) {
+            out.write(content, 0, content.length / 2);
+            out.flush();
+            // Closing before the announced length drops the connection
+            exchange.close();
+            return;
+        }
+        out.write(content, from, content.length - from);
+        exchange.close();
+    }
+
+    private UsgsSourceFetcher fetcher(boolean offline) {
+        return new UsgsSourceFetcher(new RestTemplateBuilder(), new DefaultResourceLoader(), cacheDir,
+                3, 1, 5, 5, offline);
+    }
+
+    @Test
+    void testResumesABrokenDownload() throws Exception {
+        breakFirstTransfer = true;
+
+        try (FetchedSource source = fetcher(false).fetch(url, null)) {
+            assertArrayEquals(content, Files.readAllBytes(source.getFile()));
+            assertEquals(HexFormat.of().formatHex(sha256(content)), source.getContentHash());
+            assertEquals(content.length, source.getSize());
+            assertEquals(ETAG, source.getEtag());
+        }
+        assertEquals(List.of("GET", "bytes=" + content.length / 2 + "-"), requests);
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertTrue(files.noneMatch(f -> f.getFileName().toString().endsWith(".part")));
+        }
+    }
+
+    @Test
+    void testServesTheCachedCopyWhenNotModified() throws Exception {
+        Path first;
+        try (FetchedSource source = fetcher(false).fetch(url, null)) {
+            first = source.getFile();
+        }
+        assertTrue(Files.exists(first), "cached copies survive close");
+
+        try (FetchedSource source = fetcher(false).fetch(url, null)) {
+            assertFalse(source.isNotModified());
+            assertEquals(first, source.getFile());
+            assertEquals(HexFormat.of().formatHex(sha256(content)), source.getContentHash());
+        }
+        assertEquals(List.of("GET", "If-None-Match " + ETAG), requests);
+    }
+
+    @Test
+    void testOfflineModeUsesOnlyTheCache() throws Exception {
+        assertThrows(IOException.class, () -> fetcher(true).fetch(url, null));
+
+        fetcher(false).fetch(url, null).close();
+
+        try (FetchedSource source = fetcher(true).fetch(url, null)) {
+            assertArrayEquals(content, Files.readAllBytes(source.getFile()));
+        }
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void testRejectsAChecksumMismatch() throws Exception {
+        wrongDigest = true;
+
+        assertThrows(IOException.class, () -> fetcher(false).fetch(url, null));
+        assertEquals(3, requests.size());
+
+        wrongDigest = false;
+        String expected = HexFormat.of().formatHex(sha256(content));
+        assertThrows(IOException.class, () -> fetcher(false).fetch(url, null, "00" + expected.substring(2)));
+        try (FetchedSource source = fetcher(false).fetch(url, null, expected.toUpperCase())) {
+            assertEquals(expected, source.getContentHash());
+        }
+    }
+
+    @Test
+    void testParsesRangeAndDigestHeaders() throws Exception {
+        assertArrayEquals(new long[]{100, 1000}, UsgsSourceFetcher.contentRange("bytes 100-999/1000"));
+        assertArrayEquals(new long[]{0, -1}, UsgsSourceFetcher.contentRange("bytes 0-499/*"));
+        assertThrows(IOException.class, () -> UsgsSourceFetcher.contentRange("items 0-1/2"));
+
+        HttpHeaders headers = new HttpHeaders();
+        String hex = HexFormat.of().formatHex(sha256(content));
+        headers.set("Digest", "MD5=abc, SHA-256=" + Base64.getEncoder().encodeToString(sha256(content)));
+        assertEquals(hex, UsgsSourceFetcher.digestSha256(headers));
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        return DownloadCache.sha256().digest(bytes);
+    }
+}
@@ -0,0 +1,128 @@
+package com.clr.prediction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.CoastalData;
+import com.clr.snapshot.ShorelineSnapshot;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class LogisticRegressionTrainerTest {
+
+    @Test
+    void testUntrainedModelScoresOneHalf() {
+        PredictionModel model = PredictionModel.untrained();
+        assertFalse(model.isTrained());
+        assertEquals(0.5, model.score(1.5, 0.8, 2.3), 1e-12);
+        assertFalse(new LogisticRegressionTrainer().fit(new TrainingSet()).isTrained());
+    }
+
+    @Test
+    void testFitSeparatesOnErosionRate() {
+        Random random = new Random(42);
+        TrainingSet set = new TrainingSet();
+        for (int i = 0; i < 2000; i++) {
+            double rate = random.nextGaussian() * 2;
+            // Sea level is noise, precipitation is missing on half of the examples
+            double precipitation = i % 2 == 0 ? Double.NaN : random.nextDouble() * 100;
+            set.add(random.nextGaussian(), rate, precipitation, rate + random.nextGaussian() * 0.5 > 1.0);
+        }
+
+        PredictionModel model = new LogisticRegressionTrainer().fit(set);
+
+        assertTrue(model.isTrained());
+        assertEquals(2000, model.getTrainingSamples());
+        assertTrue(model.getWeights()[1] > 2, "erosion rate should dominate");
+        assertTrue(Math.abs(model.getWeights()[0]) < 0.3);
+        assertTrue(model.score(0, 4.0, 50) > 0.95);
+        assertTrue(model.score(0, -2.0, 50) < 0.05);
+        assertEquals(0.5, model.score(0, 1.0, 50), 0.15);
+    }
+
+    @Test
+    void testScoreMatchesStandardizedForm() {
+        PredictionModel model = new PredictionModel(new double[]{1, 2, 3}, new double[]{2, 4, 8},
+                new double[]{0.5, -1.0, 0.25}, 0.1, 10, null);
+        double z = 0.1 + 0.5 * (3 - 1) / 2 - 1.0 * (1 - 2) / 4 + 0.25 * (7 - 3) / 8;
+        assertEquals(1 / (1 + Math.exp(-z)), model.score(3, 1, 7), 1e-12);
+    }
+
+    @Test
+    void testSolve() {
+        double[] a = {0, 2, 1, 1, 1, 1, 2, 1, 3};
+        double[] b = {5, 4, 7};
+        double[] x = LogisticRegressionTrainer.solve(a, b, 3);
+        assertArrayEquals(new double[]{1, 2, 1}, x, 1e-12);
+    }
+
+    @Test
+    void testCoastalDataPairsConsecutiveDatesPerRegion() {
+        TrainingSet set = new TrainingSet();
+        TrainingDataExtractor.addCoastalData(List.of(
+                coastal("A", "2020-03-01", 3.0),
+                coastal("A", "2020-01-01", 0.5),
+                coastal("A", "2020-02-01", 2.0),
+                coastal("A", "not a date", 9.0),
+                coastal("B", "2020-01-01", 5.0)), 1.0, set);
+
+        assertEquals(2, set.size());
+        assertEquals(0.5, set.feature(0, 1));
+        assertTrue(set.label(0));
+        assertEquals(2.0, set.feature(1, 1));
+        assertTrue(set.label(1));
+    }
+
+    @Test
+    void testShorelineHistoryPairsConsecutiveMeasurementsPerTransect() {
+        ShorelineSnapshot snapshot = ShorelineSnapshot.builder()
+                .add(1, "T1", "R", "L", null, null, 2.0, null, null, LocalDate.of(2010, 1, 1))
+                .add(2, "T1", "R", "L", null, null, 0.5, null, null, LocalDate.of(2000, 1, 1))
+                .add(3, "T1", "R", "L", null, null, null, null, null, LocalDate.of(2005, 1, 1))
+                .add(4, "T2", "R", "L", null, null, 0.2, null, null, LocalDate.of(2000, 1, 1))
+                .build(1);
+
+        TrainingSet set = new TrainingSet();
+        TrainingDataExtractor.addShorelineHistory(snapshot, 1.0, set);
+
+        assertEquals(1, set.size());
+        assertTrue(Double.isNaN(set.feature(0, 0)));
+        assertEquals(0.5, set.feature(0, 1));
+        assertTrue(set.label(0));
+    }
+
+    @Test
+    void testParallelExtractionMatchesSequential() {
+        Random random = new Random(7);
+        ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+        long id = 0;
+        for (int t = 0; t < 2000; t++) {
+            for (int m = 0; m < 1 + t % 5; m++) {
+                builder.add(id++, "T" + t, "R", "L", null, null, random.nextGaussian() * 2, null, null,
+                        LocalDate.of(1900 + random.nextInt(120), 1, 1));
+            }
+        }
+        ShorelineSnapshot snapshot = builder.build(1);
+
+        TrainingSet sequential = new TrainingSet();
+        TrainingDataExtractor.addShorelineHistory(snapshot, 1.0, sequential);
+        TrainingSet parallel = new ForkJoinPool(4)
+                .invoke(new FeatureExtractionTask(snapshot, snapshot.groupByTransect(), 1.0));
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.feature(i, 1), parallel.feature(i, 1));
+            assertEquals(sequential.label(i), parallel.label(i));
+        }
+    }
+
+    private static CoastalData coastal(String region, String date, double erosionRate) {
+        CoastalData data = new CoastalData();
+        data.setRegion(region);
+        data.setDate(date);
+        data.setErosionRate(erosionRate);
+        return data;
+    }
+}
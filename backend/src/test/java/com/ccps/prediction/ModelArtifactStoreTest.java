@@ -0,0 +1,68 @@
+package com.clr.prediction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+class ModelArtifactStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testModelRoundTrip() {
+        PredictionModel model = new PredictionModel(7, 42, new double[]{1, 2, 3}, new double[]{2, 4, 8},
+                new double[]{0.5, -1.0, 0.25}, 0.1, 1234, Instant.ofEpochMilli(1_700_000_000_000L));
+
+        PredictionModel copy = PredictionModel.fromBytes(model.toBytes());
+
+        assertEquals(7, copy.getVersion());
+        assertEquals(42, copy.getDatasetVersion());
+        assertEquals(1234, copy.getTrainingSamples());
+        assertEquals(model.getTrainedAt(), copy.getTrainedAt());
+        assertArrayEquals(model.getWeights(), copy.getWeights());
+        assertEquals(model.score(3, 1, 7), copy.score(3, 1, 7), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> PredictionModel.fromBytes(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void testVersionsAndActivePointer() {
+        ModelArtifactStore store = new ModelArtifactStore(directory, 20);
+        assertEquals(1, store.nextVersion());
+        assertTrue(store.activeVersion().isEmpty());
+
+        store.save(model(1));
+        store.save(model(2));
+        store.setActiveVersion(1);
+
+        assertEquals(List.of(1L, 2L), store.versions());
+        assertEquals(3, store.nextVersion());
+        assertEquals(1, store.activeVersion().getAsLong());
+        assertEquals(2, store.load(2).orElseThrow().getVersion());
+        assertTrue(store.load(5).isEmpty());
+    }
+
+    @Test
+    void testPruneKeepsNewestAndActive() throws Exception {
+        ModelArtifactStore store = new ModelArtifactStore(directory, 2);
+        store.save(model(1));
+        store.setActiveVersion(1);
+        for (long v = 2; v <= 5; v++) {
+            store.save(model(v));
+        }
+
+        assertEquals(List.of(1L, 4L, 5L), store.versions());
+        try (var files = Files.list(directory)) {
+            assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+        }
+    }
+
+    private static PredictionModel model(long version) {
+        return PredictionModel.untrained().withVersion(version, version * 10);
+    }
+}
@@ -0,0 +1,97 @@
+package com.clr.prediction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.CoastalData;
+import com.clr.model.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PredictionCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PredictionCache cache = new PredictionCache(registry, 100, 10);
+
+    @Test
+    void testHitsShareOneComputationPerModelVersion() {
+        AtomicInteger computations = new AtomicInteger();
+
+        PredictionCache.Lookup first = cache.get(data(" RegionA ", 1.0), 1, () -> result(computations));
+        PredictionCache.Lookup second = cache.get(data("RegionA", 1.0000000001), 1, () -> result(computations));
+        PredictionCache.Lookup otherModel = cache.get(data("RegionA", 1.0), 2, () -> result(computations));
+
+        assertTrue(first.computed());
+        assertFalse(second.computed());
+        assertSame(first.result(), second.result());
+        assertTrue(otherModel.computed());
+        assertEquals(2, computations.get());
+        assertEquals(1, registry.get("prediction.requests").tag("outcome", "hit").timer().count());
+        assertEquals(2, registry.get("prediction.requests").tag("outcome", "miss").timer().count());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(data("RegionA", 1.0), 1, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        PredictionCache.Lookup retry = cache.get(data("RegionA", 1.0), 1, () -> result(new AtomicInteger()));
+        assertTrue(retry.computed());
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PredictionCache.Lookup> leader = executor.submit(() -> cache.get(data("RegionA", 1.0), 1, () -> {
+                started.countDown();
+                await(release);
+                return result(computations);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Thread follower = new Thread(() -> cache.get(data("RegionA", 1.0), 1, () -> result(computations)));
+            follower.start();
+            // Let the follower block on the in-flight computation before releasing it
+            Thread.sleep(100);
+            release.countDown();
+            follower.join(5000);
+
+            assertTrue(leader.get(5, TimeUnit.SECONDS).computed());
+            assertEquals(1, computations.get());
+            assertEquals(1, registry.get("prediction.requests").tag("outcome", "coalesced").timer().count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PredictionResult result(AtomicInteger computations) {
+        computations.incrementAndGet();
+        return new PredictionResult("RegionA", "2024-01-01", 0.5, 1L);
+    }
+
+    private static CoastalData data(String region, double seaLevel) {
+        CoastalData data = new CoastalData();
+        data.setRegion(region);
+        data.setDate("2024-01-01");
+        data.setSeaLevel(seaLevel);
+        return data;
+    }
+}
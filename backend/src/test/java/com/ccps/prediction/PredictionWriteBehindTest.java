@@ -0,0 +1,151 @@
+package com.clr.prediction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class PredictionWriteBehindTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /** Records the batches instead of writing them; optionally blocks until released */
+    private static class RecordingWriter extends PredictionResultWriter {
+        final List<List<PredictionResult>> batches = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch release;
+
+        RecordingWriter(CountDownLatch release) {
+            super(null);
+            this.release = release;
+        }
+
+        @Override
+        public void insert(List<PredictionResult> results) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(List.copyOf(results));
+        }
+
+        int written() {
+            synchronized (batches) {
+                return batches.stream().mapToInt(List::size).sum();
+            }
+        }
+    }
+
+    @Test
+    void testDisabledRefusesResults() {
+        PredictionWriteBehind writeBehind = new PredictionWriteBehind(new RecordingWriter(new CountDownLatch(0)),
+                registry, false, 10, 3, 10, 10, 1, 1);
+        writeBehind.start();
+
+        assertFalse(writeBehind.isEnabled());
+        assertFalse(writeBehind.submit(result()));
+    }
+
+    @Test
+    void testBatchesAndDrainsOnStop() throws Exception {
+        RecordingWriter writer = new RecordingWriter(new CountDownLatch(0));
+        PredictionWriteBehind writeBehind = new PredictionWriteBehind(writer, registry, true, 100, 3, 1000, 10, 1, 1);
+        writeBehind.start();
+
+        for (int i = 0; i < 7; i++) {
+            assertTrue(writeBehind.submit(result()));
+        }
+        writeBehind.stop();
+
+        assertEquals(7, writer.written());
+        assertTrue(writer.batches.stream().allMatch(b -> b.size() <= 3));
+        assertEquals(0, writeBehind.getQueueDepth());
+        assertFalse(writeBehind.submit(result()), "no intake after stop");
+        assertEquals(7.0, registry.get("prediction.write_behind.written").counter().count());
+    }
+
+    @Test
+    void testFullQueueRefusesResults() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingWriter writer = new RecordingWriter(release);
+        PredictionWriteBehind writeBehind = new PredictionWriteBehind(writer, registry, true, 2, 1, 10, 10, 1, 1);
+        writeBehind.start();
+
+        // The writer holds one result while blocked, the queue two more
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (writeBehind.submit(result())) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted <= 3);
+        assertTrue(registry.get("prediction.write_behind.rejected").counter().count() >= 7);
+
+        release.countDown();
+        writeBehind.stop();
+        assertEquals(accepted, writer.written());
+    }
+
+    @Test
+    void testFailedBatchIsRetried() throws Exception {
+        RecordingWriter writer = new RecordingWriter(new CountDownLatch(0)) {
+            int calls;
+
+            @Override
+            public void insert(List<PredictionResult> results) {
+                if (++calls <= 2) {
+                    results.forEach(r -> r.setId(1L));
+                    throw new IllegalStateException("database down");
+                }
+                super.insert(results);
+            }
+        };
+        PredictionWriteBehind writeBehind = new PredictionWriteBehind(writer, registry, true, 100, 5, 1000, 10, 3, 1);
+        writeBehind.start();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(writeBehind.submit(result()));
+        }
+        writeBehind.stop();
+
+        assertEquals(5, writer.written());
+        assertTrue(writer.batches.stream().flatMap(List::stream).allMatch(r -> r.getId() == null),
+                "ids of the failed attempts are cleared");
+        assertEquals(0.0, registry.get("prediction.write_behind.failed").counter().count());
+    }
+
+    @Test
+    void testBadResultDoesNotTakeItsBatchWithIt() throws Exception {
+        RecordingWriter writer = new RecordingWriter(new CountDownLatch(0)) {
+            @Override
+            public void insert(List<PredictionResult> results) {
+                if (results.stream().anyMatch(r -> r.getRegion() == null)) {
+                    throw new IllegalStateException("region must not be null");
+                }
+                super.insert(results);
+            }
+        };
+        PredictionWriteBehind writeBehind = new PredictionWriteBehind(writer, registry, true, 100, 5, 1000, 10, 2, 1);
+        writeBehind.start();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(writeBehind.submit(result()));
+        }
+        assertTrue(writeBehind.submit(new PredictionResult(null, "2024-01-01", 0.5, 1L)));
+        writeBehind.stop();
+
+        assertEquals(4, writer.written());
+        assertEquals(1.0, registry.get("prediction.write_behind.failed").counter().count());
+        assertEquals(4.0, registry.get("prediction.write_behind.written").counter().count());
+    }
+
+    private static PredictionResult result() {
+        return new PredictionResult("RegionA", "2024-01-01", 0.5, 1L);
+    }
+}
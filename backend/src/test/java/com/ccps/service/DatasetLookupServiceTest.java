@@ -0,0 +1,68 @@
+package com.clr.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import com.clr.config.CachingConfig;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+
+import java.util.List;
+
+class DatasetLookupServiceTest {
+
+    private AnnotationConfigApplicationContext context;
+    private UsgsCoastalDatasetRepository repository;
+
+    @Configuration
+    @Import({CachingConfig.class, DatasetVersionService.class, DatasetLookupService.class})
+    static class TestConfig {
+        @Bean
+        UsgsCoastalDatasetRepository usgsCoastalDatasetRepository() {
+            return mock(UsgsCoastalDatasetRepository.class);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(TestConfig.class);
+        repository = context.getBean(UsgsCoastalDatasetRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void testCachesUntilDatasetVersionChanges() {
+        when(repository.findDistinctRegions()).thenReturn(List.of("Cape Cod")).thenReturn(List.of("Cape Cod", "Islands"));
+        DatasetLookupService service = context.getBean(DatasetLookupService.class);
+
+        assertEquals(List.of("Cape Cod"), service.getRegions());
+        assertEquals(List.of("Cape Cod"), service.getRegions());
+        verify(repository, times(1)).findDistinctRegions();
+
+        context.getBean(DatasetVersionService.class).bump();
+
+        assertEquals(List.of("Cape Cod", "Islands"), service.getRegions());
+        verify(repository, times(2)).findDistinctRegions();
+    }
+
+    @Test
+    void testCachesAreSeparatePerQuery() {
+        when(repository.count()).thenReturn(42L);
+        when(repository.findDistinctLocations()).thenReturn(List.of("Chatham"));
+        DatasetLookupService service = context.getBean(DatasetLookupService.class);
+
+        assertEquals(42L, service.getCount());
+        assertEquals(List.of("Chatham"), service.getLocations());
+        assertEquals(42L, service.getCount());
+        verify(repository, times(1)).count();
+    }
+}
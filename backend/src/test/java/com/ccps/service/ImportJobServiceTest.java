@@ -0,0 +1,104 @@
+package com.clr.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import com.clr.ingest.ImportJob;
+import com.clr.ingest.ImportPhase;
+import com.clr.ingest.ImportStats;
+
+class ImportJobServiceTest {
+
+    private ThreadPoolTaskExecutor executor;
+    private ImportJobService importJobService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(4);
+        executor.initialize();
+        importJobService = new ImportJobService(executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testConcurrentTriggersOfSameSourceShareOneJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ImportJob first = importJobService.submit("source-a", job -> {
+            await(release);
+            return new ImportStats(10, 10, 0, 0, 0, 5, false);
+        });
+        ImportJob second = importJobService.submit("source-a", job -> fail("should not run"));
+        ImportJob other = importJobService.submit("source-b", job -> ImportStats.sourceUnchanged(1));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+
+        release.countDown();
+        waitUntilFinished(first);
+        waitUntilFinished(other);
+        assertEquals(ImportPhase.COMPLETED, first.getPhase());
+        assertEquals(10, first.getRowsProcessed());
+        assertEquals(ImportPhase.SKIPPED, other.getPhase());
+    }
+
+    @Test
+    void testFailedJobReportsRootCause() throws Exception {
+        ImportJob job = importJobService.submit("source-a", progress -> {
+            throw new RuntimeException("Failed to import USGS data", new IllegalStateException("connection reset"));
+        });
+
+        waitUntilFinished(job);
+        assertEquals(ImportPhase.FAILED, job.getPhase());
+        assertEquals("connection reset", job.getError());
+    }
+
+    @Test
+    void testCancelStopsRunningJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        ImportJob job = importJobService.submit("source-a", progress -> {
+            started.countDown();
+            while (!progress.isCancelled()) {
+                progress.rowsProcessed(1);
+                Thread.onSpinWait();
+            }
+            throw new CancellationException();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(importJobService.cancel(job.getId()).isPresent());
+        waitUntilFinished(job);
+        assertEquals(ImportPhase.CANCELLED, job.getPhase());
+
+        // A new trigger after cancellation starts a fresh job
+        ImportJob next = importJobService.submit("source-a", progress -> ImportStats.empty());
+        assertNotSame(job, next);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntilFinished(ImportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "job did not finish");
+    }
+}
@@ -0,0 +1,36 @@
+package com.clr.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.clr.model.ShorelinePoint;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import com.clr.spatial.ShorelineSpatialIndex;
+
+class ShorelineSpatialIndexServiceTest {
+
+    @Test
+    void testIndexIsBuiltFromTheSnapshotPointsWithCoordinates() {
+        ShorelineSnapshot snapshot = ShorelineSnapshot.builder()
+                .add(1, "T-1", "Cape Cod", "Chatham", 41.68, -69.95, 2.5, null, null, LocalDate.of(2001, 5, 1))
+                .add(2, "T-2", "Cape Cod", "Chatham", null, -69.95, 1.0, null, null, null)
+                .add(3, "T-3", "Islands", "Nantucket", 41.28, -70.10, null, null, null, null)
+                .build(7);
+        ShorelineSpatialIndexService service = new ShorelineSpatialIndexService();
+
+        service.onSnapshotRebuilt(new ShorelineSnapshotRebuiltEvent(snapshot));
+
+        ShorelineSpatialIndex index = service.current().orElseThrow();
+        assertEquals(7, index.getVersion());
+        assertEquals(2, index.size());
+        List<ShorelinePoint> nearest = index.nearest(41.68, -69.95, 2);
+        assertEquals(1L, nearest.get(0).getId());
+        assertEquals(2.5, nearest.get(0).getErosionRate());
+        assertEquals(LocalDate.of(2001, 5, 1), nearest.get(0).getMeasurementDate());
+        assertEquals(3L, nearest.get(1).getId());
+        assertNull(nearest.get(1).getErosionRate());
+        assertNull(nearest.get(1).getMeasurementDate());
+    }
+}
@@ -0,0 +1,82 @@
+package com.clr.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import com.clr.model.UsgsCoastalDataset;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+import com.clr.service.UsgsDatasetExportService.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManager;
+
+class UsgsDatasetExportServiceTest {
+
+    private final UsgsCoastalDatasetRepository repository = mock(UsgsCoastalDatasetRepository.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final UsgsDatasetExportService exportService =
+            new UsgsDatasetExportService(repository, entityManager, objectMapper);
+
+    @Test
+    void testExportNdjsonWritesOneLinePerRowAndDetaches() throws Exception {
+        UsgsCoastalDataset first = dataset(1L, "Cape Cod");
+        UsgsCoastalDataset second = dataset(2L, "Boston");
+        when(repository.streamFiltered(null, null, null)).thenReturn(Stream.of(first, second));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.export(ExportFormat.NDJSON, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertEquals("Cape Cod", objectMapper.readTree(lines[0]).get("region").asText());
+        assertEquals("2018-06-01", objectMapper.readTree(lines[1]).get("measurementDate").asText());
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void testExportCsvQuotesFieldsContainingSeparators() throws Exception {
+        UsgsCoastalDataset dataset = dataset(7L, "South Shore");
+        dataset.setMetadata("source: \"T-sheet\", 1850");
+        when(repository.streamFiltered("South Shore", null, null)).thenReturn(Stream.of(dataset));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ExportFormat.CSV, "South Shore", null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,transect_id,latitude"));
+        assertTrue(lines[1].startsWith("7,T-7,42.0,-70.0,Plymouth,South Shore,2018-06-01,"));
+        assertTrue(lines[1].endsWith(",\"source: \"\"T-sheet\"\", 1850\""));
+    }
+
+    @Test
+    void testFormatFromParameter() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromParameter("CSV"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromParameter("ndjson"));
+        assertNull(ExportFormat.fromParameter("xml"));
+    }
+
+    private static UsgsCoastalDataset dataset(Long id, String region) {
+        UsgsCoastalDataset dataset = new UsgsCoastalDataset();
+        dataset.setId(id);
+        dataset.setTransectId("T-" + id);
+        dataset.setLatitude(42.0);
+        dataset.setLongitude(-70.0);
+        dataset.setLocation("Plymouth");
+        dataset.setRegion(region);
+        dataset.setMeasurementDate(LocalDate.of(2018, 6, 1));
+        dataset.setErosionRate(-0.4);
+        return dataset;
+    }
+}
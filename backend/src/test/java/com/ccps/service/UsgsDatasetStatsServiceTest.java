@@ -0,0 +1,194 @@
+package com.clr.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.clr.ingest.FetchedSource;
+import com.clr.ingest.UsgsCsvImportPipeline;
+import com.clr.ingest.UsgsDatasetImportedEvent;
+import com.clr.ingest.UsgsDatasetJdbcWriter;
+import com.clr.ingest.UsgsSourceFetcher;
+import com.clr.model.UsgsDatasetStats;
+import com.clr.repository.UsgsCoastalDatasetRepository;
+import com.clr.repository.UsgsDatasetStatsRepository;
+import com.clr.repository.UsgsImportStateRepository;
+import com.clr.snapshot.ShorelineSnapshotRebuiltEvent;
+import com.clr.stats.DatasetSketches;
+
+/**
+ * Imports CSV files into an H2 table through the real pipeline and checks the stats kept up
+ * to date by the import and snapshot events against the stats of a full scan of the table
+ */
+class UsgsDatasetStatsServiceTest {
+
+    private static final String HEADER = "transect_id,region,location,date,rate\n";
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private UsgsSourceFetcher fetcher;
+    private UsgsDataImportService importService;
+    private final Map<Long, UsgsDatasetStats> storedStats = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:stats;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS usgs_coastal_datasets");
+        jdbcTemplate.execute("CREATE TABLE usgs_coastal_datasets (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "transect_id VARCHAR(255), latitude DOUBLE, longitude DOUBLE, location VARCHAR(255), "
+                + "region VARCHAR(255), measurement_date DATE, shore_pos_uncert DOUBLE, shoreline_position DOUBLE, "
+                + "shoreline_change DOUBLE, erosion_rate DOUBLE, metadata VARCHAR(2000), data_source VARCHAR(255), "
+                + "dataset_doi VARCHAR(255), data_url VARCHAR(255))");
+
+        DatasetVersionService versionService = new DatasetVersionService();
+        UsgsDatasetStatsService statsService = statsService(storedStats, versionService);
+        ShorelineSnapshotService snapshotService = new ShorelineSnapshotService(jdbcTemplate, transactionTemplate,
+                versionService, event -> statsService.onSnapshotRebuilt((ShorelineSnapshotRebuiltEvent) event), false);
+        UsgsCoastalDatasetRepository datasetRepository = mock(UsgsCoastalDatasetRepository.class);
+        when(datasetRepository.count()).thenAnswer(invocation -> countRows());
+        fetcher = mock(UsgsSourceFetcher.class);
+        importService = new UsgsDataImportService(datasetRepository, mock(UsgsImportStateRepository.class), fetcher,
+                new UsgsCsvImportPipeline(new UsgsDatasetJdbcWriter(jdbcTemplate)), mock(ImportJobService.class),
+                versionService, event -> {
+                    statsService.onDatasetImported((UsgsDatasetImportedEvent) event);
+                    snapshotService.onDatasetImported((UsgsDatasetImportedEvent) event);
+                });
+        ReflectionTestUtils.setField(importService, "usgsDataUrl", "shorelines.csv");
+        ReflectionTestUtils.setField(importService, "memoryMapped", true);
+    }
+
+    @Test
+    void testOverlappingImportsMatchAFullScan() throws Exception {
+        importCsv(HEADER
+                + "T-1,Cape Cod,Chatham,1994-01-01,-0.5\n"
+                + "T-1,Cape Cod,Chatham,2001-01-01,-0.75\n"
+                + "T-2,Cape Cod,Chatham,1994-01-01,0.25\n"
+                + "T-3,Cape Cod,Orleans,2001-01-01,-1.5\n");
+        assertEquals(scannedStats(), importedStats());
+
+        // Changes one row, repeats one, adds a region; T-3 and 1994's T-2 are not in this file
+        importCsv(HEADER
+                + "T-1,Cape Cod,Chatham,1994-01-01,-0.5\n"
+                + "T-1,Cape Cod,Chatham,2001-01-01,-1.25\n"
+                + "I-1,Islands,Edgartown,2018-01-01,0.5\n");
+
+        assertEquals(5, countRows());
+        List<String> scanned = scannedStats();
+        assertEquals(scanned, importedStats());
+        assertTrue(scanned.stream().anyMatch(s -> s.contains("T-3")), "earlier rows keep their stats");
+    }
+
+    @Test
+    void testDuplicateAndUnkeyedRowsInAFirstImportMatchAFullScan() throws Exception {
+        importCsv(HEADER
+                + "T-1,Cape Cod,Chatham,1994-01-01,-0.5\n"
+                + "T-1,Cape Cod,Chatham,1994-01-01,-0.75\n"
+                + ",Cape Cod,Chatham,1994-01-01,2.0\n"
+                + "T-2,Cape Cod,Chatham,2001-01-01,0.25\n");
+
+        assertEquals(2, countRows());
+        assertEquals(scannedStats(), importedStats());
+    }
+
+    private void importCsv(String csv) throws Exception {
+        Path file = Files.createTempFile(dir, "import-", ".csv");
+        Files.writeString(file, csv);
+        FetchedSource source = mock(FetchedSource.class);
+        when(source.getFile()).thenReturn(file);
+        when(source.getContentHash()).thenReturn(file.getFileName().toString());
+        when(fetcher.fetch(anyString(), any(), any())).thenReturn(source);
+        importService.importDataFromUrl(true);
+    }
+
+    private long countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usgs_coastal_datasets", Long.class);
+    }
+
+    private List<String> importedStats() {
+        return describe(storedStats.values());
+    }
+
+    private List<String> scannedStats() {
+        DatasetSketches sketches = new DatasetSketches();
+        jdbcTemplate.query("SELECT region, location, transect_id, measurement_date, erosion_rate "
+                + "FROM usgs_coastal_datasets", rs -> {
+            double rate = rs.getDouble("erosion_rate");
+            Double erosionRate = rs.wasNull() ? null : rate;
+            LocalDate date = rs.getObject("measurement_date", LocalDate.class);
+            sketches.add(rs.getString("region"), rs.getString("location"), rs.getString("transect_id"),
+                    erosionRate, date);
+        });
+        Map<Long, UsgsDatasetStats> scanned = new HashMap<>();
+        statsService(scanned, new DatasetVersionService()).store(sketches, 0);
+        return describe(scanned.values());
+    }
+
+    /**
+     * The summaries as comparable text, without ids and timestamps
+     */
+    private static List<String> describe(Iterable<UsgsDatasetStats> stats) {
+        List<String> rows = new ArrayList<>();
+        for (UsgsDatasetStats s : stats) {
+            rows.add(String.join("|", String.valueOf(s.getScope()), s.getRegion(), s.getLocation(),
+                    String.valueOf(s.getYear()), s.getTransectId(), String.valueOf(s.getRecordCount()),
+                    String.valueOf(s.getRateCount()), String.valueOf(s.getMeanErosionRate()),
+                    String.valueOf(s.getMinErosionRate()), String.valueOf(s.getMaxErosionRate()),
+                    String.valueOf(s.getMedianErosionRate()), String.valueOf(s.getDistinctTransects()),
+                    String.valueOf(s.getFirstMeasurement()), String.valueOf(s.getLastMeasurement())));
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    private UsgsDatasetStatsService statsService(Map<Long, UsgsDatasetStats> table,
+                                                 DatasetVersionService versionService) {
+        return new UsgsDatasetStatsService(transactionTemplate, statsRepository(table), versionService);
+    }
+
+    /**
+     * A stats repository backed by the given map, covering what the service uses
+     */
+    private static UsgsDatasetStatsRepository statsRepository(Map<Long, UsgsDatasetStats> table) {
+        AtomicLong ids = new AtomicLong();
+        UsgsDatasetStatsRepository repository = mock(UsgsDatasetStatsRepository.class);
+        when(repository.findAll()).thenAnswer(invocation -> new ArrayList<>(table.values()));
+        when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<UsgsDatasetStats> saved = new ArrayList<>();
+            for (UsgsDatasetStats stats : invocation.<Iterable<UsgsDatasetStats>>getArgument(0)) {
+                if (stats.getId() == null) {
+                    stats.setId(ids.incrementAndGet());
+                }
+                table.put(stats.getId(), stats);
+                saved.add(stats);
+            }
+            return saved;
+        });
+        doAnswer(invocation -> {
+            for (UsgsDatasetStats stats : invocation.<Iterable<UsgsDatasetStats>>getArgument(0)) {
+                table.remove(stats.getId());
+            }
+            return null;
+        }).when(repository).deleteAllInBatch(anyIterable());
+        return repository;
+    }
+}
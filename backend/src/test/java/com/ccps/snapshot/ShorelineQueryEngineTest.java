@@ -0,0 +1,96 @@
+package com.clr.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+class ShorelineQueryEngineTest {
+
+    private static final String[] REGIONS = {"Cape Cod", "Islands", "CAPE COD", "North Shore"};
+
+    private static ShorelineSnapshot randomSnapshot(int rows) {
+        Random random = new Random(7);
+        ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+        for (int i = 0; i < rows; i++) {
+            builder.add(i, "T-" + (i / 10),
+                    random.nextInt(30) == 0 ? null : REGIONS[random.nextInt(REGIONS.length)],
+                    "L-" + random.nextInt(5),
+                    41 + random.nextDouble() * 2, -71 + random.nextDouble() * 2,
+                    random.nextInt(10) == 0 ? null : random.nextGaussian(),
+                    null, null,
+                    random.nextInt(25) == 0 ? null : LocalDate.ofEpochDay(random.nextInt(20_000)));
+        }
+        return builder.build(1);
+    }
+
+    private static int[] bruteForce(ShorelineSnapshot s, ShorelineQuery q) {
+        return IntStream.range(0, s.size()).filter(i -> {
+            LocalDate date = s.isNull(ShorelineSnapshot.Column.MEASUREMENT_DATE, i) ? null : LocalDate.ofEpochDay(s.epochDays[i]);
+            return (q.getRegion() == null || q.getRegion().equalsIgnoreCase(s.getRegion(i)))
+                    && (q.getStart() == null || (date != null && !date.isBefore(q.getStart())))
+                    && (q.getEnd() == null || (date != null && !date.isAfter(q.getEnd())))
+                    && (q.getMinErosionRate() == null || s.rates[i] > q.getMinErosionRate())
+                    && (!q.hasBox() || (s.lats[i] >= q.getSouth() && s.lats[i] <= q.getNorth()
+                    && s.lons[i] >= q.getWest() && s.lons[i] <= q.getEast()));
+        }).toArray();
+    }
+
+    @Test
+    void testKernelsAgreeWithBruteForce() {
+        ShorelineSnapshot snapshot = randomSnapshot(5_003);
+        ShorelineQuery[] queries = {
+                ShorelineQuery.builder().build(),
+                ShorelineQuery.builder().region("islands").build(),
+                // Two spellings of one region in the dictionary
+                ShorelineQuery.builder().region("cape cod").build(),
+                ShorelineQuery.builder().start(LocalDate.ofEpochDay(5_000)).end(LocalDate.ofEpochDay(9_000)).build(),
+                ShorelineQuery.builder().minErosionRate(0.5).build(),
+                ShorelineQuery.builder().south(41.5).north(42.0).west(-70.5).east(-70.0).build(),
+                ShorelineQuery.builder().region("North Shore").start(LocalDate.ofEpochDay(1_000))
+                        .minErosionRate(-0.2).south(41.2).north(42.8).west(-70.9).east(-69.5).build(),
+                ShorelineQuery.builder().region("Nowhere").build()
+        };
+        ShorelineQueryEngine scalar = ShorelineQueryEngine.scalar();
+        ShorelineQueryEngine preferred = ShorelineQueryEngine.create(true);
+        for (ShorelineQuery query : queries) {
+            int[] expected = bruteForce(snapshot, query);
+            QueryResult fromScalar = scalar.execute(snapshot, query);
+            QueryResult fromPreferred = preferred.execute(snapshot, query);
+            assertArrayEquals(expected, fromScalar.getRows(), query.toString());
+            assertArrayEquals(expected, fromPreferred.getRows(), preferred.getKernelName() + " " + query);
+            assertEquals(expected.length, fromPreferred.getMatched());
+        }
+    }
+
+    @Test
+    void testLimitCountsAllMatches() {
+        ShorelineSnapshot snapshot = randomSnapshot(1_000);
+        QueryResult result = ShorelineQueryEngine.scalar().execute(snapshot, ShorelineQuery.builder().limit(10).build());
+
+        assertEquals(1_000, result.getMatched());
+        assertArrayEquals(IntStream.range(0, 10).toArray(), result.getRows());
+    }
+
+    @Test
+    void testTopByErosionRateMatchesFullSort() {
+        ShorelineSnapshot snapshot = randomSnapshot(10_000);
+        ShorelineQuery query = ShorelineQuery.builder().region("Islands").topByErosionRate(true).limit(25).build();
+
+        Integer[] sorted = Arrays.stream(bruteForce(snapshot, query))
+                .filter(i -> !Double.isNaN(snapshot.rates[i]))
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(i -> snapshot.rates[i]).reversed()
+                        .thenComparingInt(i -> i))
+                .limit(25)
+                .toArray(Integer[]::new);
+
+        QueryResult result = ShorelineQueryEngine.create(true).execute(snapshot, query);
+        assertArrayEquals(Arrays.stream(sorted).mapToInt(Integer::intValue).toArray(), result.getRows());
+        assertTrue(result.getMatched() >= 25);
+    }
+}
@@ -0,0 +1,72 @@
+package com.clr.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.ShorelinePoint;
+import com.clr.model.SnapshotFootprint;
+
+import java.time.LocalDate;
+
+class ShorelineSnapshotTest {
+
+    private static ShorelineSnapshot sample() {
+        return ShorelineSnapshot.builder()
+                .add(1, "T-1", "Cape Cod", "Chatham", 41.68, -69.95, 2.5, 120.0, 3.1, LocalDate.of(2001, 5, 1))
+                .add(2, "T-1", "Cape Cod", "Chatham", 41.68, -69.95, -0.4, 118.0, 2.0, LocalDate.of(2010, 5, 1))
+                .add(3, "T-2", "Islands", "Nantucket", 41.28, -70.10, 1.2, null, null, LocalDate.of(2018, 1, 1))
+                .add(4, null, null, null, null, null, null, null, null, null)
+                .build(9);
+    }
+
+    @Test
+    void testColumnsAndNullBitmaps() {
+        ShorelineSnapshot snapshot = sample();
+
+        assertEquals(4, snapshot.size());
+        assertEquals(9, snapshot.getVersion());
+        assertEquals("Cape Cod", snapshot.getRegion(1));
+        assertEquals("Nantucket", snapshot.getLocation(2));
+        assertNull(snapshot.getTransectId(3));
+        // Repeated strings are stored once
+        assertEquals(2, snapshot.regions.size());
+        assertEquals(2, snapshot.transects.size());
+
+        assertFalse(snapshot.isNull(ShorelineSnapshot.Column.EROSION_RATE, 0));
+        assertTrue(snapshot.isNull(ShorelineSnapshot.Column.SHORELINE_POSITION, 2));
+        assertTrue(snapshot.isNull(ShorelineSnapshot.Column.MEASUREMENT_DATE, 3));
+        assertTrue(snapshot.isNull(ShorelineSnapshot.Column.LATITUDE, 3));
+
+        ShorelinePoint point = snapshot.point(2);
+        assertEquals(3L, point.getId());
+        assertEquals("T-2", point.getTransectId());
+        assertEquals(LocalDate.of(2018, 1, 1), point.getMeasurementDate());
+        assertNull(snapshot.point(3).getErosionRate());
+    }
+
+    @Test
+    void testFilterCombinesPredicates() {
+        ShorelineSnapshot snapshot = sample();
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, snapshot.filter(null, null, null, null));
+        assertArrayEquals(new int[]{0, 1}, snapshot.filter("cape cod", null, null, null));
+        assertArrayEquals(new int[]{0, 2}, snapshot.filter(null, null, null, 1.0));
+        assertArrayEquals(new int[]{1, 2}, snapshot.filter(null, LocalDate.of(2005, 1, 1), null, null));
+        assertArrayEquals(new int[]{0}, snapshot.filter("Cape Cod", null, LocalDate.of(2005, 1, 1), 0.0));
+        assertArrayEquals(new int[0], snapshot.filter("Elsewhere", null, null, null));
+    }
+
+    @Test
+    void testFootprintIsSmallerThanEntityList() {
+        ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.add(i, "T-" + (i / 20), "Cape Cod", "Chatham", 41.0 + i * 1e-5, -70.0, 0.5, 100.0, 2.0,
+                    LocalDate.of(2000 + i % 20, 1, 1));
+        }
+        SnapshotFootprint footprint = builder.build(1).footprint();
+
+        assertEquals(10_000, footprint.getRows());
+        assertEquals(footprint.getSnapshotBytes(),
+                footprint.getColumnBytes().values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(footprint.getCompressionRatio() > 4, "ratio " + footprint.getCompressionRatio());
+    }
+}
@@ -0,0 +1,92 @@
+package com.clr.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.clr.model.ShorelinePoint;
+
+class ShorelineSpatialIndexTest {
+
+    private static final int POINTS = 5000;
+
+    private double[] lats;
+    private double[] lons;
+    private ShorelineSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Massachusetts-sized extent
+        Random random = new Random(42);
+        lats = new double[POINTS];
+        lons = new double[POINTS];
+        ShorelineSpatialIndex.Builder builder = ShorelineSpatialIndex.builder();
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = 41.2 + random.nextDouble() * 1.7;
+            lons[i] = -71.5 + random.nextDouble() * 1.6;
+            builder.add(i, "T-" + i, lats[i], lons[i], -1.0, null);
+        }
+        builder.add(-1, "bad", Double.NaN, -70.0, null, null);
+        index = builder.build(1);
+    }
+
+    @Test
+    void testIgnoresInvalidCoordinates() {
+        assertEquals(POINTS, index.size());
+    }
+
+    @Test
+    void testNearestMatchesBruteForce() {
+        double[][] queries = {{42.05, -70.18}, {41.41, -70.56}, {40.0, -69.0}, {42.9, -71.5}};
+        for (double[] q : queries) {
+            List<Long> expected = bruteForceOrder(q[0], q[1]).limit(15).boxed().map(Integer::longValue)
+                    .collect(Collectors.toList());
+            List<Long> actual = index.nearest(q[0], q[1], 15).stream().map(ShorelinePoint::getId)
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testWithinRadiusMatchesBruteForce() {
+        double lat = 42.3, lon = -70.9, radiusKm = 12;
+        long expected = IntStream.range(0, POINTS)
+                .filter(i -> ShorelineSpatialIndex.haversineKm(lat, lon, lats[i], lons[i]) <= radiusKm)
+                .count();
+        List<ShorelinePoint> result = index.withinRadius(lat, lon, radiusKm, 10_000);
+
+        assertEquals(expected, result.size());
+        assertTrue(expected > 0);
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).getDistanceKm() <= result.get(i).getDistanceKm());
+        }
+        assertTrue(result.get(result.size() - 1).getDistanceKm() <= radiusKm);
+    }
+
+    @Test
+    void testWithinBoxMatchesBruteForce() {
+        long expected = IntStream.range(0, POINTS)
+                .filter(i -> lats[i] >= 41.5 && lats[i] <= 41.9 && lons[i] >= -70.8 && lons[i] <= -70.3)
+                .count();
+        assertEquals(expected, index.withinBox(41.5, -70.8, 41.9, -70.3, 10_000).size());
+        assertEquals(5, index.withinBox(41.5, -70.8, 41.9, -70.3, 5).size());
+        assertTrue(index.withinBox(10, 10, 11, 11, 100).isEmpty());
+    }
+
+    @Test
+    void testEmptyIndex() {
+        ShorelineSpatialIndex empty = ShorelineSpatialIndex.builder().build(1);
+        assertTrue(empty.nearest(42, -70, 5).isEmpty());
+        assertTrue(empty.withinRadius(42, -70, 5, 5).isEmpty());
+    }
+
+    private IntStream bruteForceOrder(double lat, double lon) {
+        return IntStream.range(0, POINTS).boxed()
+                .sorted(Comparator.comparingDouble(i -> ShorelineSpatialIndex.haversineKm(lat, lon, lats[i], lons[i])))
+                .mapToInt(Integer::intValue);
+    }
+}
@@ -0,0 +1,177 @@
+package com.clr.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.ShorelineForecast;
+import com.clr.model.TransectChangeRate;
+import com.clr.snapshot.ShorelineSnapshot;
+import com.clr.snapshot.TransectGroups;
+
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+class ChangeRateAccumulatorTest {
+
+    @Test
+    void testEndPointAndRegressionRates() {
+        ChangeRateAccumulator accumulator = new ChangeRateAccumulator();
+        // Out of date order on purpose: the end points come from the dates
+        accumulator.add(LocalDate.of(2010, 1, 1), 92.0, 2.0);
+        accumulator.add(LocalDate.of(2000, 1, 1), 100.0, 2.0);
+        accumulator.add(LocalDate.of(2020, 1, 1), 80.0, 2.0);
+        accumulator.add(LocalDate.of(2015, 1, 1), Double.NaN, 2.0);
+
+        TransectChangeRate rate = accumulator.applyTo(new TransectChangeRate());
+
+        assertEquals(3, rate.getMeasurementCount());
+        assertEquals(LocalDate.of(2000, 1, 1), rate.getFirstMeasurement());
+        assertEquals(LocalDate.of(2020, 1, 1), rate.getLastMeasurement());
+        assertEquals(-20.0, rate.getNetShorelineMovement(), 1e-9);
+        assertEquals(-1.0, rate.getEndPointRate(), 1e-3);
+        assertEquals(-1.0, rate.getLinearRegressionRate(), 1e-3);
+        // Residuals of -2/3, +4/3 and -2/3 m around the fit, one degree of freedom
+        double standardError = Math.sqrt((8.0 / 3.0) / 1 / 200.0);
+        assertEquals(12.706 * standardError, rate.getLinearRegressionCi95(), 1e-2);
+        assertTrue(rate.getLinearRegressionR2() > 0.9 && rate.getLinearRegressionR2() < 1.0);
+        // Equal uncertainties weight every point the same
+        assertEquals(rate.getLinearRegressionRate(), rate.getWeightedLinearRate(), 1e-9);
+        assertEquals(rate.getLinearRegressionCi95(), rate.getWeightedLinearCi95(), 1e-9);
+    }
+
+    @Test
+    void testWeightsFollowUncertainty() {
+        ChangeRateAccumulator accumulator = new ChangeRateAccumulator();
+        accumulator.add(LocalDate.of(2000, 1, 1), 100.0, 0.1);
+        accumulator.add(LocalDate.of(2010, 1, 1), 110.0, 0.1);
+        // A far-off position with a large uncertainty barely moves the weighted fit
+        accumulator.add(LocalDate.of(2020, 1, 1), 60.0, 100.0);
+        accumulator.add(LocalDate.of(2005, 1, 1), 105.0, Double.NaN);
+
+        TransectChangeRate rate = accumulator.applyTo(new TransectChangeRate());
+
+        assertEquals(4, rate.getMeasurementCount());
+        assertEquals(1.0, rate.getWeightedLinearRate(), 1e-2);
+        assertTrue(rate.getLinearRegressionRate() < 0);
+    }
+
+    @Test
+    void testTooFewMeasurementsLeaveRatesUnset() {
+        ChangeRateAccumulator single = new ChangeRateAccumulator();
+        single.add(LocalDate.of(2001, 1, 1), 50.0, 1.0);
+        TransectChangeRate one = single.applyTo(new TransectChangeRate());
+        assertEquals(1, one.getMeasurementCount());
+        assertEquals(0.0, one.getNetShorelineMovement());
+        assertNull(one.getEndPointRate());
+        assertNull(one.getLinearRegressionRate());
+
+        ChangeRateAccumulator pair = new ChangeRateAccumulator();
+        pair.add(LocalDate.of(2001, 1, 1), 50.0, 1.0);
+        pair.add(LocalDate.of(2011, 1, 1), 40.0, 1.0);
+        TransectChangeRate two = pair.applyTo(new TransectChangeRate());
+        assertNotNull(two.getLinearRegressionRate());
+        assertNull(two.getLinearRegressionCi95());
+        assertNull(two.getWeightedLinearCi95());
+    }
+
+    @Test
+    void testStudentTCriticalValues() {
+        assertEquals(12.706, ChangeRateAccumulator.tCritical95(1));
+        assertEquals(2.042, ChangeRateAccumulator.tCritical95(30), 1e-3);
+        assertEquals(2.021, ChangeRateAccumulator.tCritical95(40), 1e-3);
+        assertEquals(1.984, ChangeRateAccumulator.tCritical95(100), 1e-3);
+    }
+
+    @Test
+    void testParallelTaskCoversEveryTransect() {
+        ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+        int transects = TransectRateTask.THRESHOLD * 5 + 3;
+        long id = 0;
+        for (int year = 0; year < 4; year++) {
+            for (int t = 0; t < transects; t++) {
+                // Transect t moves t cm per year
+                builder.add(id++, "T-" + t, "Cape Cod", "L-" + (t % 7), 41.5, -70.0, null,
+                        100.0 + year * 10 * t / 100.0, 1.0, LocalDate.of(1980 + year * 10, 1, 1));
+            }
+        }
+        builder.add(id, null, "Cape Cod", null, 41.5, -70.0, null, 1.0, 1.0, LocalDate.of(1980, 1, 1));
+        ShorelineSnapshot snapshot = builder.build(1);
+
+        TransectGroups groups = snapshot.groupByTransect();
+        TransectChangeRate[] results = new TransectChangeRate[groups.count()];
+        new ForkJoinPool(4).invoke(new TransectRateTask(snapshot, groups, results));
+
+        assertEquals(transects, results.length);
+        for (int t = 0; t < transects; t++) {
+            TransectChangeRate rate = results[t];
+            assertEquals("T-" + t, rate.getTransectId());
+            assertEquals("L-" + (t % 7), rate.getLocation());
+            assertEquals(4, rate.getMeasurementCount());
+            // Decades differ by a leap day, hence the relative tolerance
+            assertEquals(t / 100.0, rate.getEndPointRate(), 1e-3 * t / 100.0 + 1e-9);
+            assertEquals(t / 100.0, rate.getLinearRegressionRate(), 1e-3 * t / 100.0 + 1e-9);
+        }
+    }
+
+    @Test
+    void testProjectionWidensAwayFromTheData() {
+        ChangeRateAccumulator accumulator = new ChangeRateAccumulator();
+        accumulator.add(LocalDate.of(1980, 1, 1), 100.0, 2.0);
+        accumulator.add(LocalDate.of(1990, 1, 1), 91.0, 2.0);
+        accumulator.add(LocalDate.of(2000, 1, 1), 79.0, 2.0);
+        accumulator.add(LocalDate.of(2010, 1, 1), 70.0, 2.0);
+
+        assertTrue(accumulator.canProject());
+        double rate = accumulator.regressionRate();
+        assertEquals(-1.02, rate, 1e-2);
+        assertEquals(accumulator.projectPosition(LocalDate.of(2010, 1, 1)) + rate * 40,
+                accumulator.projectPosition(LocalDate.of(2050, 1, 1)), 0.05);
+        double near = accumulator.predictionInterval95(LocalDate.of(2020, 1, 1));
+        double far = accumulator.predictionInterval95(LocalDate.of(2100, 1, 1));
+        assertTrue(near > 0);
+        assertTrue(far > near);
+
+        ChangeRateAccumulator two = new ChangeRateAccumulator();
+        two.add(LocalDate.of(1980, 1, 1), 100.0, 2.0);
+        two.add(LocalDate.of(2000, 1, 1), 80.0, 2.0);
+        assertTrue(two.canProject());
+        assertTrue(Double.isNaN(two.predictionInterval95(LocalDate.of(2050, 1, 1))));
+    }
+
+    @Test
+    void testRateTaskFillsTheForecastGridInTheSamePass() {
+        ShorelineSnapshot.Builder builder = ShorelineSnapshot.builder();
+        int transects = TransectRateTask.THRESHOLD * 3 + 1;
+        long id = 0;
+        for (int t = 0; t < transects; t++) {
+            for (int year = 0; year < 3; year++) {
+                builder.add(id++, "T-" + t, "Cape Cod", "L", 41.5, -70.0, null,
+                        100.0 - year * 10.0, 1.0, LocalDate.of(1980 + year * 10, 1, 1));
+            }
+        }
+        // A single measurement cannot be projected
+        builder.add(id, "T-single", "Cape Cod", "L", 41.5, -70.0, null, 50.0, 1.0, LocalDate.of(1980, 1, 1));
+        ShorelineSnapshot snapshot = builder.build(1);
+
+        int[] horizons = {2050, 2100};
+        TransectGroups groups = snapshot.groupByTransect();
+        TransectChangeRate[] rates = new TransectChangeRate[groups.count()];
+        ShorelineForecast[] results = new ShorelineForecast[groups.count() * horizons.length];
+        new ForkJoinPool(4).invoke(new TransectRateTask(snapshot, groups, horizons, rates, results));
+
+        for (int g = 0; g < groups.count(); g++) {
+            assertEquals(groups.transectId(g), rates[g].getTransectId());
+            if (groups.transectId(g).equals("T-single")) {
+                assertNull(results[g * 2]);
+                assertEquals(1, rates[g].getMeasurementCount());
+                continue;
+            }
+            ShorelineForecast forecast = results[g * 2 + 1];
+            assertEquals(rates[g].getLinearRegressionRate(), forecast.getRate());
+            assertEquals(groups.transectId(g), forecast.getTransectId());
+            assertEquals(2100, forecast.getYear());
+            assertEquals(-20.0, forecast.getPosition(), 0.1);
+            assertEquals(-1.0, forecast.getRate(), 1e-3);
+            assertEquals(forecast.getPosition(), forecast.getLowerBound(), 0.5);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.clr.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.UsgsDatasetStats;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+class RateSketchTest {
+
+    @Test
+    void testSummarizesRates() {
+        RateSketch accumulator = new RateSketch();
+        accumulator.add(1.0, LocalDate.of(2000, 1, 1));
+        accumulator.add(2.0, LocalDate.of(2010, 1, 1));
+        accumulator.add(3.0, LocalDate.of(2020, 1, 1));
+        accumulator.add(4.0, null);
+        accumulator.add(null, LocalDate.of(1990, 6, 1));
+
+        UsgsDatasetStats stats = accumulator.applyTo(new UsgsDatasetStats());
+
+        assertEquals(5, stats.getRecordCount());
+        assertEquals(4, stats.getRateCount());
+        assertEquals(2.5, stats.getMeanErosionRate(), 1e-9);
+        assertEquals(Math.sqrt(5.0 / 3.0), stats.getStddevErosionRate(), 1e-6);
+        assertEquals(1.0, stats.getMinErosionRate());
+        assertEquals(4.0, stats.getMaxErosionRate());
+        assertEquals(2.5, stats.getMedianErosionRate(), 1e-9);
+        assertEquals(1.3, stats.getP10ErosionRate(), 1e-9);
+        assertEquals(3.7, stats.getP90ErosionRate(), 1e-9);
+        assertEquals(LocalDate.of(1990, 6, 1), stats.getFirstMeasurement());
+        assertEquals(LocalDate.of(2020, 1, 1), stats.getLastMeasurement());
+        // +1 m/yr per decade among the dated rates
+        assertEquals(0.1, stats.getTrendPerYear(), 1e-3);
+    }
+
+    @Test
+    void testEmptyRatesLeaveStatisticsUnset() {
+        RateSketch accumulator = new RateSketch();
+        accumulator.add(null, null);
+
+        UsgsDatasetStats stats = accumulator.applyTo(new UsgsDatasetStats());
+
+        assertEquals(1, stats.getRecordCount());
+        assertEquals(0, stats.getRateCount());
+        assertNull(stats.getMeanErosionRate());
+        assertNull(stats.getTrendPerYear());
+    }
+
+    @Test
+    void testSingleRateHasNoSpreadOrTrend() {
+        RateSketch accumulator = new RateSketch();
+        accumulator.add(-0.7, LocalDate.of(2001, 1, 1));
+
+        UsgsDatasetStats stats = accumulator.applyTo(new UsgsDatasetStats());
+
+        assertEquals(-0.7, stats.getMedianErosionRate(), 1e-9);
+        assertNull(stats.getStddevErosionRate());
+        assertNull(stats.getTrendPerYear());
+    }
+
+    @Test
+    void testMergedSketchesMatchSinglePass() {
+        Random random = new Random(11);
+        RateSketch single = new RateSketch(true);
+        RateSketch[] parts = {new RateSketch(true), new RateSketch(true), new RateSketch(true)};
+        for (int i = 0; i < 3000; i++) {
+            String transect = "T-" + random.nextInt(500);
+            Double rate = random.nextInt(10) == 0 ? null : random.nextGaussian() + 0.002 * (i % 100);
+            LocalDate date = LocalDate.of(1900 + i % 100, 1, 1);
+            single.add(transect, rate, date);
+            parts[i % parts.length].add(transect, rate, date);
+        }
+        parts[0].merge(parts[1]);
+        parts[0].merge(parts[2]);
+
+        UsgsDatasetStats expected = single.applyTo(new UsgsDatasetStats());
+        UsgsDatasetStats merged = parts[0].applyTo(new UsgsDatasetStats());
+
+        assertEquals(expected.getRecordCount(), merged.getRecordCount());
+        assertEquals(expected.getRateCount(), merged.getRateCount());
+        assertEquals(expected.getMeanErosionRate(), merged.getMeanErosionRate(), 1e-6);
+        assertEquals(expected.getStddevErosionRate(), merged.getStddevErosionRate(), 1e-6);
+        assertEquals(expected.getMinErosionRate(), merged.getMinErosionRate());
+        assertEquals(expected.getMaxErosionRate(), merged.getMaxErosionRate());
+        assertEquals(expected.getTrendPerYear(), merged.getTrendPerYear(), 1e-6);
+        assertEquals(expected.getFirstMeasurement(), merged.getFirstMeasurement());
+        assertEquals(expected.getLastMeasurement(), merged.getLastMeasurement());
+        assertEquals(expected.getMedianErosionRate(), merged.getMedianErosionRate(), 0.05);
+        // Register-wise maximum: the merged sketch is the single-pass sketch
+        assertArrayEquals(expected.getTransectSketch(), merged.getTransectSketch());
+        assertEquals(500, merged.getDistinctTransects(), 25);
+    }
+
+    @Test
+    void testDigestQuantilesStayCloseOnLargeInputs() {
+        Random random = new Random(3);
+        double[] values = new double[100_000];
+        TDigest digest = new TDigest();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+            double exact = values[(int) Math.round(q * (values.length - 1))];
+            assertEquals(exact, digest.quantile(q), 0.02, "q=" + q);
+        }
+        assertEquals(values[0], digest.quantile(0));
+        assertEquals(values[values.length - 1], digest.quantile(1));
+
+        TDigest restored = TDigest.fromBytes(digest.toBytes());
+        assertEquals(digest.quantile(0.5), restored.quantile(0.5));
+        assertEquals(values.length, restored.size());
+    }
+
+    @Test
+    void testDigestSortKeepsWeightsWithTheirMeans() {
+        Random random = new Random(5);
+        double[] means = new double[1000];
+        double[] weights = new double[means.length];
+        for (int i = 0; i < means.length; i++) {
+            // Few distinct values, so the sort meets long runs of equal means
+            means[i] = random.nextInt(50) - 25;
+            weights[i] = means[i] * 2 + 100;
+        }
+        double[] expected = means.clone();
+        Arrays.sort(expected);
+
+        TDigest.sortByMean(means, weights, 0, means.length - 1);
+
+        assertArrayEquals(expected, means);
+        for (int i = 0; i < means.length; i++) {
+            assertEquals(means[i] * 2 + 100, weights[i]);
+        }
+    }
+
+    @Test
+    void testDistinctCountEstimate() {
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            small.add("T-" + (i % 40));
+        }
+        assertEquals(40, small.estimate());
+
+        HyperLogLog large = new HyperLogLog();
+        HyperLogLog other = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            (i % 2 == 0 ? large : other).add("transect-" + i);
+        }
+        large.merge(other);
+        assertEquals(100_000, large.estimate(), 100_000 * 0.05);
+        assertEquals(large.estimate(), HyperLogLog.fromBytes(large.toBytes()).estimate());
+    }
+}
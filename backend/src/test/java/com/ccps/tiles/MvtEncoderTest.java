@@ -0,0 +1,151 @@
+package com.clr.tiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.spatial.ShorelineSpatialIndex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class MvtEncoderTest {
+
+    @Test
+    void testEncodesMergedPointsAsSingleLayer() {
+        ShorelineSpatialIndex index = ShorelineSpatialIndex.builder()
+                .add(1, "T-1", 42.05, -70.18, -1.0, null)
+                .add(2, "T-2", 42.05, -70.18, -3.0, null)
+                .add(3, "T-3", 41.41, -70.56, null, null)
+                .add(4, "T-4", 10.0, 10.0, 0.5, null)
+                .build(7);
+        TileBounds bounds = TileBounds.of(6, 19, 23);
+
+        Reader tile = new Reader(MvtEncoder.encode(index, bounds));
+        assertEquals(3, tile.nextField());
+        Reader layer = new Reader(tile.bytes());
+        assertFalse(tile.hasMore());
+
+        int version = 0;
+        int extent = 0;
+        String name = null;
+        List<String> keys = new ArrayList<>();
+        List<Reader> values = new ArrayList<>();
+        List<Reader> features = new ArrayList<>();
+        while (layer.hasMore()) {
+            switch (layer.nextField()) {
+                case 15 -> version = (int) layer.varint();
+                case 1 -> name = new String(layer.bytes(), StandardCharsets.UTF_8);
+                case 2 -> features.add(new Reader(layer.bytes()));
+                case 3 -> keys.add(new String(layer.bytes(), StandardCharsets.UTF_8));
+                case 4 -> values.add(new Reader(layer.bytes()));
+                case 5 -> extent = (int) layer.varint();
+                default -> fail("unexpected layer field");
+            }
+        }
+        assertEquals(2, version);
+        assertEquals(MvtEncoder.LAYER_NAME, name);
+        assertEquals(List.of("count", "erosion_rate"), keys);
+        assertEquals(MvtEncoder.extentFor(6), extent);
+        // The two identical points are merged, the far-away point is not in the tile
+        assertEquals(2, features.size());
+
+        Reader merged = features.get(0);
+        long[] tags = null;
+        long[] geometry = null;
+        while (merged.hasMore()) {
+            switch (merged.nextField()) {
+                case 1 -> assertEquals(1, merged.varint());
+                case 2 -> tags = merged.packed();
+                case 3 -> assertEquals(1, merged.varint());
+                case 4 -> geometry = merged.packed();
+                default -> fail("unexpected feature field");
+            }
+        }
+        assertNotNull(tags);
+        assertEquals(4, tags.length);
+        Reader count = values.get((int) tags[1]);
+        assertEquals(5, count.nextField());
+        assertEquals(2, count.varint());
+        Reader rate = values.get((int) tags[3]);
+        assertEquals(3, rate.nextField());
+        assertEquals(-2.0, rate.fixedDouble(), 1e-9);
+
+        assertNotNull(geometry);
+        assertEquals(3, geometry.length);
+        assertEquals(9, geometry[0]);
+        long px = unZigZag(geometry[1]);
+        long py = unZigZag(geometry[2]);
+        assertEquals(Math.round(bounds.tileX(-70.18) * extent), px);
+        assertEquals(Math.round(bounds.tileY(42.05) * extent), py);
+    }
+
+    @Test
+    void testExtentGrowsWithZoom() {
+        assertTrue(MvtEncoder.extentFor(2) < MvtEncoder.extentFor(8));
+        assertEquals(4096, MvtEncoder.extentFor(14));
+        assertEquals(0, MvtEncoder.zigZag(0));
+        assertEquals(1, MvtEncoder.zigZag(-1));
+        assertEquals(2, MvtEncoder.zigZag(1));
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Just enough of a protobuf reader to check the encoded tile
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private int wireType;
+
+        Reader(byte[] data) {
+            this.buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        boolean hasMore() {
+            return buffer.hasRemaining();
+        }
+
+        int nextField() {
+            long tag = varint();
+            wireType = (int) (tag & 0x7);
+            return (int) (tag >>> 3);
+        }
+
+        long varint() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return result;
+        }
+
+        byte[] bytes() {
+            assertEquals(2, wireType);
+            byte[] data = new byte[(int) varint()];
+            buffer.get(data);
+            return data;
+        }
+
+        long[] packed() {
+            Reader inner = new Reader(bytes());
+            List<Long> values = new ArrayList<>();
+            while (inner.hasMore()) {
+                values.add(inner.varint());
+            }
+            return values.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        double fixedDouble() {
+            assertEquals(1, wireType);
+            return buffer.getDouble();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.clr.tiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.clr.model.ClusterTile;
+import com.clr.model.TileCluster;
+import com.clr.spatial.ShorelineSpatialIndex;
+
+class TileClustererTest {
+
+    @Test
+    void testTileBounds() {
+        TileBounds world = TileBounds.of(0, 0, 0);
+        assertEquals(-180, world.getWest(), 1e-9);
+        assertEquals(180, world.getEast(), 1e-9);
+        assertEquals(TileBounds.MAX_LATITUDE, world.getNorth(), 1e-6);
+
+        // Boston at zoom 10
+        TileBounds boston = TileBounds.of(10, 309, 378);
+        assertTrue(boston.getWest() < -71.06 && boston.getEast() > -71.06);
+        assertTrue(boston.getSouth() < 42.36 && boston.getNorth() > 42.36);
+        assertTrue(boston.tileX(-71.06) > 0 && boston.tileX(-71.06) < 1);
+        assertTrue(boston.tileY(42.36) > 0 && boston.tileY(42.36) < 1);
+
+        assertFalse(TileBounds.isValid(3, 8, 0));
+        assertFalse(TileBounds.isValid(-1, 0, 0));
+        assertTrue(TileBounds.isValid(3, 7, 7));
+    }
+
+    @Test
+    void testClusterAggregatesPointsPerCell() {
+        ShorelineSpatialIndex index = ShorelineSpatialIndex.builder()
+                .add(1, "T-1", 42.05, -70.18, -1.0, null)
+                .add(2, "T-2", 42.0501, -70.1801, -3.0, null)
+                .add(3, "T-3", 42.0502, -70.1802, null, null)
+                .add(4, "T-4", 41.41, -70.56, 0.5, null)
+                .add(5, "T-5", 10.0, 10.0, 0.5, null)
+                .build(7);
+
+        ClusterTile tile = TileClusterer.cluster(index, TileBounds.of(6, 19, 23), 8);
+
+        assertEquals(7, tile.getVersion());
+        assertEquals(4, tile.getPointCount());
+        TileCluster capeCod = tile.getClusters().stream().filter(c -> c.getCount() == 3).findFirst().orElseThrow();
+        assertEquals(-2.0, capeCod.getMeanErosionRate(), 1e-9);
+        assertEquals(-3.0, capeCod.getMinErosionRate(), 1e-9);
+        assertEquals(-1.0, capeCod.getMaxErosionRate(), 1e-9);
+        assertEquals(42.0501, capeCod.getLatitude(), 1e-9);
+    }
+}